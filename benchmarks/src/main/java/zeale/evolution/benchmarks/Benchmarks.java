@@ -0,0 +1,31 @@
+package zeale.evolution.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * <p>
+ * Runs the benchmarks. This takes the same arguments as JMH's own main class
+ * (for example, <code>-p population=1000</code> to only run with a thousand
+ * {@link zeale.evolution.bots.Bot}s, or a regular expression to pick
+ * benchmarks), and always adds JMH's {@link GCProfiler}, so that every result
+ * comes with the rate that it allocated memory at.
+ *
+ * @author Zeale
+ *
+ */
+public final class Benchmarks {
+
+	private Benchmarks() {
+	}
+
+	public static void main(final String[] args) throws RunnerException, CommandLineOptionException {
+		new Runner(new OptionsBuilder().parent(new CommandLineOptions(args)).addProfiler(GCProfiler.class).build())
+				.run();
+	}
+
+}
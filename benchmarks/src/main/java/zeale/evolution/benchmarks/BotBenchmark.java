@@ -0,0 +1,78 @@
+package zeale.evolution.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zeale.evolution.World;
+import zeale.evolution.bots.Bot;
+import zeale.evolution.resources.Resource;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * Benchmarks the work of single {@link zeale.evolution.Object}s:
+ * {@link Bot#work(long)}, called on each {@link Bot} of the {@link World} in
+ * turn, and {@link ResourceSpawner#takeRandomResource()}, which puts the
+ * {@link Resource} back after taking it so that the spawner never runs out.
+ * <p>
+ * {@link Bot}s age as they work, so the {@link World} is made again for every
+ * iteration, and iterations are kept short enough that no {@link Bot} can die
+ * of old age during one.
+ *
+ * @author Zeale
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class BotBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int population;
+
+	@Param({ "1", "10", "100" })
+	public int spawnersPerThousand;
+
+	private Bot[] bots;
+	private int next;
+	private ResourceSpawner spawner;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		final World world = Populations.create(population, spawnersPerThousand);
+		bots = Populations.bots(world);
+		spawner = (ResourceSpawner) world.getStructures().get(0);
+		next = 0;
+	}
+
+	@Benchmark
+	public void work() {
+		final Bot bot = bots[next];
+		if (++next == bots.length)
+			next = 0;
+		bot.work(World.TICK_LENGTH);
+	}
+
+	@Benchmark
+	public int takeRandomResource() {
+		final int resource = spawner.takeRandomResource();
+		spawner.getResources().add(resource);
+		return resource;
+	}
+
+}
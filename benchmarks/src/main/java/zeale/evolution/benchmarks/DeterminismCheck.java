@@ -0,0 +1,149 @@
+package zeale.evolution.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import zeale.evolution.EventLog;
+import zeale.evolution.Replay;
+import zeale.evolution.Rng;
+import zeale.evolution.SaveFile;
+import zeale.evolution.World;
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.Spawnpoint;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * Checks that a seed plays out exactly the same way however its {@link World}
+ * is run. A {@link World} is made from the seed and run in every
+ * {@link Mode}, and the {@link SaveFile}s that they end up with must be the
+ * same, byte for byte. Each one is also saved halfway through, loaded, and run
+ * on to the end, which must end up the same again. Last, a recording of the
+ * {@link World} is {@link Replay replayed}, which must end up the same as
+ * well.
+ * <p>
+ * This isn't a benchmark. It's run on its own, with the seed as its only
+ * (optional) argument, and exits with a status of <code>1</code> if anything
+ * differs:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar zeale.evolution.benchmarks.DeterminismCheck
+ * </pre>
+ *
+ * @author Zeale
+ *
+ */
+public final class DeterminismCheck {
+
+	/**
+	 * The size of the {@link World}, the amount of {@link Bot}s and
+	 * {@link ResourceSpawner}s in it, and how many ticks it's run before and
+	 * after being saved.
+	 */
+	private static final int SIZE = 8000, BOTS = 5000, SPAWNERS = 200, TICKS = 1500;
+
+	/**
+	 * The ways that a {@link World}'s {@link Bot}s can be updated.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	private enum Mode {
+		SERIAL(1, false), PARALLEL(4, false), COLUMNAR(1, true), COLUMNAR_PARALLEL(4, true);
+
+		private final int threads;
+		private final boolean columnar;
+
+		private Mode(final int threads, final boolean columnar) {
+			this.threads = threads;
+			this.columnar = columnar;
+		}
+
+		private World apply(final World world) {
+			world.setColumnar(columnar);
+			world.setParallelism(threads);
+			return world;
+		}
+	}
+
+	private DeterminismCheck() {
+	}
+
+	public static void main(final String[] args) throws IOException {
+		final long seed = args.length > 0 ? Long.parseLong(args[0]) : Populations.SEED;
+		final Path directory = Files.createTempDirectory("evolution-determinism");
+		boolean same = true;
+
+		byte[] expected = null;
+		for (final Mode mode : Mode.values()) {
+			final World world = mode.apply(DeterminismCheck.create(seed));
+			world.run(DeterminismCheck.TICKS);
+			final Path half = directory.resolve(mode + ".evo");
+			new SaveFile(world, 0, 0, 1).write(half);
+			final World loaded = mode.apply(SaveFile.read(half).getWorld());
+			world.run(DeterminismCheck.TICKS);
+			loaded.run(DeterminismCheck.TICKS);
+
+			final byte[] end = DeterminismCheck.save(world, directory), reloaded = DeterminismCheck.save(loaded,
+					directory);
+			if (expected == null)
+				expected = end;
+			same &= DeterminismCheck.report(mode + " against " + Mode.SERIAL, expected, end);
+			same &= DeterminismCheck.report(mode + " after loading", end, reloaded);
+			world.setParallelism(1);
+			loaded.setParallelism(1);
+		}
+
+		// Recorded in parallel and replayed one bot after another.
+		final Path log = directory.resolve("log");
+		final World recorded = Mode.PARALLEL.apply(DeterminismCheck.create(seed));
+		try (EventLog events = new EventLog(log, recorded, EventLog.DEFAULT_KEYFRAME_INTERVAL)) {
+			recorded.setListener(events);
+			recorded.run(2 * DeterminismCheck.TICKS);
+		}
+		recorded.setParallelism(1);
+		try (Replay replay = new Replay(log)) {
+			same &= DeterminismCheck.report("Replay", expected, DeterminismCheck.save(replay.run(), directory));
+		} catch (final IllegalStateException e) {
+			System.out.println("Replay: diverged from the log: " + e.getMessage());
+			same = false;
+		}
+
+		System.out.println(same ? "Deterministic." : "NOT deterministic (seed " + seed + ").");
+		System.exit(same ? 0 : 1);
+	}
+
+	/**
+	 * Makes the {@link World} that every {@link Mode} runs, from a seed.
+	 */
+	private static World create(final long seed) {
+		final World world = new World(DeterminismCheck.SIZE, DeterminismCheck.SIZE, false, seed);
+		final Rng random = world.getRandom();
+		world.addStruct(new Spawnpoint(DeterminismCheck.SIZE / 2, DeterminismCheck.SIZE / 2));
+		for (int i = 0; i < DeterminismCheck.SPAWNERS; i++)
+			world.addStruct(new ResourceSpawner(random.nextInt(DeterminismCheck.SIZE),
+					random.nextInt(DeterminismCheck.SIZE), (short) 30, random));
+		for (int i = 0; i < DeterminismCheck.BOTS; i++)
+			world.addBot(new Bot(random.nextInt(DeterminismCheck.SIZE), random.nextInt(DeterminismCheck.SIZE)));
+		world.tick(0);
+		return world;
+	}
+
+	/**
+	 * Saves a {@link World} and reads the save back in as bytes.
+	 */
+	private static byte[] save(final World world, final Path directory) throws IOException {
+		final Path file = directory.resolve("end.evo");
+		new SaveFile(world, 0, 0, 1).write(file);
+		return Files.readAllBytes(file);
+	}
+
+	private static boolean report(final String check, final byte[] expected, final byte[] actual) {
+		final boolean same = Arrays.equals(expected, actual);
+		System.out.println(check + ": " + (same ? "same" : "DIFFERENT"));
+		return same;
+	}
+
+}
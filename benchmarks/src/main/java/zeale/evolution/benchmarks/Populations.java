@@ -0,0 +1,70 @@
+package zeale.evolution.benchmarks;
+
+import zeale.evolution.Rng;
+import zeale.evolution.World;
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * Builds the {@link World}s that the benchmarks run on. Every {@link World}
+ * has the same density of {@link Bot}s (one per {@link #AREA_PER_BOT} square
+ * units), so bigger populations make bigger {@link World}s, and a number of
+ * {@link ResourceSpawner}s for every thousand {@link Bot}s. They're made from
+ * a fixed seed, so every run benchmarks the same {@link World}s.
+ *
+ * @author Zeale
+ *
+ */
+final class Populations {
+
+	/**
+	 * The area of the {@link World} for each {@link Bot} in it.
+	 */
+	static final double AREA_PER_BOT = 100 * 100;
+
+	/**
+	 * The seed of every {@link World}.
+	 */
+	static final long SEED = 0x5EED;
+
+	private Populations() {
+	}
+
+	/**
+	 * <p>
+	 * Makes a populated {@link World}. The {@link World} is ticked once, with
+	 * a length of zero, only to flush everything that was added into it.
+	 *
+	 * @param population
+	 *            The amount of {@link Bot}s.
+	 * @param spawnersPerThousand
+	 *            The amount of {@link ResourceSpawner}s for every thousand
+	 *            {@link Bot}s. There is always at least one.
+	 * @return The {@link World}.
+	 */
+	static World create(final int population, final int spawnersPerThousand) {
+		final int size = (int) Math.ceil(Math.sqrt(population * Populations.AREA_PER_BOT));
+		final World world = new World(size, size, false, Populations.SEED);
+		final Rng random = world.getRandom();
+		final int spawners = Math.max(1, (int) ((long) population * spawnersPerThousand / 1000));
+		for (int i = 0; i < spawners; i++)
+			world.addStruct(new ResourceSpawner(random.nextInt(size), random.nextInt(size), (short) 50, random));
+		for (int i = 0; i < population; i++)
+			world.addBot(new Bot(random.nextInt(size), random.nextInt(size)));
+		world.tick(0);
+		return world;
+	}
+
+	/**
+	 * Gets every {@link Bot} in a {@link World}, in slot order.
+	 *
+	 * @param world
+	 *            The {@link World}.
+	 * @return A new array of the {@link Bot}s.
+	 */
+	static Bot[] bots(final World world) {
+		return world.getBots().toArray(new Bot[0]);
+	}
+
+}
@@ -0,0 +1,79 @@
+package zeale.evolution.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zeale.evolution.Evolution;
+import zeale.evolution.World;
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * Benchmarks the queries that {@link Bot}s make every tick: finding the
+ * closest {@link ResourceSpawner}, finding the closest {@link Bot}, and
+ * measuring the distance between two {@link zeale.evolution.Object}s. Each
+ * call is made from the next {@link Bot} of the {@link World}, in turn. None
+ * of these change the {@link World}, so it's only made once per fork.
+ *
+ * @author Zeale
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueryBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int population;
+
+	@Param({ "1", "10", "100" })
+	public int spawnersPerThousand;
+
+	private Bot[] bots;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		bots = Populations.bots(Populations.create(population, spawnersPerThousand));
+	}
+
+	private Bot nextBot() {
+		final Bot bot = bots[next];
+		if (++next == bots.length)
+			next = 0;
+		return bot;
+	}
+
+	@Benchmark
+	public ResourceSpawner getClosestStructure() {
+		return Evolution.getClosestStructure(nextBot(), ResourceSpawner.class);
+	}
+
+	@Benchmark
+	public Bot getClosestBot() {
+		return Evolution.getClosestBot(nextBot(), Bot.class);
+	}
+
+	@Benchmark
+	public double getDistance() {
+		final Bot bot = nextBot();
+		return Evolution.getDistance(bot, bots[bots.length - 1 - next]);
+	}
+
+}
@@ -0,0 +1,60 @@
+package zeale.evolution.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import zeale.evolution.World;
+
+/**
+ * <p>
+ * Benchmarks a whole tick of a {@link World}: the same
+ * {@link World#tick(long)} that the game loop runs sixty times a second, on
+ * the benchmark's thread and without a window.
+ * <p>
+ * Like in {@link BotBenchmark}, the {@link World} is made again for every
+ * iteration, and iterations are kept short enough that no
+ * {@link zeale.evolution.bots.Bot} can die of old age during one.
+ *
+ * @author Zeale
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 100, timeUnit = TimeUnit.MILLISECONDS)
+@Fork(1)
+@State(Scope.Thread)
+public class TickBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int population;
+
+	@Param({ "1", "10", "100" })
+	public int spawnersPerThousand;
+
+	private World world;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		world = Populations.create(population, spawnersPerThousand);
+	}
+
+	@Benchmark
+	public World tick() {
+		world.tick(World.TICK_LENGTH);
+		return world;
+	}
+
+}
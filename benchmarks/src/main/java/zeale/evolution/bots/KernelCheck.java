@@ -0,0 +1,116 @@
+package zeale.evolution.bots;
+
+import zeale.evolution.Rng;
+
+/**
+ * <p>
+ * Checks that the {@link MovementKernel} that's in use gives exactly the same
+ * results as {@link MovementKernel.Scalar}, bit for bit, by running both over
+ * the same random inputs and comparing every output. The inputs include the
+ * cases that take the scalar code's other branches: {@link Bot}s that are
+ * already at their target or level with it on one axis, {@link Bot}s that
+ * aren't moving, speeds of zero, infinite coordinates, and ranges that don't
+ * start or end on a vector boundary. NaNs are compared by value, not payload.
+ * <p>
+ * This is in the same package as the kernels so that it can reach them. It
+ * isn't a benchmark; it's run on its own with the vector module added, and
+ * exits with a status of <code>1</code> if the vector kernel isn't loaded or
+ * anything differs:
+ *
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp benchmarks/target/benchmarks.jar zeale.evolution.bots.KernelCheck
+ * </pre>
+ *
+ * The amount of rounds can be given as the only argument.
+ *
+ * @author Zeale
+ *
+ */
+public final class KernelCheck {
+
+	/**
+	 * The largest amount of slots in a round.
+	 */
+	private static final int SLOTS = 1024;
+
+	private KernelCheck() {
+	}
+
+	public static void main(final String[] args) {
+		final MovementKernel kernel = MovementKernel.INSTANCE, scalar = new MovementKernel.Scalar();
+		System.out.println("Kernel: " + kernel.getName());
+		if (kernel instanceof MovementKernel.Scalar) {
+			System.out.println("The vector kernel isn't loaded, so there's nothing to compare.");
+			System.exit(1);
+		}
+
+		final int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		final Rng random = new Rng(0x5EED);
+		long mismatches = 0;
+		for (int round = 0; round < rounds; round++) {
+			final int size = 1 + random.nextInt(KernelCheck.SLOTS);
+			final double[] x = new double[size], y = new double[size], tx = new double[size],
+					ty = new double[size];
+			final short[] speed = new short[size];
+			final boolean[] moving = new boolean[size];
+			for (int i = 0; i < size; i++) {
+				x[i] = KernelCheck.coordinate(random);
+				y[i] = KernelCheck.coordinate(random);
+				// Sometimes at the target, or level with it on an axis.
+				final int kind = random.nextInt(8);
+				tx[i] = kind == 0 || kind == 1 ? x[i] : KernelCheck.coordinate(random);
+				ty[i] = kind == 0 || kind == 2 ? y[i] : KernelCheck.coordinate(random);
+				speed[i] = (short) (random.nextInt(8) == 0 ? 0 : random.nextInt(Short.MAX_VALUE));
+				moving[i] = random.nextInt(8) != 0;
+			}
+			final int from = random.nextInt(size), to = from + random.nextInt(size - from + 1);
+
+			final double[] distance = new double[size], expectedDistance = new double[size];
+			kernel.distances(x, y, tx, ty, distance, from, to);
+			scalar.distances(x, y, tx, ty, expectedDistance, from, to);
+
+			final double[] posx = x.clone(), posy = y.clone(), expectedx = x.clone(), expectedy = y.clone();
+			kernel.move(posx, posy, tx, ty, speed, moving, from, to);
+			scalar.move(expectedx, expectedy, tx, ty, speed, moving, from, to);
+
+			for (int i = 0; i < size; i++)
+				if (KernelCheck.differs(expectedDistance[i], distance[i]) || KernelCheck.differs(expectedx[i], posx[i])
+						|| KernelCheck.differs(expectedy[i], posy[i])) {
+					if (mismatches++ < 10)
+						System.out.println("Round " + round + ", slot " + i + ": from (" + x[i] + ", " + y[i]
+								+ ") to (" + tx[i] + ", " + ty[i] + ") at " + speed[i] + " expected "
+								+ expectedDistance[i] + " (" + expectedx[i] + ", " + expectedy[i] + ") but got "
+								+ distance[i] + " (" + posx[i] + ", " + posy[i] + ")");
+				}
+		}
+
+		System.out.println(mismatches == 0 ? "Identical over " + rounds + " rounds."
+				: mismatches + " slots DIFFERED over " + rounds + " rounds.");
+		System.exit(mismatches == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Picks a coordinate: usually somewhere on a large map, now and then a
+	 * whole number, and rarely infinite.
+	 */
+	private static double coordinate(final Rng random) {
+		switch (random.nextInt(64)) {
+		case 0:
+			return Double.POSITIVE_INFINITY;
+		case 1:
+			return Double.NEGATIVE_INFINITY;
+		case 2:
+		case 3:
+		case 4:
+		case 5:
+			return random.nextInt(100);
+		default:
+			return (random.nextDouble() - 0.5) * 100000;
+		}
+	}
+
+	private static boolean differs(final double expected, final double actual) {
+		return Double.doubleToLongBits(expected) != Double.doubleToLongBits(actual);
+	}
+
+}
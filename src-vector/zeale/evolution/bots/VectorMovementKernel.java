@@ -0,0 +1,104 @@
+package zeale.evolution.bots;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <p>
+ * The {@link MovementKernel} that works on a whole vector of {@link Bot}s at a
+ * time, through the <code>jdk.incubator.vector</code> API. This is loaded
+ * reflectively by {@link MovementKernel#INSTANCE}; see there for when it's
+ * used.
+ * <p>
+ * Every lane does exactly what {@link MovementKernel.Scalar} does for one
+ * {@link Bot}. The branches of the scalar movement become masks, and the
+ * slots left over at the end of a range are handed to the scalar code.
+ *
+ * @author Zeale
+ *
+ */
+final class VectorMovementKernel extends MovementKernel {
+
+	/**
+	 * The widest vector of <code>double</code>s that the CPU supports, and a
+	 * vector of <code>short</code>s with as many lanes, for the speeds.
+	 */
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Short> SHORTS = VectorSpecies.of(short.class,
+			VectorShape.forBitSize(VectorMovementKernel.DOUBLES.length() * Short.SIZE));
+
+	/**
+	 * Constructs a new {@link VectorMovementKernel}.
+	 *
+	 * @throws UnsupportedOperationException
+	 *             If the CPU's vectors are too narrow to be worth using.
+	 */
+	VectorMovementKernel() {
+		if (VectorMovementKernel.DOUBLES.length() < 4)
+			throw new UnsupportedOperationException("Vectors are too narrow: " + VectorMovementKernel.DOUBLES);
+	}
+
+	@Override
+	void distances(final double[] x, final double[] y, final double[] tx, final double[] ty,
+			final double[] distance, final int from, final int to) {
+		final int end = from + VectorMovementKernel.DOUBLES.loopBound(to - from);
+		int i = from;
+		for (; i < end; i += VectorMovementKernel.DOUBLES.length()) {
+			final DoubleVector vx = DoubleVector.fromArray(VectorMovementKernel.DOUBLES, x, i)
+					.sub(DoubleVector.fromArray(VectorMovementKernel.DOUBLES, tx, i));
+			final DoubleVector vy = DoubleVector.fromArray(VectorMovementKernel.DOUBLES, y, i)
+					.sub(DoubleVector.fromArray(VectorMovementKernel.DOUBLES, ty, i));
+			// Not fused, so that this rounds like the scalar code.
+			vx.mul(vx).add(vy.mul(vy)).sqrt().intoArray(distance, i);
+		}
+		for (; i < to; i++)
+			distance[i] = MovementKernel.Scalar.distance(x[i], y[i], tx[i], ty[i]);
+	}
+
+	@Override
+	void move(final double[] posx, final double[] posy, final double[] tx, final double[] ty,
+			final short[] speed, final boolean[] moving, final int from, final int to) {
+		final int end = from + VectorMovementKernel.DOUBLES.loopBound(to - from);
+		int i = from;
+		for (; i < end; i += VectorMovementKernel.DOUBLES.length()) {
+			final VectorMask<Double> mask = VectorMask.fromArray(VectorMovementKernel.DOUBLES, moving, i);
+			if (!mask.anyTrue())
+				continue;
+			final DoubleVector x = DoubleVector.fromArray(VectorMovementKernel.DOUBLES, posx, i),
+					y = DoubleVector.fromArray(VectorMovementKernel.DOUBLES, posy, i),
+					targetx = DoubleVector.fromArray(VectorMovementKernel.DOUBLES, tx, i),
+					targety = DoubleVector.fromArray(VectorMovementKernel.DOUBLES, ty, i);
+			final DoubleVector s = (DoubleVector) ShortVector.fromArray(VectorMovementKernel.SHORTS, speed, i)
+					.convertShape(VectorOperators.S2D, VectorMovementKernel.DOUBLES, 0);
+
+			final DoubleVector dx = x.sub(targetx).abs(), dy = y.sub(targety).abs();
+			final DoubleVector sum = dx.add(dy);
+			final DoubleVector rx = dx.div(sum), ry = dy.div(sum);
+
+			// The lanes that take each branch of the scalar code.
+			final VectorMask<Double> nanx = rx.test(VectorOperators.IS_NAN).and(mask);
+			final VectorMask<Double> nany = ry.test(VectorOperators.IS_NAN).and(mask).andNot(nanx);
+			final VectorMask<Double> step = mask.andNot(nanx).andNot(nany);
+
+			final DoubleVector sx = rx.mul(s), sy = ry.mul(s);
+			final DoubleVector stepx = x.sub(sx).blend(x.add(sx), targetx.compare(VectorOperators.GT, x));
+			final DoubleVector stepy = y.sub(sy).blend(y.add(sy), targety.compare(VectorOperators.GT, y));
+
+			x.blend(x.add(s), nany).blend(stepx, step).intoArray(posx, i);
+			y.blend(y.add(s), nanx).blend(stepy, step).intoArray(posy, i);
+		}
+		for (; i < to; i++)
+			if (moving[i])
+				MovementKernel.Scalar.move(posx, posy, tx[i], ty[i], speed[i], i);
+	}
+
+	@Override
+	String getName() {
+		return "vector (" + VectorMovementKernel.DOUBLES + ")";
+	}
+
+}
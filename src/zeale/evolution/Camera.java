@@ -0,0 +1,292 @@
+package zeale.evolution;
+
+/**
+ * <p>
+ * The transform from world coordinates to screen coordinates for a single
+ * frame. A {@link Camera} is {@link #set(double, double, double, int, int)
+ * set} once per frame, from the camera's position and zoom and the size of
+ * the screen, and is then used for everything drawn in that frame, so none of
+ * those values are looked up again per {@link Object}.
+ * <p>
+ * At a zoom of <code>1</code>, the area in view is the {@link Camera}'s
+ * <i>reference size</i> (what the game is designed for, such as 1920x1080),
+ * scaled to fill the screen. Zooming in shrinks the area in view and zooming
+ * out grows it.
+ * <p>
+ * Positions are converted with {@link #screenX(double)} and
+ * {@link #screenY(double)} and sizes with {@link #screenWidth(double)} and
+ * {@link #screenHeight(double)}. Each also has a batch version that converts
+ * a whole array of coordinates at once.
+ *
+ * @author Zeale
+ *
+ */
+public final class Camera {
+
+	/**
+	 * The size of the area in view at a zoom of <code>1</code>.
+	 */
+	private final int referenceWidth, referenceHeight;
+
+	/**
+	 * The world position of the top left corner of the screen, and the zoom.
+	 */
+	private double x, y, zoom = 1;
+
+	/**
+	 * The amount of pixels per unit, on each axis.
+	 */
+	private double scaleX = 1, scaleY = 1;
+
+	/**
+	 * The size of the area in view, in units.
+	 */
+	private double viewWidth, viewHeight;
+
+	/**
+	 * Constructs a new {@link Camera} at <code>(0, 0)</code>, with a zoom of
+	 * <code>1</code>, for a screen that is exactly the reference size.
+	 *
+	 * @param referenceWidth
+	 *            The width of the area in view at a zoom of <code>1</code>.
+	 * @param referenceHeight
+	 *            The height of the area in view at a zoom of <code>1</code>.
+	 */
+	public Camera(final int referenceWidth, final int referenceHeight) {
+		if (referenceWidth <= 0 || referenceHeight <= 0)
+			throw new IllegalArgumentException(
+					"The reference size must be positive: " + referenceWidth + "x" + referenceHeight);
+		this.referenceWidth = referenceWidth;
+		this.referenceHeight = referenceHeight;
+		viewWidth = referenceWidth;
+		viewHeight = referenceHeight;
+	}
+
+	/**
+	 * Sets up this {@link Camera} for a frame.
+	 *
+	 * @param x
+	 *            The world x position of the left edge of the screen.
+	 * @param y
+	 *            The world y position of the top edge of the screen.
+	 * @param zoom
+	 *            The zoom. <code>1</code> shows the reference size; above
+	 *            <code>1</code> is zoomed in.
+	 * @param screenWidth
+	 *            The width of the screen, in pixels.
+	 * @param screenHeight
+	 *            The height of the screen, in pixels.
+	 * @return This {@link Camera}.
+	 */
+	public Camera set(final double x, final double y, final double zoom, final int screenWidth,
+			final int screenHeight) {
+		if (!(zoom > 0))
+			throw new IllegalArgumentException("The zoom must be positive: " + zoom);
+		this.x = x;
+		this.y = y;
+		this.zoom = zoom;
+		scaleX = (double) screenWidth / referenceWidth * zoom;
+		scaleY = (double) screenHeight / referenceHeight * zoom;
+		viewWidth = referenceWidth / zoom;
+		viewHeight = referenceHeight / zoom;
+		return this;
+	}
+
+	/**
+	 * Converts a world x position to a screen x position.
+	 *
+	 * @param x
+	 *            The world x position.
+	 * @return The screen x position.
+	 */
+	public int screenX(final double x) {
+		return (int) ((x - this.x) * scaleX);
+	}
+
+	/**
+	 * Converts a world y position to a screen y position.
+	 *
+	 * @param y
+	 *            The world y position.
+	 * @return The screen y position.
+	 */
+	public int screenY(final double y) {
+		return (int) ((y - this.y) * scaleY);
+	}
+
+	/**
+	 * Converts a width in units to a width in pixels.
+	 *
+	 * @param width
+	 *            The width in units.
+	 * @return The width in pixels.
+	 */
+	public int screenWidth(final double width) {
+		return (int) (width * scaleX);
+	}
+
+	/**
+	 * Converts a height in units to a height in pixels.
+	 *
+	 * @param height
+	 *            The height in units.
+	 * @return The height in pixels.
+	 */
+	public int screenHeight(final double height) {
+		return (int) (height * scaleY);
+	}
+
+	/**
+	 * Converts a screen x position back to a world x position.
+	 *
+	 * @param x
+	 *            The screen x position.
+	 * @return The world x position.
+	 */
+	public double worldX(final int x) {
+		return this.x + x / scaleX;
+	}
+
+	/**
+	 * Converts a screen y position back to a world y position.
+	 *
+	 * @param y
+	 *            The screen y position.
+	 * @return The world y position.
+	 */
+	public double worldY(final int y) {
+		return this.y + y / scaleY;
+	}
+
+	/**
+	 * Converts <code>count</code> world x positions to screen x positions.
+	 *
+	 * @param x
+	 *            The world x positions.
+	 * @param out
+	 *            The array to put the screen x positions in. This may be
+	 *            <code>x</code>.
+	 * @param count
+	 *            The amount of positions to convert.
+	 */
+	public void screenX(final int[] x, final int[] out, final int count) {
+		final double offset = this.x, scale = scaleX;
+		for (int i = 0; i < count; i++)
+			out[i] = (int) ((x[i] - offset) * scale);
+	}
+
+	/**
+	 * Converts <code>count</code> world y positions to screen y positions.
+	 *
+	 * @param y
+	 *            The world y positions.
+	 * @param out
+	 *            The array to put the screen y positions in. This may be
+	 *            <code>y</code>.
+	 * @param count
+	 *            The amount of positions to convert.
+	 */
+	public void screenY(final int[] y, final int[] out, final int count) {
+		final double offset = this.y, scale = scaleY;
+		for (int i = 0; i < count; i++)
+			out[i] = (int) ((y[i] - offset) * scale);
+	}
+
+	/**
+	 * Converts <code>count</code> widths in units to widths in pixels.
+	 *
+	 * @param width
+	 *            The widths in units.
+	 * @param out
+	 *            The array to put the widths in pixels in. This may be
+	 *            <code>width</code>.
+	 * @param count
+	 *            The amount of widths to convert.
+	 */
+	public void screenWidth(final int[] width, final int[] out, final int count) {
+		final double scale = scaleX;
+		for (int i = 0; i < count; i++)
+			out[i] = (int) (width[i] * scale);
+	}
+
+	/**
+	 * Converts <code>count</code> heights in units to heights in pixels.
+	 *
+	 * @param height
+	 *            The heights in units.
+	 * @param out
+	 *            The array to put the heights in pixels in. This may be
+	 *            <code>height</code>.
+	 * @param count
+	 *            The amount of heights to convert.
+	 */
+	public void screenHeight(final int[] height, final int[] out, final int count) {
+		final double scale = scaleY;
+		for (int i = 0; i < count; i++)
+			out[i] = (int) (height[i] * scale);
+	}
+
+	/**
+	 * A getter for the world x position of the left edge of the screen.
+	 *
+	 * @return The left edge of the area in view.
+	 */
+	public double getMinX() {
+		return x;
+	}
+
+	/**
+	 * A getter for the world y position of the top edge of the screen.
+	 *
+	 * @return The top edge of the area in view.
+	 */
+	public double getMinY() {
+		return y;
+	}
+
+	/**
+	 * A getter for the world x position of the right edge of the screen.
+	 *
+	 * @return The right edge of the area in view.
+	 */
+	public double getMaxX() {
+		return x + viewWidth;
+	}
+
+	/**
+	 * A getter for the world y position of the bottom edge of the screen.
+	 *
+	 * @return The bottom edge of the area in view.
+	 */
+	public double getMaxY() {
+		return y + viewHeight;
+	}
+
+	/**
+	 * A getter for {@link #zoom}.
+	 *
+	 * @return The zoom of this {@link Camera}.
+	 */
+	public double getZoom() {
+		return zoom;
+	}
+
+	/**
+	 * A getter for {@link #scaleX}.
+	 *
+	 * @return The amount of pixels per unit on the x axis.
+	 */
+	public double getScaleX() {
+		return scaleX;
+	}
+
+	/**
+	 * A getter for {@link #scaleY}.
+	 *
+	 * @return The amount of pixels per unit on the y axis.
+	 */
+	public double getScaleY() {
+		return scaleY;
+	}
+
+}
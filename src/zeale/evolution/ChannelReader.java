@@ -0,0 +1,98 @@
+package zeale.evolution;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A little endian, direct buffer that is refilled from a {@link FileChannel}
+ * whenever it runs out of bytes. Used by {@link SaveFile} and {@link Replay}.
+ *
+ * @author Zeale
+ *
+ */
+final class ChannelReader {
+
+	private final FileChannel channel;
+	final ByteBuffer buffer = ByteBuffer.allocateDirect(ChannelWriter.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+	ChannelReader(final FileChannel channel) {
+		this.channel = channel;
+		buffer.limit(0);
+	}
+
+	/**
+	 * Makes sure that at least <code>bytes</code> more bytes are in the
+	 * buffer.
+	 *
+	 * @throws EOFException
+	 *             If the file ends first.
+	 */
+	void require(final int bytes) throws IOException {
+		if (buffer.remaining() >= bytes)
+			return;
+		buffer.compact();
+		while (buffer.position() < bytes)
+			if (channel.read(buffer) < 0) {
+				buffer.flip();
+				throw new EOFException("The file ended early.");
+			}
+		buffer.flip();
+	}
+
+	/**
+	 * Checks whether there is anything left to read.
+	 */
+	boolean hasRemaining() throws IOException {
+		if (buffer.hasRemaining())
+			return true;
+		buffer.clear();
+		final boolean read = channel.read(buffer) > 0;
+		buffer.flip();
+		return read;
+	}
+
+	void skip(int bytes) throws IOException {
+		while (bytes > 0) {
+			require(1);
+			final int skipped = Math.min(bytes, buffer.remaining());
+			buffer.position(buffer.position() + skipped);
+			bytes -= skipped;
+		}
+	}
+
+	/**
+	 * Reads a variable length <code>long</code> written by
+	 * {@link ChannelWriter#putVarLong(long)}.
+	 */
+	long getVarLong() throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			require(1);
+			final byte b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0)
+				return value;
+		}
+		throw new StreamCorruptedException("A variable length number is too long.");
+	}
+
+	/**
+	 * Gets the position in the file of the next byte to be read.
+	 */
+	long position() throws IOException {
+		return channel.position() - buffer.remaining();
+	}
+
+	/**
+	 * Moves to a position in the file, dropping whatever is buffered.
+	 */
+	void position(final long position) throws IOException {
+		channel.position(position);
+		buffer.limit(0);
+	}
+
+}
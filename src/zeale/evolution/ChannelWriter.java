@@ -0,0 +1,67 @@
+package zeale.evolution;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A little endian, direct buffer that is written to a {@link FileChannel}
+ * whenever it runs out of room. Used by {@link SaveFile} and {@link EventLog}.
+ *
+ * @author Zeale
+ *
+ */
+final class ChannelWriter {
+
+	/**
+	 * The size of the buffer that files are written through.
+	 */
+	static final int BUFFER_SIZE = 1 << 20;
+
+	private final FileChannel channel;
+	final ByteBuffer buffer;
+
+	ChannelWriter(final FileChannel channel) {
+		this(channel, ChannelWriter.BUFFER_SIZE);
+	}
+
+	ChannelWriter(final FileChannel channel, final int size) {
+		this.channel = channel;
+		buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Makes sure that there is room for at least <code>bytes</code> more bytes
+	 * in the buffer.
+	 */
+	void ensure(final int bytes) throws IOException {
+		if (buffer.remaining() < bytes)
+			flush();
+	}
+
+	/**
+	 * Writes an unsigned variable length <code>long</code>: seven bits a byte,
+	 * lowest first, with the top bit set on every byte but the last. Small
+	 * values take a single byte.
+	 */
+	void putVarLong(long value) throws IOException {
+		ensure(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer.put((byte) (value & 0x7F | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+
+	/**
+	 * Writes everything in the buffer to the channel.
+	 */
+	void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+
+}
@@ -0,0 +1,125 @@
+package zeale.evolution;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * A bounded, lock-free queue of {@link World.Command}s that any amount of
+ * threads can {@link #offer(World.Command) submit} to and that a single
+ * thread, the one that ticks the {@link World}, {@link #drain(World) drains}.
+ * <p>
+ * The queue is a ring of slots, each with a sequence number that says whose
+ * turn it is to use the slot. A submitting thread claims the next slot by
+ * moving the tail forward with a compare-and-set, fills it in, and then
+ * publishes it by bumping its sequence number. The draining thread only ever
+ * reads slots that have been published, in order, and hands each slot back
+ * to the submitting threads by bumping its sequence number again, one lap
+ * ahead. Nothing ever waits for a lock, and a full queue refuses a
+ * {@link World.Command} rather than waiting for room.
+ *
+ * @author Zeale
+ *
+ */
+final class CommandQueue {
+
+	/**
+	 * The slots, and the sequence number of each slot. A slot whose sequence
+	 * number is <code>i</code> is free for the <code>i</code>th
+	 * {@link World.Command}, and one whose sequence number is
+	 * <code>i + 1</code> holds it.
+	 */
+	private final World.Command[] commands;
+	private final AtomicLongArray sequences;
+	private final int mask;
+
+	/**
+	 * The index of the next {@link World.Command} to be submitted.
+	 */
+	private final AtomicLong tail = new AtomicLong();
+
+	/**
+	 * The index of the next {@link World.Command} to be drained. This is only
+	 * used by the draining thread.
+	 */
+	private long head;
+
+	/**
+	 * Constructs a new, empty {@link CommandQueue}.
+	 *
+	 * @param capacity
+	 *            The amount of {@link World.Command}s that can be waiting at
+	 *            once. This must be a power of two.
+	 */
+	CommandQueue(final int capacity) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("The capacity must be a power of two: " + capacity);
+		commands = new World.Command[capacity];
+		sequences = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; i++)
+			sequences.set(i, i);
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Submits a {@link World.Command}. This can be called from any thread.
+	 *
+	 * @param command
+	 *            The {@link World.Command}.
+	 * @return <code>true</code> if the {@link World.Command} was submitted,
+	 *         <code>false</code> if the queue is full.
+	 */
+	boolean offer(final World.Command command) {
+		long index = tail.get();
+		while (true) {
+			final int slot = (int) index & mask;
+			final long difference = sequences.get(slot) - index;
+			if (difference == 0) {
+				if (tail.compareAndSet(index, index + 1)) {
+					commands[slot] = command;
+					sequences.lazySet(slot, index + 1);
+					return true;
+				}
+				index = tail.get();
+			} else if (difference < 0)
+				// The slot still holds a command from the lap before.
+				return false;
+			else
+				// Another thread claimed this index first.
+				index = tail.get();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Applies every {@link World.Command} that was submitted before this was
+	 * called, in the order that they were submitted. {@link World.Command}s
+	 * that they submit are left for the next call. This must only be called
+	 * from the thread that ticks the {@link World}.
+	 * <p>
+	 * A {@link World.Command} whose slot was claimed but not yet filled in
+	 * stops the draining there, so that the order is kept. It's left for the
+	 * next call, along with everything after it.
+	 *
+	 * @param world
+	 *            The {@link World} to apply the {@link World.Command}s to.
+	 * @return The amount of {@link World.Command}s that were applied.
+	 */
+	int drain(final World world) {
+		final long end = tail.get();
+		int applied = 0;
+		while (head < end) {
+			final int slot = (int) head & mask;
+			if (sequences.get(slot) != head + 1)
+				break;
+			final World.Command command = commands[slot];
+			commands[slot] = null;
+			sequences.lazySet(slot, head + mask + 1);
+			head++;
+			command.apply(world);
+			applied++;
+		}
+		return applied;
+	}
+
+}
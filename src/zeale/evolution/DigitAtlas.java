@@ -0,0 +1,136 @@
+package zeale.evolution;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * <p>
+ * The digits <code>0</code> to <code>9</code> (and a minus sign) in a single
+ * font and color, rasterized once into an image. Drawing a number with a
+ * {@link DigitAtlas} copies one piece of that image per digit, so it never
+ * allocates a {@link String} or lays out any text.
+ *
+ * @author Zeale
+ *
+ */
+public final class DigitAtlas {
+
+	/**
+	 * The glyphs in the atlas, in order. The minus sign is the last glyph.
+	 */
+	private static final String GLYPHS = "0123456789-";
+	private static final int MINUS = 10;
+
+	/**
+	 * The image that the glyphs are rasterized into, side by side, each in a
+	 * cell {@link #cellWidth} pixels wide.
+	 */
+	private final BufferedImage image;
+
+	/**
+	 * The {@link Font} that the glyphs were rasterized in.
+	 */
+	private final Font font;
+
+	/**
+	 * The width of each glyph's cell, and how far each glyph advances the
+	 * text.
+	 */
+	private final int cellWidth;
+	private final int[] advances = new int[DigitAtlas.GLYPHS.length()];
+
+	/**
+	 * The height of the glyphs and the distance from their top to their
+	 * baseline.
+	 */
+	private final int height, ascent;
+
+	/**
+	 * The digits of the number being drawn, from last to first.
+	 */
+	private final int[] digits = new int[11];
+
+	/**
+	 * Rasterizes a new {@link DigitAtlas}.
+	 *
+	 * @param font
+	 *            The {@link Font} to draw the digits in.
+	 * @param color
+	 *            The {@link Color} to draw the digits in.
+	 */
+	public DigitAtlas(final Font font, final Color color) {
+		this.font = font;
+		final BufferedImage scratch = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D sg = scratch.createGraphics();
+		final FontMetrics metrics = sg.getFontMetrics(font);
+		sg.dispose();
+
+		int widest = 1;
+		for (int i = 0; i < advances.length; i++)
+			widest = Math.max(widest, advances[i] = metrics.charWidth(DigitAtlas.GLYPHS.charAt(i)));
+		cellWidth = widest;
+		ascent = metrics.getAscent();
+		height = Math.max(1, ascent + metrics.getDescent());
+
+		image = new BufferedImage(cellWidth * advances.length, height, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D g = image.createGraphics();
+		g.setFont(font);
+		g.setColor(color);
+		for (int i = 0; i < advances.length; i++)
+			g.drawString(DigitAtlas.GLYPHS.substring(i, i + 1), i * cellWidth, ascent);
+		g.dispose();
+	}
+
+	/**
+	 * Draws a number.
+	 *
+	 * @param g
+	 *            The {@link Graphics} to draw with.
+	 * @param value
+	 *            The number to draw.
+	 * @param x
+	 *            The x position of the left of the number.
+	 * @param y
+	 *            The y position of the number's baseline.
+	 */
+	public void draw(final Graphics g, final int value, int x, final int y) {
+		final int top = y - ascent;
+		if (value < 0)
+			x = glyph(g, DigitAtlas.MINUS, x, top);
+
+		int count = 0;
+		long remaining = Math.abs((long) value);
+		do {
+			digits[count++] = (int) (remaining % 10);
+			remaining /= 10;
+		} while (remaining > 0);
+
+		while (count > 0)
+			x = glyph(g, digits[--count], x, top);
+	}
+
+	/**
+	 * Draws a single glyph.
+	 *
+	 * @return The x position of the next glyph.
+	 */
+	private int glyph(final Graphics g, final int glyph, final int x, final int top) {
+		final int sx = glyph * cellWidth;
+		g.drawImage(image, x, top, x + cellWidth, top + height, sx, 0, sx + cellWidth, height, null);
+		return x + advances[glyph];
+	}
+
+	/**
+	 * A getter for the {@link Font} that this atlas was rasterized in.
+	 *
+	 * @return The {@link Font} of this atlas.
+	 */
+	public Font getFont() {
+		return font;
+	}
+
+}
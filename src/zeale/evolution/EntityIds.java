@@ -0,0 +1,224 @@
+package zeale.evolution;
+
+import java.util.Arrays;
+
+import zeale.evolution.bots.Bot;
+
+/**
+ * <p>
+ * The IDs of the {@link Object}s in a {@link World}. Every {@link Object} is
+ * given an ID when it's flushed into its {@link World} (see
+ * {@link Object#getId()}), and {@link Object}s that refer to each other, such
+ * as a {@link Bot} and its target, do so by ID rather than by reference.
+ * <p>
+ * An ID is a <code>long</code> made up of an <i>index</i> (the low
+ * <code>int</code>), which is the {@link Object}'s slot in a flat table, and a
+ * <i>generation</i> (the high <code>int</code>). When an {@link Object} is
+ * removed, its slot's generation is bumped and the slot is reused for the
+ * next {@link Object} that's added, so an ID that outlives its
+ * {@link Object} never finds anything: {@link #get(long)} sees that the
+ * generations differ, in O(1), and returns <code>null</code>.
+ * <p>
+ * The table is saved along with the {@link World} (see {@link SaveFile}), so
+ * the IDs of a {@link World} that is loaded are the same as those of the one
+ * that was saved.
+ *
+ * @author Zeale
+ *
+ */
+public final class EntityIds {
+
+	/**
+	 * The ID that never belongs to any {@link Object}.
+	 */
+	public static final long NONE = -1;
+
+	/**
+	 * The {@link Object} in each slot, or <code>null</code> if the slot is
+	 * free, and the generation of each slot.
+	 */
+	private java.lang.Object[] entities = new java.lang.Object[16];
+	private int[] generations = new int[16];
+
+	/**
+	 * The amount of slots that have ever been used.
+	 */
+	private int extent;
+
+	/**
+	 * The free slots below {@link #extent}. The last one freed is the first
+	 * one reused.
+	 */
+	private int[] free = new int[16];
+	private int freeCount;
+
+	/**
+	 * Makes an ID out of an index and a generation.
+	 *
+	 * @param index
+	 *            The index.
+	 * @param generation
+	 *            The generation.
+	 * @return The ID.
+	 */
+	public static long id(final int index, final int generation) {
+		return (long) generation << 32 | index & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * Gets the index of an ID.
+	 *
+	 * @param id
+	 *            The ID.
+	 * @return The slot of the table that the ID refers to.
+	 */
+	public static int index(final long id) {
+		return (int) id;
+	}
+
+	/**
+	 * Gets the generation of an ID.
+	 *
+	 * @param id
+	 *            The ID.
+	 * @return The generation that the ID's slot must be at for the ID to be
+	 *         valid.
+	 */
+	public static int generation(final long id) {
+		return (int) (id >>> 32);
+	}
+
+	/**
+	 * Gets the {@link Object} that an ID belongs to.
+	 *
+	 * @param id
+	 *            The ID.
+	 * @return The {@link Object}, or <code>null</code> if the ID is
+	 *         {@link #NONE} or its {@link Object} has been removed.
+	 */
+	public Object get(final long id) {
+		final int index = EntityIds.index(id);
+		return index >= 0 && index < extent && generations[index] == EntityIds.generation(id)
+				? (Object) entities[index]
+				: null;
+	}
+
+	/**
+	 * A getter for the amount of slots in the table, including free ones.
+	 *
+	 * @return The amount of slots that have ever been used.
+	 */
+	public int extent() {
+		return extent;
+	}
+
+	/**
+	 * Gives an {@link Object} an ID, reusing a free slot if there is one.
+	 *
+	 * @param object
+	 *            The {@link Object}, which mustn't have an ID.
+	 */
+	void assign(final Object object) {
+		final int index;
+		if (freeCount > 0)
+			index = free[--freeCount];
+		else {
+			if (extent == entities.length)
+				grow(extent * 2);
+			index = extent++;
+		}
+		entities[index] = object;
+		object.id = EntityIds.id(index, generations[index]);
+	}
+
+	/**
+	 * Takes an {@link Object}'s ID away and frees its slot, so that the ID
+	 * stops being valid. This does nothing if the {@link Object} has no ID.
+	 *
+	 * @param object
+	 *            The {@link Object}.
+	 */
+	void release(final Object object) {
+		final long id = object.id;
+		if (id == EntityIds.NONE)
+			return;
+		final int index = EntityIds.index(id);
+		entities[index] = null;
+		generations[index]++;
+		if (freeCount == free.length)
+			free = Arrays.copyOf(free, freeCount * 2);
+		free[freeCount++] = index;
+		object.id = EntityIds.NONE;
+	}
+
+	/**
+	 * Puts an {@link Object} back into the slot of an ID that it had, such as
+	 * when it's loaded. The table must have been {@link #restore(int[], int[])
+	 * restored} first.
+	 *
+	 * @param object
+	 *            The {@link Object}.
+	 * @param id
+	 *            Its ID.
+	 * @throws IllegalArgumentException
+	 *             If the ID's slot isn't in the table, is at a different
+	 *             generation or is already in use.
+	 */
+	void put(final Object object, final long id) {
+		final int index = EntityIds.index(id);
+		if (index < 0 || index >= extent || generations[index] != EntityIds.generation(id)
+				|| entities[index] != null)
+			throw new IllegalArgumentException("Invalid ID: " + id);
+		entities[index] = object;
+		object.id = id;
+	}
+
+	/**
+	 * Gets the generation of every slot, for saving.
+	 *
+	 * @return A copy of the generations, one per slot.
+	 */
+	int[] getGenerations() {
+		return Arrays.copyOf(generations, extent);
+	}
+
+	/**
+	 * Gets the free slots, for saving.
+	 *
+	 * @return A copy of the free slots, from the first freed to the last.
+	 */
+	int[] getFree() {
+		return Arrays.copyOf(free, freeCount);
+	}
+
+	/**
+	 * Replaces this table with an empty one that has the slots of a saved
+	 * one, so that the saved {@link Object}s can be {@link #put(Object, long)
+	 * put} back in.
+	 *
+	 * @param generations
+	 *            The generation of every slot.
+	 * @param free
+	 *            The free slots, from the first freed to the last.
+	 * @throws IllegalArgumentException
+	 *             If a free slot isn't one of the slots.
+	 */
+	void restore(final int[] generations, final int[] free) {
+		if (extent != 0)
+			throw new IllegalStateException("IDs have already been given out.");
+		for (final int index : free)
+			if (index < 0 || index >= generations.length)
+				throw new IllegalArgumentException("Invalid free slot: " + index);
+		grow(Math.max(16, generations.length));
+		System.arraycopy(generations, 0, this.generations, 0, generations.length);
+		extent = generations.length;
+		this.free = Arrays.copyOf(free, Math.max(16, free.length));
+		freeCount = free.length;
+	}
+
+	private void grow(final int capacity) {
+		entities = Arrays.copyOf(entities, capacity);
+		generations = Arrays.copyOf(generations, capacity);
+	}
+
+}
@@ -0,0 +1,255 @@
+package zeale.evolution;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * A list of {@link Object}s backed by a dense array, made to be iterated over
+ * every tick while {@link Object}s are added and removed.
+ * <p>
+ * Nothing that happens to an {@link EntityList} while it is being iterated
+ * over can cause a {@link ConcurrentModificationException}:
+ * <ul>
+ * <li>{@link #add(Object) Added} {@link Object}s are held aside until the
+ * next call to {@link #flush()}, so iteration never sees them.</li>
+ * <li>{@link #remove(Object) Removed} {@link Object}s leave a <i>tombstone</i>
+ * (an empty slot) behind in O(1), which iteration skips.</li>
+ * </ul>
+ * {@link #flush()} is called once a tick, when nothing is iterating over the
+ * list. It fills the tombstones by moving the last {@link Object}s of the list
+ * into them (swap-removal), then appends the added {@link Object}s.
+ *
+ * @author Zeale
+ *
+ * @param <E>
+ *            The type of {@link Object} held by this list.
+ */
+public final class EntityList<E extends Object> implements Iterable<E> {
+
+	/**
+	 * The slots of this list. Slots from <code>0</code> to {@link #extent}
+	 * hold either an {@link Object} or a tombstone (<code>null</code>).
+	 */
+	private java.lang.Object[] elements = new java.lang.Object[16];
+	private int extent;
+
+	/**
+	 * The slots of {@link #elements} that hold tombstones.
+	 */
+	private int[] tombstones = new int[16];
+	private int tombstoneCount;
+
+	/**
+	 * The {@link Object}s that have been added since the last
+	 * {@link #flush()}.
+	 */
+	private java.lang.Object[] pending = new java.lang.Object[16];
+	private int pendingCount;
+
+	/**
+	 * <p>
+	 * Adds an {@link Object} to this list. It becomes visible on the next
+	 * {@link #flush()}.
+	 *
+	 * @param object
+	 *            The {@link Object} to add.
+	 * @return <code>true</code>.
+	 */
+	public boolean add(final E object) {
+		if (pendingCount == pending.length)
+			pending = Arrays.copyOf(pending, pendingCount * 2);
+		pending[pendingCount++] = object;
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Removes an {@link Object} from this list, leaving a tombstone in its
+	 * slot until the next {@link #flush()}.
+	 *
+	 * @param object
+	 *            The {@link Object} to remove.
+	 * @return <code>true</code> if the {@link Object} was in this list.
+	 */
+	public boolean remove(final E object) {
+		final int slot = object.listSlot;
+		if (slot >= 0 && slot < extent && elements[slot] == object) {
+			elements[slot] = null;
+			object.listSlot = -1;
+			if (tombstoneCount == tombstones.length)
+				tombstones = Arrays.copyOf(tombstones, tombstoneCount * 2);
+			tombstones[tombstoneCount++] = slot;
+			return true;
+		}
+
+		// It may not have been flushed in yet.
+		for (int i = 0; i < pendingCount; i++)
+			if (pending[i] == object) {
+				System.arraycopy(pending, i + 1, pending, i, --pendingCount - i);
+				pending[pendingCount] = null;
+				return true;
+			}
+		return false;
+	}
+
+	/**
+	 * Checks whether an {@link Object} is in this list, including if it hasn't
+	 * been {@link #flush() flushed} in yet.
+	 *
+	 * @param object
+	 *            The {@link Object}.
+	 * @return <code>true</code> if {@link #remove(Object)} would remove it.
+	 */
+	public boolean contains(final E object) {
+		final int slot = object.listSlot;
+		if (slot >= 0 && slot < extent && elements[slot] == object)
+			return true;
+		for (int i = 0; i < pendingCount; i++)
+			if (pending[i] == object)
+				return true;
+		return false;
+	}
+
+	/**
+	 * <p>
+	 * Fills the tombstones in this list and appends everything that was added
+	 * since the last call. This must not be called while this list is being
+	 * iterated over.
+	 * <p>
+	 * The {@link Object}s that were added are the ones in the last slots of
+	 * this list, in the order that they were added, once this returns.
+	 *
+	 * @return The amount of {@link Object}s that were added.
+	 */
+	public int flush() {
+		if (tombstoneCount > 0) {
+			Arrays.sort(tombstones, 0, tombstoneCount);
+			for (int i = 0; i < tombstoneCount; i++) {
+				final int hole = tombstones[i];
+				// Drop any tombstones at the end of the list.
+				while (extent > 0 && elements[extent - 1] == null)
+					extent--;
+				if (hole >= extent)
+					break;
+				final java.lang.Object last = elements[--extent];
+				elements[hole] = last;
+				elements[extent] = null;
+				((Object) last).listSlot = hole;
+			}
+			while (extent > 0 && elements[extent - 1] == null)
+				extent--;
+			tombstoneCount = 0;
+		}
+
+		final int added = pendingCount;
+		if (added > 0) {
+			if (extent + added > elements.length)
+				elements = Arrays.copyOf(elements, Math.max(elements.length * 2, extent + added));
+			for (int i = 0; i < added; i++) {
+				elements[extent] = pending[i];
+				((Object) pending[i]).listSlot = extent++;
+				pending[i] = null;
+			}
+			pendingCount = 0;
+		}
+		return added;
+	}
+
+	/**
+	 * <p>
+	 * Gets the {@link Object} in a slot. Slots go from <code>0</code> to
+	 * {@link #extent()}, and may hold tombstones. This allows iteration without
+	 * an {@link Iterator}.
+	 *
+	 * @param slot
+	 *            The slot.
+	 * @return The {@link Object} in that slot, or <code>null</code> if it is a
+	 *         tombstone.
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(final int slot) {
+		return (E) elements[slot];
+	}
+
+	/**
+	 * A getter for the amount of slots in use, including tombstones.
+	 *
+	 * @return The slot after the last one in use.
+	 */
+	public int extent() {
+		return extent;
+	}
+
+	/**
+	 * A getter for the amount of {@link Object}s in this list. This doesn't
+	 * count {@link Object}s that haven't been {@link #flush() flushed} in yet.
+	 *
+	 * @return The amount of {@link Object}s in this list.
+	 */
+	public int size() {
+		return extent - tombstoneCount;
+	}
+
+	/**
+	 * A getter for whether or not this list is empty.
+	 *
+	 * @return <code>true</code> if {@link #size()} is <code>0</code>.
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Copies the {@link Object}s in this list into an array.
+	 *
+	 * @param array
+	 *            The array to copy into, if it's big enough.
+	 * @return An array with every {@link Object} in this list, in order.
+	 */
+	@SuppressWarnings("unchecked")
+	public E[] toArray(E[] array) {
+		if (array.length < size())
+			array = Arrays.copyOf(array, size());
+		int i = 0;
+		for (int slot = 0; slot < extent; slot++)
+			if (elements[slot] != null)
+				array[i++] = (E) elements[slot];
+		return array;
+	}
+
+	/**
+	 * Returns an {@link Iterator} over this list. It skips tombstones, and
+	 * doesn't see anything that is added while iterating.
+	 */
+	@Override
+	public Iterator<E> iterator() {
+		return new Iterator<E>() {
+
+			private int slot = skip(0);
+
+			private int skip(int slot) {
+				while (slot < extent && elements[slot] == null)
+					slot++;
+				return slot;
+			}
+
+			@Override
+			public boolean hasNext() {
+				slot = skip(slot);
+				return slot < extent;
+			}
+
+			@Override
+			@SuppressWarnings("unchecked")
+			public E next() {
+				if (!hasNext())
+					throw new NoSuchElementException();
+				return (E) elements[slot++];
+			}
+		};
+	}
+
+}
@@ -0,0 +1,333 @@
+package zeale.evolution;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.Spawnpoint;
+import zeale.evolution.structures.Structure;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * Records a {@link World} as it runs, so that it can be {@link Replay
+ * replayed} later, headless and as fast as the CPU allows, and so that a
+ * replay can jump to any tick.
+ * <p>
+ * An {@link EventLog} is a directory. Its <code>events.log</code> file is an
+ * append-only list of small records: the tick length of every tick (which is
+ * only known while the game runs), the camera, and every {@link Object} that
+ * is added or killed and every {@link Structure} that is activated. A
+ * {@link World} plays out the same way every time it's run from the same
+ * state, so those last three are what a replay is checked against. Every
+ * {@link #getKeyframeInterval() few ticks}, the whole {@link World} is
+ * written to a {@link SaveFile} in the directory as a <i>keyframe</i>, which
+ * a replay can start from.
+ * <p>
+ * <code>events.log</code> is little endian, and starts with a header: the
+ * magic number {@link #MAGIC}, the format {@link #VERSION} (a
+ * <code>short</code>), a <code>short</code> of flags (reserved, and always
+ * <code>0</code>), the seed of the {@link World}, the keyframe
+ * interval (an <code>int</code>) and the tick that the recording started at.
+ * Every record after that is a type byte, then how many ticks came between it
+ * and the record before it (a variable length number, so this is usually a
+ * single byte), then whatever that type holds.
+ * <p>
+ * An {@link EventLog} is a {@link World.Listener}, and is attached to a
+ * {@link World} with {@link World#setListener(World.Listener)}. Everything is
+ * written on the thread that ticks the {@link World}. The log is flushed to
+ * disk at every keyframe, so a game that is closed without
+ * {@link #close() closing} its log can still be replayed up to its last
+ * keyframe.
+ *
+ * @author Zeale
+ *
+ */
+public final class EventLog implements World.Listener, Closeable {
+
+	/**
+	 * The first four bytes of every log: <code>EVLG</code>.
+	 */
+	public static final int MAGIC = 0x45564C47;
+
+	/**
+	 * The version of the format that this class writes.
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * The keyframe interval that the game records with: a keyframe every ten
+	 * seconds of game time, at sixty ticks a second.
+	 */
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 600;
+
+	/**
+	 * The name of the file that records are written to.
+	 */
+	public static final String EVENTS_FILE = "events.log";
+
+	/**
+	 * The type bytes of the records.
+	 * <ul>
+	 * <li>{@link #ADDED}: the kind of {@link Object} (see {@link #kind(Object)})
+	 * and its position (two <code>double</code>s).</li>
+	 * <li>{@link #KILLED}: the kind of {@link Object} and its slot in its
+	 * {@link EntityList} (an <code>int</code>).</li>
+	 * <li>{@link #ACTIVATED}: the slots of the {@link Bot} and of the
+	 * {@link Structure} (<code>int</code>s).</li>
+	 * <li>{@link #CAMERA}: the camera's x and y position (<code>int</code>s)
+	 * and its zoom (a <code>double</code>).</li>
+	 * <li>{@link #TICK_LENGTH}: the length of every tick from this one on, in
+	 * nanoseconds (a variable length number).</li>
+	 * <li>{@link #KEYFRAME}: the tick length at the time (a variable length
+	 * number). The keyframe's file is named by {@link #keyframeName(long)}.
+	 * </li>
+	 * <li>{@link #END}: nothing. This is the last record of a closed log.</li>
+	 * </ul>
+	 */
+	static final byte ADDED = 1, KILLED = 2, ACTIVATED = 3, CAMERA = 4, TICK_LENGTH = 5, KEYFRAME = 6, END = 7;
+
+	/**
+	 * The kinds of {@link Object}s in {@link #ADDED} and {@link #KILLED}
+	 * records.
+	 */
+	static final byte KIND_BOT = 1, KIND_SPAWNPOINT = 2, KIND_RESOURCE_SPAWNER = 3, KIND_STRUCTURE = 4;
+
+	/**
+	 * The size of the buffer that records are written through.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The directory of this log.
+	 */
+	private final Path directory;
+
+	/**
+	 * The {@link World} being recorded.
+	 */
+	private final World world;
+
+	/**
+	 * How many ticks there are between keyframes.
+	 */
+	private final int keyframeInterval;
+
+	private final FileChannel channel;
+	private final ChannelWriter out;
+
+	/**
+	 * The tick of the last record, and the last tick length that was
+	 * recorded.
+	 */
+	private long lastTick, tickLength;
+
+	/**
+	 * The last camera that was recorded.
+	 */
+	private int cameraX, cameraY;
+	private double zoom = 1;
+
+	/**
+	 * <p>
+	 * Starts recording a {@link World} into a directory, replacing any log that
+	 * is already there, and writes the first keyframe straight away. Anything
+	 * that was added to the {@link World} but isn't in it yet is put in it
+	 * first, so that it's in the keyframe. The {@link EventLog} still has to be
+	 * attached to the {@link World} with
+	 * {@link World#setListener(World.Listener)}.
+	 *
+	 * @param directory
+	 *            The directory to write to. It's made if it doesn't exist.
+	 * @param world
+	 *            The {@link World} to record.
+	 * @param keyframeInterval
+	 *            How many ticks there are between keyframes. The lower this
+	 *            is, the faster a replay can jump to any tick, and the more
+	 *            disk space a log takes up.
+	 * @throws IOException
+	 *             If the log or the first keyframe can't be written.
+	 */
+	public EventLog(final Path directory, final World world, final int keyframeInterval) throws IOException {
+		if (keyframeInterval <= 0)
+			throw new IllegalArgumentException("The keyframe interval must be positive: " + keyframeInterval);
+		this.directory = directory;
+		this.world = world;
+		this.keyframeInterval = keyframeInterval;
+		Files.createDirectories(directory);
+		channel = FileChannel.open(directory.resolve(EventLog.EVENTS_FILE), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		out = new ChannelWriter(channel, EventLog.BUFFER_SIZE);
+		out.buffer.putInt(EventLog.MAGIC).putShort(EventLog.VERSION).putShort((short) 0).putLong(world.getSeed())
+				.putInt(keyframeInterval).putLong(lastTick = world.getTicks());
+		world.flush();
+		keyframe();
+	}
+
+	/**
+	 * Gets the name of the keyframe of a tick.
+	 *
+	 * @param tick
+	 *            The tick.
+	 * @return The name of the keyframe's file, in the log's directory.
+	 */
+	public static String keyframeName(final long tick) {
+		return "keyframe-" + tick + ".evo";
+	}
+
+	/**
+	 * Gets the kind of an {@link Object}, for {@link #ADDED} and
+	 * {@link #KILLED} records.
+	 */
+	static byte kind(final Object object) {
+		if (object instanceof Bot)
+			return EventLog.KIND_BOT;
+		if (object instanceof Spawnpoint)
+			return EventLog.KIND_SPAWNPOINT;
+		if (object instanceof ResourceSpawner)
+			return EventLog.KIND_RESOURCE_SPAWNER;
+		return EventLog.KIND_STRUCTURE;
+	}
+
+	@Override
+	public void added(final Object object) {
+		try {
+			record(EventLog.ADDED, 17);
+			out.buffer.put(EventLog.kind(object)).putDouble(object.getPosX()).putDouble(object.getPosY());
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void killed(final Object object) {
+		try {
+			record(EventLog.KILLED, 5);
+			out.buffer.put(EventLog.kind(object)).putInt(object.listSlot);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void activated(final Bot bot, final Structure structure) {
+		try {
+			record(EventLog.ACTIVATED, 8);
+			out.buffer.putInt(((Object) bot).listSlot).putInt(((Object) structure).listSlot);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void ticking(final long delta) {
+		if (delta == tickLength)
+			return;
+		tickLength = delta;
+		try {
+			record(EventLog.TICK_LENGTH, 0);
+			out.putVarLong(delta);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@Override
+	public void ticked() {
+		if (world.getTicks() % keyframeInterval != 0)
+			return;
+		try {
+			keyframe();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Records the camera, if it has moved since it was last recorded. This
+	 * must be called on the thread that ticks the {@link World}, between
+	 * ticks.
+	 *
+	 * @param x
+	 *            The x position of the camera.
+	 * @param y
+	 *            The y position of the camera.
+	 * @param zoom
+	 *            The zoom of the camera.
+	 * @throws IOException
+	 *             If the record can't be written.
+	 */
+	public void camera(final int x, final int y, final double zoom) throws IOException {
+		if (x == cameraX && y == cameraY && zoom == this.zoom)
+			return;
+		cameraX = x;
+		cameraY = y;
+		this.zoom = zoom;
+		record(EventLog.CAMERA, 16);
+		out.buffer.putInt(x).putInt(y).putDouble(zoom);
+	}
+
+	/**
+	 * Writes the {@link World} to a keyframe, records it, and flushes the log.
+	 */
+	private void keyframe() throws IOException {
+		final long tick = world.getTicks();
+		new SaveFile(world, cameraX, cameraY, zoom).write(directory.resolve(EventLog.keyframeName(tick)));
+		record(EventLog.KEYFRAME, 0);
+		out.putVarLong(tickLength);
+		out.flush();
+	}
+
+	/**
+	 * Starts a record, making sure there is room for it and its payload.
+	 */
+	private void record(final byte type, final int payload) throws IOException {
+		final long tick = world.getTicks();
+		out.ensure(1 + 10 + payload);
+		out.buffer.put(type);
+		out.putVarLong(tick - lastTick);
+		lastTick = tick;
+	}
+
+	/**
+	 * Ends the log and closes it. The {@link EventLog} should be detached from
+	 * its {@link World} first.
+	 *
+	 * @throws IOException
+	 *             If the log can't be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			record(EventLog.END, 0);
+			out.flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * A getter for the directory of this log.
+	 *
+	 * @return The directory that this log is written to.
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * A getter for how many ticks there are between keyframes.
+	 *
+	 * @return The keyframe interval of this log.
+	 */
+	public int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+
+}
@@ -1,175 +1,335 @@
 package zeale.evolution;
 
+import java.awt.Canvas;
 import java.awt.Graphics;
 import java.awt.GraphicsEnvironment;
-import java.util.ConcurrentModificationException;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.LinkedList;
-import java.util.List;
-import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.JFrame;
-import javax.swing.JPanel;
 
 import zeale.evolution.bots.Bot;
-import zeale.evolution.structures.Spawnpoint;
 import zeale.evolution.structures.Structure;
 import zeale.evolution.structures.resourcespawners.ResourceSpawner;
 
 public final class Evolution {
 
 	/**
-	 * A {@link LinkedList} of all the {@link Bot}s in the game.
+	 * The size of the area of the game that is in view, in units. Everything
+	 * is scaled so that this area fills the screen. (See
+	 * {@link #getWidthRatio()} and {@link #getHeightRatio()}.)
 	 */
-	private final LinkedList<Bot> bots = new LinkedList<>();
+	private static final int VIEW_WIDTH = 1920, VIEW_HEIGHT = 1080;
 
 	/**
-	 * The position of the camera.
+	 * The smallest and largest zoom that the camera can have.
 	 */
-	private int cx = 0, cy = 0;
+	private static final double MIN_ZOOM = 0.05, MAX_ZOOM = 20;
 
 	/**
-	 * A {@link LinkedList} of all the {@link Structure}s in the game.
+	 * The position of the camera. This is read by the render thread.
 	 */
-	private final LinkedList<Structure> structures = new LinkedList<>();
+	private volatile int cx = 0, cy = 0;
 
 	/**
-	 * The {@link JFrame} where the game's draw ({@link #pane}) canvas is held.
+	 * The zoom of the camera. <code>1</code> shows {@link #VIEW_WIDTH} by
+	 * {@link #VIEW_HEIGHT} units; above <code>1</code> is zoomed in.
 	 */
-	public final EvolutionFrame frame = new EvolutionFrame();
+	private volatile double zoom = 1;
+
 	/**
-	 * The drawing canvas of the game. This is held inside the game's
-	 * {@link JFrame} ({@link #frame}).
+	 * The {@link Camera}s of the game loop's thread and of the render thread.
+	 * Each is set once per frame, from {@link #cx}, {@link #cy} and
+	 * {@link #zoom}.
 	 */
-	public final EvolutionPane pane = new EvolutionPane();
+	private final Camera captureCamera = new Camera(VIEW_WIDTH, VIEW_HEIGHT),
+			drawCamera = new Camera(VIEW_WIDTH, VIEW_HEIGHT);
 
 	/**
-	 * This List is used to prevent {@link ConcurrentModificationException}s
-	 * from occurring. While iterating over {@link #structures},
-	 * {@link #addStruct(Structure)} adds its objects here to prevent
-	 * {@link ConcurrentModificationException}s caused by {@link #structures}.
+	 * The {@link SpriteBatch} that draws {@link RenderSnapshot}s. This is only
+	 * used by the render thread.
 	 */
-	private LinkedList<Structure> modificationStructsList = new LinkedList<>();
+	private final SpriteBatch spriteBatch = new SpriteBatch();
+
 	/**
-	 * This List is used to prevent {@link ConcurrentModificationException}s
-	 * from occurring. While iterating over {@link #bots}, {@link #addBot(Bot)}
-	 * adds its objects here to prevent {@link ConcurrentModificationException}s
-	 * caused by {@link #bots}.
+	 * The {@link World} that this {@link Evolution} window simulates and draws.
 	 */
-	private LinkedList<Bot> modificationBotsList = new LinkedList<>();
+	private final World world;
 
 	/**
-	 * <p>
-	 * The current instance of {@link Evolution} that is running in the program.
-	 * This is commonly used to retrieve the current instance statically, as
-	 * that was what it was made for. See {@link #getCurrentInstance()}.
+	 * The {@link TickScheduler} that runs the game loop. This ticks sixty times
+	 * a second and catches up by at most five ticks at a time.
+	 */
+	private final TickScheduler scheduler = new TickScheduler(60, 5);
+
+	/**
+	 * The {@link TickScheduler} that paces the render thread. Each of its
+	 * "ticks" is a frame, so its tick rate is the frame rate. It never catches
+	 * up on frames that it missed; it just draws the next one.
+	 */
+	private final TickScheduler renderScheduler = new TickScheduler(60, 1);
+
+	/**
+	 * The {@link RenderBuffer} that hands {@link RenderSnapshot}s of the
+	 * {@link #world} from the game loop to the render thread.
+	 */
+	private final RenderBuffer renderBuffer = new RenderBuffer();
+
+	/**
+	 * The {@link EventLog} that the game is being recorded to, or
+	 * <code>null</code> if it isn't being recorded. This is only used on the
+	 * game loop's thread. See {@link #record(Path)}.
 	 */
-	private static Evolution CURRENT_INSTANCE;
+	private EventLog eventLog;
 
 	/**
-	 * A {@link Random} for use around the class, where necessary.
+	 * The {@link JFrame} where the game's draw ({@link #pane}) canvas is held.
+	 */
+	public final EvolutionFrame frame = new EvolutionFrame();
+	/**
+	 * The drawing canvas of the game. This is held inside the game's
+	 * {@link JFrame} ({@link #frame}).
 	 */
-	private static final Random random = new Random();
+	public final EvolutionPane pane = new EvolutionPane();
 
-	private Evolution() {
+	private Evolution(final SaveFile save, final long seed) {
 		GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().setFullScreenWindow(frame);
-		structures.add(new ResourceSpawner(Evolution.random.nextInt(getWidth()), Evolution.random.nextInt(getHeight()),
-				(short) 10));
-		structures.add(new ResourceSpawner(Evolution.random.nextInt(getWidth()), Evolution.random.nextInt(getHeight()),
-				(short) 25));
-		bots.add(new Bot(Evolution.random.nextInt(getWidth()), Evolution.random.nextInt(getHeight())));
-		bots.add(new Bot(Evolution.random.nextInt(getWidth()), Evolution.random.nextInt(getHeight())));
-		structures.add(new Spawnpoint(960, 540));
+		pane.createBufferStrategy(2);
+		if (save == null)
+			world = new World(getWidth(), getHeight(), seed);
+		else {
+			world = save.getWorld();
+			cx = save.getCameraX();
+			cy = save.getCameraY();
+			zoom = save.getZoom();
+		}
+		world.getMetrics().setScheduler(scheduler);
+		world.getMetrics().register("game");
 	}
 
 	/**
 	 * <p>
 	 * The game loop...
 	 * <p>
-	 * Go figure...
+	 * Go figure... The {@link World} is ticked by the {@link #scheduler}, and a
+	 * {@link RenderSnapshot} of it is published after every batch of ticks.
+	 * The snapshots are drawn on a separate render thread, paced by the
+	 * {@link #renderScheduler}, so a slow frame never holds up a tick and a
+	 * slow tick never holds up a frame.
 	 */
 	private void loop() {
-		long delta = System.nanoTime(), past = delta - 1000000000 / 60;
-		while (true) {
-			delta = System.nanoTime();
-			if (delta - past < 1000000000 / 60)
-				continue;
-			{
-
-				pane.repaint();
-				for (final Structure s : structures)
-					if (s.isAlive())
-						s.work(delta - past);
-				if (!modificationStructsList.isEmpty())// Prevents
-														// ConcurrentModificationExceptions
-				{
-					structures.addAll(modificationStructsList);
-					modificationStructsList.clear();
-				}
-				for (final Bot b : bots)
-					if (b.isAlive())
-						b.work(delta - past);
-				if (!modificationBotsList.isEmpty())// Prevents
-													// ConcurrentModificationExceptions
-				{
-					bots.addAll(modificationBotsList);
-					modificationBotsList.clear();
-				}
+		final Thread renderer = new Thread(() -> renderScheduler.run(delta -> {
+		}, this::draw), "Evolution Renderer");
+		renderer.setDaemon(true);
+		renderer.start();
+		scheduler.run(world::tick, this::frame);
+	}
 
+	/**
+	 * Called on the game loop's thread after every batch of ticks. This
+	 * records the camera if the game is being recorded, and then
+	 * {@link #capture() captures} a frame.
+	 */
+	private void frame() {
+		if (eventLog != null)
+			try {
+				eventLog.camera(cx, cy, zoom);
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
 			}
-			past = delta;
-		}
+		capture();
+	}
+
+	/**
+	 * Renders whatever part of the {@link #world} is in view of the camera into
+	 * a {@link RenderSnapshot} and publishes it to the render thread. This is
+	 * called on the game loop's thread, and is timed as the render phase of the
+	 * {@link World}'s {@link TickMetrics}.
+	 */
+	private void capture() {
+		final long start = System.nanoTime();
+		final Camera camera = captureCamera.set(cx, cy, zoom, pane.getWidth(), pane.getHeight());
+		world.render(renderBuffer.getBack(), camera.getMinX(), camera.getMinY(), camera.getMaxX(),
+				camera.getMaxY());
+		renderBuffer.publish();
+		world.getMetrics().render(System.nanoTime() - start);
+	}
+
+	/**
+	 * <p>
+	 * Draws the latest {@link RenderSnapshot} to the screen through the
+	 * {@link #pane}'s {@link BufferStrategy}. This is called on the render
+	 * thread.
+	 */
+	private void draw() {
+		final BufferStrategy strategy = pane.getBufferStrategy();
+		final RenderSnapshot snapshot = renderBuffer.getFront();
+		final Camera camera = drawCamera.set(cx, cy, zoom, pane.getWidth(), pane.getHeight());
+		do {
+			do {
+				final Graphics g = strategy.getDrawGraphics();
+				try {
+					g.clearRect(0, 0, pane.getWidth(), pane.getHeight());
+					render(g, snapshot, camera);
+				} finally {
+					g.dispose();
+				}
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		Toolkit.getDefaultToolkit().sync();
 	}
 
 	/**
 	 * <p>
 	 * <strong>The rendering method.</strong>
 	 * <p>
-	 * Called when the game is rendered onto the screen. This calls the render
-	 * method in all {@link Structure}s then all {@link Bot}s, as well.
+	 * Draws a {@link RenderSnapshot} onto the screen, sprites first and then
+	 * labels, through the {@link #spriteBatch}.
 	 *
 	 * @param g
 	 *            The graphics object; used to draw to the screen.
+	 * @param snapshot
+	 *            The {@link RenderSnapshot} to draw.
+	 * @param camera
+	 *            The {@link Camera} of this frame.
 	 */
-	private void render(final Graphics g) {
-		for (final Structure s : structures)
-			if (s.isAlive())
-				s.render(g);
-		for (final Bot b : bots)
-			if (b.isAlive())
-				b.render(g);
+	private void render(final Graphics g, final RenderSnapshot snapshot, final Camera camera) {
+		spriteBatch.draw(g, snapshot, camera);
 	}
 
 	/**
-	 * Adds a {@link Bot} to the game.
+	 * <p>
+	 * Saves the game to a file. (See {@link SaveFile}.) The game is saved on
+	 * the game loop's thread, through a {@link World.Command} that runs at the
+	 * start of the next tick, so this can be called from any thread.
+	 *
+	 * @param path
+	 *            The file to save to.
+	 * @return A {@link CompletableFuture} that completes once the game has been
+	 *         saved, or completes exceptionally if saving failed or the
+	 *         {@link World}'s commands are backed up.
+	 */
+	public CompletableFuture<Void> save(final Path path) {
+		final CompletableFuture<Void> result = new CompletableFuture<>();
+		if (!world.submit(w -> {
+			try {
+				new SaveFile(world, cx, cy, zoom).write(path);
+				result.complete(null);
+			} catch (final IOException e) {
+				result.completeExceptionally(e);
+			}
+		}))
+			result.completeExceptionally(new IllegalStateException("Too many commands are waiting."));
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Starts recording the game to an {@link EventLog}, so that it can be
+	 * {@link Replay replayed} later, replacing any recording that is already
+	 * going. Like {@link #save(Path)}, this is done on the game loop's thread,
+	 * so it can be called from any thread.
+	 *
+	 * @param directory
+	 *            The directory to record to.
+	 * @return A {@link CompletableFuture} that completes once recording has
+	 *         started, or completes exceptionally if it couldn't be started or
+	 *         the {@link World}'s commands are backed up.
+	 */
+	public CompletableFuture<Void> record(final Path directory) {
+		final CompletableFuture<Void> result = new CompletableFuture<>();
+		if (!world.submit(w -> {
+			try {
+				startRecording(directory);
+				result.complete(null);
+			} catch (final IOException e) {
+				result.completeExceptionally(e);
+			}
+		}))
+			result.completeExceptionally(new IllegalStateException("Too many commands are waiting."));
+		return result;
+	}
+
+	/**
+	 * Stops any recording that is going and starts recording to a directory.
+	 * This must be called on the game loop's thread, or before it's started.
+	 * The old {@link EventLog} is detached even if it can't be closed.
+	 */
+	private void startRecording(final Path directory) throws IOException {
+		try {
+			if (eventLog != null)
+				eventLog.close();
+		} finally {
+			eventLog = null;
+			world.setListener(null);
+		}
+		final EventLog log = new EventLog(directory, world, EventLog.DEFAULT_KEYFRAME_INTERVAL);
+		log.camera(cx, cy, zoom);
+		eventLog = log;
+		world.setListener(log);
+	}
+
+	/**
+	 * Adds a {@link Bot} to the game. The {@link Bot} is added at the start of
+	 * the next tick, so this can be called from any thread.
 	 *
 	 * @param bot
 	 *            The {@link Bot} that will be added to the game.
-	 * @return As specified in {@link LinkedList#add(Object)}.
+	 * @return As specified in {@link World#submitSpawn(Bot)}.
 	 */
 	public boolean addBot(final Bot bot) {
-		return modificationBotsList.add(bot);
+		return world.submitSpawn(bot);
 	}
 
 	/**
-	 * Adds a {@link Structure} to the game.
+	 * Adds a {@link Structure} to the game. The {@link Structure} is added at
+	 * the start of the next tick, so this can be called from any thread.
 	 *
 	 * @param struct
 	 *            The {@link Structure} that will be added to the game.
-	 * @return As specified in {@link LinkedList#add(Object)}.
+	 * @return As specified in {@link World#submitSpawn(Structure)}.
 	 */
 	public boolean addStruct(final Structure struct) {
-		return modificationStructsList.add(struct);
+		return world.submitSpawn(struct);
 	}
 
 	/**
 	 * <p>
 	 * <strong>A getter for the {@link Bot}s List in game.</strong>
 	 *
-	 * @return The {@link #bots} {@link List} that's used by this
-	 *         {@link Evolution} object.
+	 * @return The {@link Bot}s {@link EntityList} that's used by this
+	 *         {@link Evolution} object's {@link World}.
 	 */
-	public LinkedList<Bot> getBots() {
-		return bots;
+	public EntityList<Bot> getBots() {
+		return world.getBots();
+	}
+
+	/**
+	 * A getter for the {@link TickScheduler} that runs the game loop. This can
+	 * be used to change the tick rate or to check for overruns.
+	 *
+	 * @return The {@link #scheduler} of this {@link Evolution} object.
+	 */
+	public TickScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/**
+	 * A getter for the {@link TickScheduler} that paces the render thread.
+	 * This can be used to change the frame rate, independently of the tick
+	 * rate.
+	 *
+	 * @return The {@link #renderScheduler} of this {@link Evolution} object.
+	 */
+	public TickScheduler getRenderScheduler() {
+		return renderScheduler;
 	}
 
 	/**
@@ -227,11 +387,7 @@ public final class Evolution {
 	 *         in the game.
 	 */
 	public LinkedList<Bot> getLivingBots() {
-		final LinkedList<Bot> list = new LinkedList<>();
-		for (final Bot b : bots)
-			if (b.isAlive())
-				list.add(b);
-		return list;
+		return world.getLivingBots();
 	}
 
 	/**
@@ -249,22 +405,18 @@ public final class Evolution {
 	 *         {@link Structure}s in the game.
 	 */
 	public LinkedList<Structure> getLivingStructures() {
-		final LinkedList<Structure> list = new LinkedList<>();
-		for (final Structure s : structures)
-			if (s.isAlive())
-				list.add(s);
-		return list;
+		return world.getLivingStructures();
 	}
 
 	/**
 	 * <p>
 	 * <strong>A getter for the {@link Structure}s List in game.</strong>
 	 *
-	 * @return The {@link #structures} list used by this {@link Evolution}
-	 *         object.
+	 * @return The {@link Structure}s list used by this {@link Evolution}
+	 *         object's {@link World}.
 	 */
-	public LinkedList<Structure> getStructures() {
-		return structures;
+	public EntityList<Structure> getStructures() {
+		return world.getStructures();
 	}
 
 	/**
@@ -316,86 +468,44 @@ public final class Evolution {
 	}
 
 	/**
-	 * <p>
-	 * A useful method for calculating and return the position of something as
-	 * it appears on screen (if it does). This will factor in the camera's
-	 * position to return where something should be drawn to the screen.
+	 * A getter for the camera's zoom.
 	 *
-	 * @param input
-	 *            The x or y input.
-	 * @param x
-	 *            <code>true</code> if the input is on the <code>x</code> axis,
-	 *            <code>false</code> if the input is on the y axis.
-	 * @return The specified position (<code>input</code>) as it appears on
-	 *         screen as an int.
+	 * @return The camera's zoom. <code>1</code> is not zoomed at all.
 	 */
-	public static int calculatePosition(final int input, final boolean x) {
-		return x ? Evolution.calculateSize(input - Evolution.getCurrentInstance().getCx(), true)
-				: Evolution.calculateSize(input - Evolution.getCurrentInstance().getCy(), false);
+	public double getZoom() {
+		return zoom;
 	}
 
 	/**
 	 * <p>
-	 * A useful method for calculating and return the position of something as
-	 * it appears on screen (if it does). This will factor in the camera's
-	 * position to return where something should be drawn to the screen.
-	 * <p>
-	 * This method is more precise than {@link #calculatePosition(int, boolean)}
-	 * because it undergoes double calculations.
+	 * <strong>Sets the camera's zoom.</strong> The point in the middle of the
+	 * screen stays where it is.
 	 *
-	 * @param input
-	 *            The x or y input.
-	 * @param x
-	 *            <code>true</code> if the input is on the <code>x</code> axis,
-	 *            <code>false</code> if the input is on the y axis.
-	 * @return The specified position (<code>input</code>) as it appears on
-	 *         screen.
+	 * @param zoom
+	 *            The new zoom. Above <code>1</code> is zoomed in and below
+	 *            <code>1</code> is zoomed out. This is clamped to a sensible
+	 *            range.
 	 */
-	public static double calculatePosition(double input, boolean x) {
-		return x ? Evolution.calculateSize(input - Evolution.getCurrentInstance().getCx(), true)
-				: Evolution.calculateSize(input - Evolution.getCurrentInstance().getCy(), false);
+	public void setZoom(double zoom) {
+		if (!(zoom > 0))
+			throw new IllegalArgumentException("The zoom must be positive: " + zoom);
+		zoom = Math.max(Evolution.MIN_ZOOM, Math.min(Evolution.MAX_ZOOM, zoom));
+		final double old = this.zoom;
+		cx += (int) ((Evolution.VIEW_WIDTH / old - Evolution.VIEW_WIDTH / zoom) / 2);
+		cy += (int) ((Evolution.VIEW_HEIGHT / old - Evolution.VIEW_HEIGHT / zoom) / 2);
+		this.zoom = zoom;
 	}
 
 	/**
 	 * <p>
-	 * A useful method used for calculating the width or height, as it should
-	 * be, scaled to the screen size. This gets the size given and multiplies it
-	 * by the correct ratios as needed. (See {@link #getHeightRatio()} and
-	 * {@link #getWidthRatio()} for more details.)
+	 * <strong>Multiplies the camera's zoom by the given factor.</strong> See
+	 * {@link #setZoom(double)}.
 	 *
-	 * @param input
-	 *            the width/height that will be scaled then returned.
-	 * @param width
-	 *            <code>true</code> if <code>input</code> is a width value,
-	 *            <code>false</code> if <code>input</code> is a height value.
-	 * @return The multiplied width/height value as an int.
+	 * @param factor
+	 *            The factor to zoom by. Above <code>1</code> zooms in.
 	 */
-	public static int calculateSize(final int input, final boolean width) {
-		return width ? (int) (input * Evolution.getCurrentInstance().getWidthRatio())
-				: (int) (input * Evolution.getCurrentInstance().getHeightRatio());
-	}
-
-	/**
-	 * <p>
-	 * A useful method used for calculating the width or height, as it should
-	 * be, scaled to the screen size. This gets the size given and multiplies it
-	 * by the correct ratios as needed. (See {@link #getHeightRatio()} and
-	 * {@link #getWidthRatio()} for more details.)
-	 * <p>
-	 * This method will be more precise than
-	 * {@link #calculateSize(int, boolean)}, as it uses decimal calculations and
-	 * doesn't undergo {@code double} to {@code int} casting.
-	 *
-	 * @param input
-	 *            the width/height that will be scaled then returned.
-	 * @param width
-	 *            <code>true</code> if <code>input</code> is a width value,
-	 *            <code>false</code> if <code>input</code> is a height value.
-	 * @return The multiplied width/height value as a double.
-	 */
-	public static double calculateSize(double input, boolean width) {
-		return width ? input * Evolution.getCurrentInstance().getWidthRatio()
-				: input * Evolution.getCurrentInstance().getHeightRatio();
+	public void zoom(final double factor) {
+		setZoom(zoom * factor);
 	}
 
 	/**
@@ -406,8 +516,9 @@ public final class Evolution {
 	 * The Type Parameter must be of the same class as the <code>botClass</code>
 	 * parameter.
 	 * <p>
-	 * This method will iterate over all the bots (that are alive. See
-	 * {@link Bot#isAlive()}.) and will return the one that is:
+	 * This method will search the {@link SpatialGrid} of {@link Bot}s of
+	 * <code>object</code>'s {@link World} (which only holds {@link Bot}s that
+	 * are alive. See {@link Bot#isAlive()}.) and will return the one that is:
 	 * <ul>
 	 * <li>Closest to the given <code>object</code> parameter.</li>
 	 * <li>An instance of the <code>botClass</code> parameter provided.</li>
@@ -417,28 +528,16 @@ public final class Evolution {
 	 * consequences.
 	 *
 	 * @param object
-	 *            Any {@link Object}. The returned {@link Bot} will be the
-	 *            closest of its type, to this {@link Object}.
+	 *            Any {@link Object} in a {@link World}. The returned
+	 *            {@link Bot} will be the closest of its type, to this
+	 *            {@link Object}.
 	 * @param botClass
 	 *            The Type of {@link Bot} to look for.
 	 * @return The {@link Bot} of Type <code>botClass</code> which is closest to
 	 *         <code>object</code>.
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Bot> T getClosestBot(final Object object, final Class<T> botClass) {
-
-		T closestBot = null;
-		for (final Bot bot : Evolution.CURRENT_INSTANCE.bots)
-			try {
-				if (!bot.isAlive() || bot.getClass() != botClass)
-					continue;
-				if (Evolution.getDistance(object, bot) < Evolution.getDistance(object, closestBot))
-					closestBot = (T) bot;
-			} catch (final NullPointerException e) {
-				closestBot = (T) bot;
-			}
-
-		return closestBot;
+		return object.getWorld().getClosestBot(object, botClass);
 	}
 
 	/**
@@ -458,15 +557,16 @@ public final class Evolution {
 	 */
 	@Deprecated
 	public static ResourceSpawner getClosestResourceSpawner(final Object object) {
-		if (Evolution.CURRENT_INSTANCE.structures.size() <= 0)
+		if (object.getWorld().getStructures().size() <= 0)
 			return null;
 
-		ResourceSpawner spawner = (ResourceSpawner) Evolution.CURRENT_INSTANCE.structures.getFirst();
+		ResourceSpawner spawner = null;
 
-		for (final Structure structure : Evolution.getCurrentInstance().getStructures())
+		for (final Structure structure : object.getWorld().getStructures())
 			if (!(structure instanceof ResourceSpawner))
 				continue;
-			else if (Evolution.getDistance(object, structure) < Evolution.getDistance(object, spawner))
+			else if (spawner == null
+					|| Evolution.getDistance(object, structure) < Evolution.getDistance(object, spawner))
 				spawner = (ResourceSpawner) structure;
 
 		return spawner;
@@ -480,8 +580,10 @@ public final class Evolution {
 	 * The Type Parameter must be of the same class as the
 	 * <code>structClass</code> parameter.
 	 * <p>
-	 * This method will iterate over all the structures (that are alive. See
-	 * {@link Structure#isAlive()}.) and will return the one that is:
+	 * This method will search the {@link SpatialGrid} of {@link Structure}s
+	 * of <code>object</code>'s {@link World} (which only holds
+	 * {@link Structure}s that are alive. See {@link Structure#isAlive()}.) and
+	 * will return the one that is:
 	 * <ul>
 	 * <li>Closest to the given <code>object</code> parameter.</li>
 	 * <li>An instance of the <code>structClass</code> parameter provided.</li>
@@ -491,42 +593,16 @@ public final class Evolution {
 	 * consequences.
 	 *
 	 * @param object
-	 *            Any {@link Object}. The returned {@link Structure} will be the
-	 *            closest of its type, to this {@link Object}.
+	 *            Any {@link Object} in a {@link World}. The returned
+	 *            {@link Structure} will be the closest of its type, to this
+	 *            {@link Object}.
 	 * @param structClass
 	 *            The Type of {@link Structure} to look for.
 	 * @return The {@link Structure} of Type <code>structClass</code> which is
 	 *         closest to <code>object</code>.
 	 */
-	@SuppressWarnings("unchecked")
 	public static <T extends Structure> T getClosestStructure(final Object object, final Class<T> structClass) {
-
-		if (Evolution.CURRENT_INSTANCE.structures.size() == 0)
-			return null;
-
-		T closestStruct = null;
-		for (final Structure struct : Evolution.CURRENT_INSTANCE.structures)
-			try {
-				if (!struct.isAlive() || struct.getClass() != structClass)
-					continue;
-
-				if (Evolution.getDistance(object, struct) < Evolution.getDistance(object, closestStruct))
-					closestStruct = (T) struct;
-			} catch (final NullPointerException e) {
-				closestStruct = (T) struct;
-			}
-
-		return closestStruct;
-	}
-
-	/**
-	 * A getter for the {@link #CURRENT_INSTANCE} of the program.
-	 *
-	 * @return The currently running instance of {@link Evolution}, stored in
-	 *         {@link #CURRENT_INSTANCE}.
-	 */
-	public static Evolution getCurrentInstance() {
-		return Evolution.CURRENT_INSTANCE;
+		return object.getWorld().getClosestStructure(object, structClass);
 	}
 
 	/**
@@ -543,41 +619,112 @@ public final class Evolution {
 
 		// Values are squared afterwards, so there is no need to get the
 		// absolute value to find the difference.
-		final double vx = obj1.posx - obj2.posx, vy = obj1.posy - obj2.posy;
+		final double vx = obj1.getPosX() - obj2.getPosX(), vy = obj1.getPosY() - obj2.getPosY();
 
 		return StrictMath.sqrt(vx * vx + vy * vy);
 	}
 
 	/**
 	 * <p>
-	 * This method returns a new {@link LinkedList} of the type specified that
-	 * contains all of the {@link Bot}s (of a specific type) from the game. This
-	 * method will iterate over all the {@link Bot}s in the game and select all
-	 * that...
-	 * <ul>
-	 * <li>Are instances of the class (<code>structClass</code>) and Type
-	 * (<code>T</code>) passed into the method.</li>
-	 * <li>Are alive. See {@link Bot#isAlive()} for more details.</li>
-	 * </ul>
+	 * The entry point of the program. Passing <code>--headless</code> runs a
+	 * {@link World} without any window, optionally followed by the width and
+	 * height of the {@link World}. Otherwise, the game is started in a full
+	 * screen window. (See {@link #start()}.) Either way, the {@link World}'s
+	 * {@link TickMetrics} are published through JMX.
+	 * <p>
+	 * Either way, <code>--load</code> followed by the path to a
+	 * {@link SaveFile} starts from that save, rather than from a new
+	 * {@link World}, and <code>--seed</code> followed by a number makes a new
+	 * {@link World} from that seed, so that it plays out the same way every
+	 * time. <code>--record</code> followed by a directory records the game to
+	 * an {@link EventLog} in that directory, and <code>--stats</code> followed
+	 * by a file exports a sample of the {@link World}'s statistics every tick
+	 * to that file with a {@link StatsSampler}, as CSV if its name ends with
+	 * <code>.csv</code>.
+	 * <p>
+	 * <code>--replay</code> followed by the directory of an {@link EventLog}
+	 * replays it as fast as possible, checking it against the log as it goes,
+	 * either to its end or to the tick that follows <code>--seek</code>. With
+	 * <code>--headless</code>, that's all; otherwise, the game then carries on
+	 * from there in a window.
 	 *
-	 * @param botClass
-	 *            The type of {@link Bot} to search for.
-	 * @return A new {@link LinkedList} with all the found {@link Bot}s.
-	 */
-	@SuppressWarnings("unchecked")
-	public static <T extends Bot> LinkedList<T> getSpecBots(final Class<T> botClass) {
-		final LinkedList<T> list = new LinkedList<>();
-		for (final Bot bot : Evolution.CURRENT_INSTANCE.bots) {
-			if (!bot.isAlive() || bot.getClass() != botClass)
-				continue;
-			list.add((T) bot);
-		}
+	 * @param args
+	 *            The program arguments.
+	 * @throws IOException
+	 *             If a save file or log is given but can't be loaded, or the
+	 *             game can't be recorded.
+	 */
+	public static void main(final String[] args) throws IOException {
+		boolean headless = false;
+		SaveFile save = null;
+		long seed = Rng.randomSeed();
+		int width = 1920, height = 1080;
+		Path record = null, replay = null, stats = null;
+		long seek = -1;
+		for (int i = 0; i < args.length; i++)
+			if (args[i].equals("--headless")) {
+				headless = true;
+				if (i + 2 < args.length && !args[i + 1].startsWith("--")) {
+					width = Integer.parseInt(args[++i]);
+					height = Integer.parseInt(args[++i]);
+				}
+			} else if (args[i].equals("--load") && i + 1 < args.length)
+				save = SaveFile.read(Paths.get(args[++i]));
+			else if (args[i].equals("--seed") && i + 1 < args.length)
+				seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("--record") && i + 1 < args.length)
+				record = Paths.get(args[++i]);
+			else if (args[i].equals("--replay") && i + 1 < args.length)
+				replay = Paths.get(args[++i]);
+			else if (args[i].equals("--seek") && i + 1 < args.length)
+				seek = Long.parseLong(args[++i]);
+			else if (args[i].equals("--stats") && i + 1 < args.length)
+				stats = Paths.get(args[++i]);
+
+		if (replay != null)
+			try (Replay r = new Replay(replay)) {
+				final World world = seek < 0 ? r.run() : r.seek(seek);
+				world.setListener(null);
+				if (headless)
+					return;
+				save = new SaveFile(world, r.getCameraX(), r.getCameraY(), r.getZoom());
+			}
 
-		return list;
+		if (headless) {
+			final World world = save == null ? new World(width, height, seed) : save.getWorld();
+			world.getMetrics().register("headless");
+			if (record != null)
+				world.setListener(new EventLog(record, world, EventLog.DEFAULT_KEYFRAME_INTERVAL));
+			if (stats != null)
+				Evolution.sample(world, stats);
+			world.run();
+		} else {
+			final Evolution game = new Evolution(save, seed);
+			// Nothing ticks until the loop starts, so this is done right away,
+			// and a recording that can't be started stops the game.
+			if (record != null)
+				game.startRecording(record);
+			if (stats != null)
+				Evolution.sample(game.world, stats);
+			game.loop();
+		}
 	}
 
-	public static void main(final String[] args) {
-		Evolution.start();
+	/**
+	 * Attaches a {@link StatsSampler} to a {@link World}, and closes it when
+	 * the program exits, so that every sample that was taken gets written.
+	 */
+	private static void sample(final World world, final Path file) throws IOException {
+		final StatsSampler sampler = new StatsSampler(file);
+		world.setSampler(sampler);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			world.setSampler(null);
+			try {
+				sampler.close();
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}, "Stats closer"));
 	}
 
 	/**
@@ -621,8 +768,27 @@ public final class Evolution {
 	 * program.
 	 */
 	public static void start() {
-		Evolution.CURRENT_INSTANCE = new Evolution();
-		Evolution.CURRENT_INSTANCE.loop();
+		Evolution.start(Rng.randomSeed());
+	}
+
+	/**
+	 * Starts the program with a new {@link World}, made from a seed.
+	 *
+	 * @param seed
+	 *            The seed of the {@link World}.
+	 */
+	public static void start(final long seed) {
+		new Evolution(null, seed).loop();
+	}
+
+	/**
+	 * Starts the program from a {@link SaveFile}.
+	 *
+	 * @param save
+	 *            The {@link SaveFile} to start from.
+	 */
+	public static void start(final SaveFile save) {
+		new Evolution(save, 0).loop();
 	}
 
 	/**
@@ -638,38 +804,35 @@ public final class Evolution {
 			setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 			setUndecorated(true);
 			setResizable(false);
+			setIgnoreRepaint(true);
 
 		}
 
 	}
 
 	/**
-	 * The class of {@link Evolution#pane}.
+	 * The class of {@link Evolution#pane}. This is drawn to actively, by the
+	 * render thread, through a {@link BufferStrategy}, so it ignores repaints
+	 * from Swing.
 	 *
 	 * @author Zeale
 	 *
 	 */
-	private class EvolutionPane extends JPanel {
+	private class EvolutionPane extends Canvas {
 		private static final long serialVersionUID = 1L;
 
 		private EvolutionPane() {
+			setIgnoreRepaint(true);
 			frame.add(this);
 			frame.pack();
 		}
 
-		@Override
-		protected void paintComponent(final Graphics g) {
-			super.paintComponent(g);
-			render(g);
-
-		}
-
 		public double getHeightRatio() {
-			return (double) getHeight() / 1080;
+			return (double) getHeight() / Evolution.VIEW_HEIGHT;
 		}
 
 		public double getWidthRatio() {
-			return (double) getWidth() / 1920;
+			return (double) getWidth() / Evolution.VIEW_WIDTH;
 		}
 	}
 
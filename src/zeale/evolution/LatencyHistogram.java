@@ -0,0 +1,154 @@
+package zeale.evolution;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A histogram of latencies, in nanoseconds, in the style of HdrHistogram.
+ * Values are counted in buckets whose width grows with the values they hold,
+ * so every value from a nanosecond up to hundreds of years is recorded with a
+ * relative error of less than 2%, in a fixed amount of memory, and recording a
+ * value is just an array increment.
+ * <p>
+ * Values under {@value #SUB_BUCKETS} are counted exactly. Past that, each
+ * power of two is split into {@value #HALF_SUB_BUCKETS} equal buckets.
+ * <p>
+ * A {@link LatencyHistogram} is meant to be recorded into by one thread and
+ * read by others, such as by JMX, so all of its methods are synchronized. The
+ * lock is never contended for long, since nothing holds it for more than a
+ * single pass over the buckets.
+ *
+ * @author Zeale
+ *
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * The amount of values that are counted exactly, and the amount of buckets
+	 * that every power of two above them is split into.
+	 */
+	private static final int SUB_BUCKET_BITS = 7, SUB_BUCKETS = 1 << LatencyHistogram.SUB_BUCKET_BITS,
+			HALF_SUB_BUCKETS = LatencyHistogram.SUB_BUCKETS / 2;
+
+	/**
+	 * The counts of the buckets. See {@link #index(long)}.
+	 */
+	private final long[] counts = new long[LatencyHistogram.index(Long.MAX_VALUE) + 1];
+
+	/**
+	 * The amount of values recorded, their sum and the biggest of them.
+	 */
+	private long count, sum, max;
+
+	/**
+	 * Gets the index of the bucket that a value is counted in.
+	 */
+	private static int index(final long value) {
+		if (value < LatencyHistogram.SUB_BUCKETS)
+			return (int) value;
+		// The shift that brings the value down into [HALF_SUB_BUCKETS,
+		// SUB_BUCKETS).
+		final int shift = 64 - Long.numberOfLeadingZeros(value) - LatencyHistogram.SUB_BUCKET_BITS;
+		return LatencyHistogram.SUB_BUCKETS + (shift - 1) * LatencyHistogram.HALF_SUB_BUCKETS
+				+ (int) (value >>> shift) - LatencyHistogram.HALF_SUB_BUCKETS;
+	}
+
+	/**
+	 * Gets the highest value that is counted in a bucket.
+	 */
+	private static long highestValue(final int index) {
+		if (index < LatencyHistogram.SUB_BUCKETS)
+			return index;
+		final int above = index - LatencyHistogram.SUB_BUCKETS,
+				shift = above / LatencyHistogram.HALF_SUB_BUCKETS + 1;
+		final long lowest = (long) (above % LatencyHistogram.HALF_SUB_BUCKETS + LatencyHistogram.HALF_SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param nanoseconds
+	 *            The value, in nanoseconds. Negative values are recorded as
+	 *            <code>0</code>.
+	 */
+	public synchronized void record(long nanoseconds) {
+		if (nanoseconds < 0)
+			nanoseconds = 0;
+		counts[LatencyHistogram.index(nanoseconds)]++;
+		count++;
+		sum += nanoseconds;
+		if (nanoseconds > max)
+			max = nanoseconds;
+	}
+
+	/**
+	 * <p>
+	 * Gets the value that a percentage of the recorded values are at or below.
+	 * The value is the highest that could be in its bucket, so it's never
+	 * lower than the real value.
+	 *
+	 * @param percentile
+	 *            The percentage, from <code>0</code> to <code>100</code>.
+	 * @return The value, in nanoseconds, or <code>0</code> if nothing has been
+	 *         recorded.
+	 */
+	public synchronized long getValueAtPercentile(final double percentile) {
+		if (count == 0)
+			return 0;
+		final long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++)
+			if ((seen += counts[i]) >= target)
+				return Math.min(LatencyHistogram.highestValue(i), max);
+		return max;
+	}
+
+	/**
+	 * A getter for the amount of values that have been recorded.
+	 *
+	 * @return The amount of values recorded.
+	 */
+	public synchronized long getCount() {
+		return count;
+	}
+
+	/**
+	 * A getter for the mean of the recorded values.
+	 *
+	 * @return The mean, in nanoseconds, or <code>0</code> if nothing has been
+	 *         recorded.
+	 */
+	public synchronized double getMean() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * A getter for the biggest recorded value.
+	 *
+	 * @return The biggest value, in nanoseconds.
+	 */
+	public synchronized long getMax() {
+		return max;
+	}
+
+	/**
+	 * Gets a {@link LatencySummary} of this histogram.
+	 *
+	 * @return A new {@link LatencySummary}.
+	 */
+	public synchronized LatencySummary summarize() {
+		return new LatencySummary(count, getMean() / 1000, getValueAtPercentile(50) / 1000.0,
+				getValueAtPercentile(90) / 1000.0, getValueAtPercentile(99) / 1000.0,
+				getValueAtPercentile(99.9) / 1000.0, max / 1000.0);
+	}
+
+	/**
+	 * Forgets every recorded value.
+	 */
+	public synchronized void reset() {
+		Arrays.fill(counts, 0);
+		count = sum = max = 0;
+	}
+
+}
@@ -0,0 +1,118 @@
+package zeale.evolution;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * <p>
+ * A summary of a {@link LatencyHistogram} at one point in time. Every latency
+ * is in microseconds. This is how histograms are published through JMX (see
+ * {@link TickMetricsMXBean}), where it shows up as composite data.
+ *
+ * @author Zeale
+ *
+ */
+public final class LatencySummary {
+
+	private final long count;
+	private final double mean, p50, p90, p99, p999, max;
+
+	/**
+	 * Constructs a new {@link LatencySummary}.
+	 *
+	 * @param count
+	 *            The amount of values.
+	 * @param mean
+	 *            The mean.
+	 * @param p50
+	 *            The median.
+	 * @param p90
+	 *            The 90th percentile.
+	 * @param p99
+	 *            The 99th percentile.
+	 * @param p999
+	 *            The 99.9th percentile.
+	 * @param max
+	 *            The biggest value.
+	 */
+	@ConstructorProperties({ "count", "mean", "p50", "p90", "p99", "p999", "max" })
+	public LatencySummary(final long count, final double mean, final double p50, final double p90,
+			final double p99, final double p999, final double max) {
+		this.count = count;
+		this.mean = mean;
+		this.p50 = p50;
+		this.p90 = p90;
+		this.p99 = p99;
+		this.p999 = p999;
+		this.max = max;
+	}
+
+	/**
+	 * A getter for the amount of values.
+	 *
+	 * @return The amount of values that were recorded.
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * A getter for the mean.
+	 *
+	 * @return The mean, in microseconds.
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * A getter for the median.
+	 *
+	 * @return The median, in microseconds.
+	 */
+	public double getP50() {
+		return p50;
+	}
+
+	/**
+	 * A getter for the 90th percentile.
+	 *
+	 * @return The 90th percentile, in microseconds.
+	 */
+	public double getP90() {
+		return p90;
+	}
+
+	/**
+	 * A getter for the 99th percentile.
+	 *
+	 * @return The 99th percentile, in microseconds.
+	 */
+	public double getP99() {
+		return p99;
+	}
+
+	/**
+	 * A getter for the 99.9th percentile.
+	 *
+	 * @return The 99.9th percentile, in microseconds.
+	 */
+	public double getP999() {
+		return p999;
+	}
+
+	/**
+	 * A getter for the biggest value.
+	 *
+	 * @return The biggest value, in microseconds.
+	 */
+	public double getMax() {
+		return max;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("n=%d mean=%.1fus p50=%.1fus p90=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus", count, mean,
+				p50, p90, p99, p999, max);
+	}
+
+}
@@ -1,6 +1,5 @@
 package zeale.evolution;
 
-import java.awt.Graphics;
 import java.io.Serializable;
 
 import zeale.evolution.bots.Bot;
@@ -17,6 +16,46 @@ public abstract class Object implements Serializable {
 	 * The position of this {@link Object} in game.
 	 */
 	protected double posx, posy;
+	/**
+	 * <p>
+	 * Where this {@link Object} is kept in a {@link SpatialGrid}: the index of
+	 * its cell and its index within that cell. Both are <code>-1</code> while
+	 * it isn't in one.
+	 */
+	transient int gridCell = -1, gridSlot = -1;
+	/**
+	 * <p>
+	 * The slot of this {@link Object} in its {@link EntityList}, or
+	 * <code>-1</code> while it isn't in one.
+	 */
+	transient int listSlot = -1;
+	/**
+	 * <p>
+	 * Where this {@link Object} is kept in a {@link RegionShards}: the index
+	 * of its region and its index within that region. Both are <code>-1</code>
+	 * while it isn't in one.
+	 */
+	transient int region = -1, regionSlot = -1;
+	/**
+	 * <p>
+	 * This {@link Object}'s own stream of random numbers. It is split off from
+	 * the {@link World}'s {@link Rng} when this {@link Object} is added to the
+	 * {@link World}. See {@link #getRandom()}.
+	 */
+	transient Rng random;
+	/**
+	 * <p>
+	 * The {@link World} that this {@link Object} was added to, or
+	 * <code>null</code> if it hasn't been added to one. See
+	 * {@link #getWorld()}.
+	 */
+	transient World world;
+	/**
+	 * <p>
+	 * This {@link Object}'s ID in its {@link World}, or
+	 * {@link EntityIds#NONE} while it isn't in one. See {@link #getId()}.
+	 */
+	long id = EntityIds.NONE;
 	/**
 	 * Serial Version UID
 	 */
@@ -70,7 +109,7 @@ public abstract class Object implements Serializable {
 	 *            The amount to incrememnt this {@link Object}'s x position by.
 	 */
 	public void addX(double amount) {
-		posx += amount;
+		setX(getPosX() + amount);
 	}
 
 	/**
@@ -82,7 +121,7 @@ public abstract class Object implements Serializable {
 	 *            The amount to decrement this {@link Object}'s x position by.
 	 */
 	public void decX(double amount) {
-		posx -= amount;
+		setX(getPosX() - amount);
 	}
 
 	/**
@@ -94,7 +133,7 @@ public abstract class Object implements Serializable {
 	 *            The amount to increment this {@link Object}'s x position by.
 	 */
 	public void addY(double amount) {
-		posy += amount;
+		setY(getPosY() + amount);
 	}
 
 	/**
@@ -106,7 +145,7 @@ public abstract class Object implements Serializable {
 	 *            The amount to decrement this {@link Object}'s y position by.
 	 */
 	public void decY(double amount) {
-		posy -= amount;
+		setY(getPosY() - amount);
 	}
 
 	/**
@@ -118,7 +157,7 @@ public abstract class Object implements Serializable {
 	 *            The distance to increase this {@link Object}'s x position by.
 	 */
 	public void incrementX(double amount) {
-		posx += amount;
+		setX(getPosX() + amount);
 	}
 
 	/**
@@ -130,7 +169,7 @@ public abstract class Object implements Serializable {
 	 *            The amount to increase this {@link Object}'s y position by.
 	 */
 	public void incrementY(double amount) {
-		posy += amount;
+		setY(getPosY() + amount);
 	}
 
 	/**
@@ -142,7 +181,7 @@ public abstract class Object implements Serializable {
 	 *            The amount to decrease this {@link Object}'s x position by.
 	 */
 	public void decrementX(double amount) {
-		posx -= amount;
+		setX(getPosX() - amount);
 	}
 
 	/**
@@ -154,7 +193,7 @@ public abstract class Object implements Serializable {
 	 *            The amount to decrease this {@link Object}'s y position by.
 	 */
 	public void decrementY(double amount) {
-		posy -= amount;
+		setY(getPosY() - amount);
 	}
 
 	/**
@@ -174,7 +213,7 @@ public abstract class Object implements Serializable {
 	 * @return This {@link Object}'s {@link #posx}.
 	 */
 	public int getX() {
-		return (int) posx;
+		return (int) getPosX();
 	}
 
 	/**
@@ -183,7 +222,79 @@ public abstract class Object implements Serializable {
 	 * @return This {@link Object}'s {@link #posy}.
 	 */
 	public int getY() {
-		return (int) posy;
+		return (int) getPosY();
+	}
+
+	/**
+	 * <p>
+	 * A getter for this {@link Object}'s exact x position.
+	 * <p>
+	 * Every other method that reads or changes this {@link Object}'s position
+	 * goes through this method, {@link #getPosY()}, {@link #setX(double)} and
+	 * {@link #setY(double)}, so subclasses that keep their position somewhere
+	 * other than {@link #posx} and {@link #posy} only need to override these
+	 * four.
+	 *
+	 * @return This {@link Object}'s x position.
+	 */
+	public double getPosX() {
+		return posx;
+	}
+
+	/**
+	 * A getter for this {@link Object}'s exact y position. See
+	 * {@link #getPosX()}.
+	 *
+	 * @return This {@link Object}'s y position.
+	 */
+	public double getPosY() {
+		return posy;
+	}
+
+	/**
+	 * <p>
+	 * A getter for this {@link Object}'s {@link Rng}. Every {@link Object} has
+	 * its own, split off from its {@link World}'s when it is added, so
+	 * {@link Object}s never share a generator and a {@link World} plays out the
+	 * same way every time that it's run from the same seed.
+	 * <p>
+	 * An {@link Object} that hasn't been added to a {@link World} yet gets an
+	 * unseeded {@link Rng}, which it then keeps.
+	 *
+	 * @return This {@link Object}'s {@link Rng}.
+	 */
+	public Rng getRandom() {
+		if (random == null)
+			random = new Rng(Rng.randomSeed());
+		return random;
+	}
+
+	/**
+	 * <p>
+	 * A getter for the {@link World} that this {@link Object} belongs to. An
+	 * {@link Object} reaches everything outside of itself through this, so
+	 * any amount of {@link World}s can run side by side, each on its own
+	 * thread.
+	 *
+	 * @return The {@link World} that this {@link Object} was added to, or
+	 *         <code>null</code> if it hasn't been added to one.
+	 */
+	public World getWorld() {
+		return world;
+	}
+
+	/**
+	 * <p>
+	 * A getter for this {@link Object}'s ID. {@link Object}s that refer to
+	 * each other hold each other's IDs, which their {@link World} turns back
+	 * into {@link Object}s with {@link World#getEntity(long)}. See
+	 * {@link EntityIds}.
+	 *
+	 * @return This {@link Object}'s ID, or {@link EntityIds#NONE} if it isn't
+	 *         in a {@link World}, or hasn't been flushed into it yet.
+	 */
+	public long getId() {
+		return id;
 	}
 
 	/**
@@ -218,7 +329,7 @@ public abstract class Object implements Serializable {
 	 *            The distance to move this {@link Object}.
 	 */
 	public void moveX(final int units) {
-		posx += units;
+		setX(getPosX() + units);
 	}
 
 	/**
@@ -228,18 +339,23 @@ public abstract class Object implements Serializable {
 	 *            The distance to move this {@link Object}.
 	 */
 	public void moveY(final int units) {
-		posy += units;
+		setY(getPosY() + units);
 	}
 
 	/**
 	 * This method is called when this {@link Object} needs to be rendered. This
 	 * method should be overridden in subclasses to provide unique rendering for
 	 * each subclass.
+	 * <p>
+	 * This is called on the thread that ticks the game, so it may read this
+	 * {@link Object}'s state freely. It doesn't draw anything itself; it adds
+	 * what this {@link Object} looks like to a {@link RenderSnapshot}, in world
+	 * coordinates, which is drawn to the screen later on.
 	 *
-	 * @param g
-	 *            The {@link Graphics} object used to draw to the screen.
+	 * @param snapshot
+	 *            The {@link RenderSnapshot} to render into.
 	 */
-	public abstract void render(Graphics g);
+	public abstract void render(RenderSnapshot snapshot);
 
 	/**
 	 * This method is called repeatedly as the game runs. This {@link Object}
@@ -0,0 +1,102 @@
+package zeale.evolution;
+
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.Spawnpoint;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * The tunable numbers that decide how a {@link World} plays out: what the
+ * {@link Bot}s and {@link ResourceSpawner}s that a {@link Spawnpoint} spawns
+ * are like, and how many {@link zeale.evolution.resources.Resource Resource}s
+ * a {@link Spawnpoint} needs to spawn one. A {@link World}'s parameters are
+ * set with {@link World#setParameters(Parameters)}.
+ * <p>
+ * {@link Parameters} are immutable, so the same {@link Parameters} can be
+ * shared by any amount of {@link World}s, such as by a {@link Sweep}.
+ *
+ * @author Zeale
+ *
+ */
+public final class Parameters {
+
+	/**
+	 * The {@link Parameters} that the game has always used.
+	 */
+	public static final Parameters DEFAULT = new Parameters((short) 2, (short) 5, (short) 50, 15);
+
+	private final short botSpeed, botMaxResources, spawnerCapacity;
+	private final int spawnThreshold;
+
+	/**
+	 * Constructs new {@link Parameters}.
+	 *
+	 * @param botSpeed
+	 *            The speed of spawned {@link Bot}s. See
+	 *            {@link Bot#getSpeed()}.
+	 * @param botMaxResources
+	 *            The amount of {@link zeale.evolution.resources.Resource
+	 *            Resource}s that a spawned {@link Bot} can carry.
+	 * @param spawnerCapacity
+	 *            The capacity of spawned {@link ResourceSpawner}s.
+	 * @param spawnThreshold
+	 *            The amount of {@link zeale.evolution.resources.Resource
+	 *            Resource}s that a {@link Spawnpoint} spends on spawning
+	 *            something.
+	 */
+	public Parameters(final short botSpeed, final short botMaxResources, final short spawnerCapacity,
+			final int spawnThreshold) {
+		if (spawnThreshold <= 0)
+			throw new IllegalArgumentException("The spawn threshold must be positive: " + spawnThreshold);
+		this.botSpeed = botSpeed;
+		this.botMaxResources = botMaxResources;
+		this.spawnerCapacity = spawnerCapacity;
+		this.spawnThreshold = spawnThreshold;
+	}
+
+	/**
+	 * A getter for the speed of the {@link Bot}s that are spawned.
+	 *
+	 * @return The speed of spawned {@link Bot}s.
+	 */
+	public short getBotSpeed() {
+		return botSpeed;
+	}
+
+	/**
+	 * A getter for the inventory size of the {@link Bot}s that are spawned.
+	 *
+	 * @return The maximum amount of resources that a spawned {@link Bot} can
+	 *         carry.
+	 */
+	public short getBotMaxResources() {
+		return botMaxResources;
+	}
+
+	/**
+	 * A getter for the capacity of the {@link ResourceSpawner}s that are
+	 * spawned.
+	 *
+	 * @return The capacity of spawned {@link ResourceSpawner}s.
+	 */
+	public short getSpawnerCapacity() {
+		return spawnerCapacity;
+	}
+
+	/**
+	 * A getter for the amount of resources that a {@link Spawnpoint} needs to
+	 * spawn something.
+	 *
+	 * @return The spawn threshold of {@link Spawnpoint}s.
+	 */
+	public int getSpawnThreshold() {
+		return spawnThreshold;
+	}
+
+	@Override
+	public String toString() {
+		return "Parameters[botSpeed=" + botSpeed + ", botMaxResources=" + botMaxResources + ", spawnerCapacity="
+				+ spawnerCapacity + ", spawnThreshold=" + spawnThreshold + "]";
+	}
+
+}
@@ -0,0 +1,289 @@
+package zeale.evolution;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import zeale.evolution.bots.Bot;
+
+/**
+ * <p>
+ * Divides a {@link World} into square regions of a fixed size, each of which
+ * owns the {@link Bot}s that are in it, so that the {@link Bot}s of a region
+ * can be updated together on a single worker thread.
+ * <p>
+ * {@link Bot}s that are near each other look at the same
+ * {@link zeale.evolution.structures.Structure Structure}s and the same cells
+ * of the {@link World}'s {@link SpatialGrid}s, so updating them together
+ * keeps what they read in that worker's cache, instead of every worker
+ * reading from everywhere on the map. Regions are handed to the
+ * workers of a {@link ForkJoinPool} as tasks, so idle workers steal regions
+ * from busy ones, and a region with a lot of {@link Bot}s in it is split up
+ * between workers.
+ * <p>
+ * A {@link Bot} that crosses the border of its region is handed off to the
+ * region it moved into when it's {@link #update(Bot) updated}. Lookups near a
+ * border don't need any help from the shards: a {@link Bot} searches the
+ * {@link World}'s {@link SpatialGrid}s, which cover every region and aren't
+ * changed while {@link Bot}s are being updated.
+ * <p>
+ * Like a {@link SpatialGrid}, this does not track {@link Bot}s on its own.
+ * Every {@link Bot} that is {@link #add(Bot) added} must be
+ * {@link #update(Bot) updated} when it moves and {@link #remove(Bot)
+ * removed} when it dies.
+ *
+ * @author Zeale
+ *
+ */
+final class RegionShards {
+
+	/**
+	 * The size of the regions, in units. This is a whole amount of the
+	 * {@link World}'s grid cells, and big enough that most {@link Bot}s stay
+	 * in their region for a long time.
+	 */
+	static final double REGION_SIZE = 1024;
+
+	/**
+	 * The size of the regions, in units.
+	 */
+	private final double regionSize;
+
+	/**
+	 * The amount of columns and rows of regions.
+	 */
+	private final int columns, rows;
+
+	/**
+	 * The {@link Bot}s of each region, row by row, and how many there are.
+	 * Regions are only given an array once something is put in them.
+	 */
+	private final Bot[][] regions;
+	private final int[] sizes;
+
+	/**
+	 * The indices of the regions that aren't empty, and where each region's
+	 * index is in {@link #occupied} (or <code>-1</code> if it's empty).
+	 */
+	private final int[] occupied, occupiedSlots;
+	private int occupiedCount;
+
+	/**
+	 * The amount of times that a {@link Bot} has been handed off from one
+	 * region to another since {@link #takeHandoffs()} was last called.
+	 */
+	private long handoffs;
+
+	/**
+	 * Constructs a new {@link RegionShards} that covers the area from
+	 * <code>(0, 0)</code> to <code>(width, height)</code>. Anything outside of
+	 * that area is kept in the closest region on its edge.
+	 *
+	 * @param width
+	 *            The width of the area to cover.
+	 * @param height
+	 *            The height of the area to cover.
+	 * @param regionSize
+	 *            The size of each (square) region.
+	 */
+	RegionShards(final int width, final int height, final double regionSize) {
+		if (regionSize <= 0)
+			throw new IllegalArgumentException("The region size must be positive: " + regionSize);
+		this.regionSize = regionSize;
+		columns = Math.max(1, (int) Math.ceil(width / regionSize));
+		rows = Math.max(1, (int) Math.ceil(height / regionSize));
+		regions = new Bot[columns * rows][];
+		sizes = new int[regions.length];
+		occupied = new int[regions.length];
+		occupiedSlots = new int[regions.length];
+		Arrays.fill(occupiedSlots, -1);
+	}
+
+	/**
+	 * Adds a {@link Bot} to the region that it's in.
+	 *
+	 * @param bot
+	 *            The {@link Bot} to add.
+	 */
+	void add(final Bot bot) {
+		insert(bot, regionOf(bot));
+	}
+
+	/**
+	 * Removes a {@link Bot} from its region. Nothing happens if the
+	 * {@link Bot} is not in one.
+	 *
+	 * @param bot
+	 *            The {@link Bot} to remove.
+	 */
+	void remove(final Bot bot) {
+		if (((Object) bot).region >= 0)
+			delete(bot);
+	}
+
+	/**
+	 * Hands a {@link Bot} off to the region of its current position, if it has
+	 * left its region. This must be called after a {@link Bot} in a region has
+	 * moved.
+	 *
+	 * @param bot
+	 *            The {@link Bot} that moved.
+	 */
+	void update(final Bot bot) {
+		final Object o = bot;
+		if (o.region < 0)
+			return;
+		final int region = regionOf(bot);
+		if (region == o.region)
+			return;
+		delete(bot);
+		insert(bot, region);
+		handoffs++;
+	}
+
+	/**
+	 * <p>
+	 * {@link Bot#update(long) Updates} every living {@link Bot} in every
+	 * region on a {@link ForkJoinPool}, and waits for them all to finish.
+	 * Nothing may be added, removed or moved until this returns.
+	 *
+	 * @param pool
+	 *            The {@link ForkJoinPool} to update on.
+	 * @param batchSize
+	 *            The most {@link Bot}s that a single task updates. Regions
+	 *            with more {@link Bot}s than this are split up.
+	 * @param delta
+	 *            The amount of time that the tick simulates, in nanoseconds.
+	 */
+	void update(final ForkJoinPool pool, final int batchSize, final long delta) {
+		if (occupiedCount > 0)
+			pool.invoke(new ShardTask(0, occupiedCount, 0, 0, batchSize, delta));
+	}
+
+	/**
+	 * A getter for the amount of regions that have a {@link Bot} in them.
+	 *
+	 * @return The amount of occupied regions.
+	 */
+	int getOccupiedRegions() {
+		return occupiedCount;
+	}
+
+	/**
+	 * Gets {@link #handoffs} and starts counting again from zero. This is
+	 * called by the {@link World} once a tick, for its {@link TickMetrics}.
+	 *
+	 * @return The amount of times that a {@link Bot} has moved from one
+	 *         region to another since this was last called.
+	 */
+	long takeHandoffs() {
+		final long handoffs = this.handoffs;
+		this.handoffs = 0;
+		return handoffs;
+	}
+
+	private void insert(final Bot bot, final int region) {
+		Bot[] list = regions[region];
+		final int size = sizes[region];
+		if (list == null)
+			regions[region] = list = new Bot[16];
+		else if (size == list.length)
+			regions[region] = list = Arrays.copyOf(list, size * 2);
+		if (size == 0) {
+			occupiedSlots[region] = occupiedCount;
+			occupied[occupiedCount++] = region;
+		}
+		final Object o = bot;
+		o.region = region;
+		o.regionSlot = size;
+		list[size] = bot;
+		sizes[region] = size + 1;
+	}
+
+	/**
+	 * Removes a {@link Bot} by moving the last {@link Bot} of its region into
+	 * its slot.
+	 */
+	private void delete(final Bot bot) {
+		final Object o = bot;
+		final Bot[] list = regions[o.region];
+		final int size = --sizes[o.region];
+		final Bot last = list[size];
+		list[size] = null;
+		if (last != bot) {
+			list[o.regionSlot] = last;
+			((Object) last).regionSlot = o.regionSlot;
+		}
+		if (size == 0) {
+			final int slot = occupiedSlots[o.region], moved = occupied[--occupiedCount];
+			occupied[slot] = moved;
+			occupiedSlots[moved] = slot;
+			occupiedSlots[o.region] = -1;
+		}
+		o.region = o.regionSlot = -1;
+	}
+
+	private int regionOf(final Bot bot) {
+		int col = (int) Math.floor(bot.getPosX() / regionSize), row = (int) Math.floor(bot.getPosY() / regionSize);
+		col = col < 0 ? 0 : col >= columns ? columns - 1 : col;
+		row = row < 0 ? 0 : row >= rows ? rows - 1 : row;
+		return row * columns + col;
+	}
+
+	/**
+	 * <p>
+	 * Updates the {@link Bot}s of a range of the occupied regions, splitting
+	 * itself in half until it has a single region, and then splitting that
+	 * region's {@link Bot}s in half until there are few enough for a single
+	 * thread.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	private final class ShardTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * The range of {@link #occupied} to update, and, once that's a single
+		 * region, the range of its {@link Bot}s. An empty range of
+		 * {@link Bot}s means all of them.
+		 */
+		private final int from, to, botsFrom, botsTo, batchSize;
+		private final long delta;
+
+		private ShardTask(final int from, final int to, final int botsFrom, final int botsTo, final int batchSize,
+				final long delta) {
+			this.from = from;
+			this.to = to;
+			this.botsFrom = botsFrom;
+			this.botsTo = botsTo;
+			this.batchSize = batchSize;
+			this.delta = delta;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int middle = (from + to) >>> 1;
+				ForkJoinTask.invokeAll(new ShardTask(from, middle, 0, 0, batchSize, delta),
+						new ShardTask(middle, to, 0, 0, batchSize, delta));
+				return;
+			}
+			final int region = occupied[from];
+			final int start = botsFrom, end = botsTo == 0 ? sizes[region] : botsTo;
+			if (end - start > batchSize) {
+				final int middle = (start + end) >>> 1;
+				ForkJoinTask.invokeAll(new ShardTask(from, to, start, middle, batchSize, delta),
+						new ShardTask(from, to, middle, end, batchSize, delta));
+				return;
+			}
+			final Bot[] bots = regions[region];
+			for (int i = start; i < end; i++)
+				if (bots[i].isAlive())
+					bots[i].update(delta);
+		}
+	}
+
+}
@@ -0,0 +1,71 @@
+package zeale.evolution;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * A triple buffer of {@link RenderSnapshot}s, shared by one thread that fills
+ * them and one thread that draws them.
+ * <p>
+ * The filling thread always owns one snapshot (the <i>back</i> snapshot) and
+ * the drawing thread always owns another (the <i>front</i> snapshot). The
+ * third is the latest one that was published. Publishing and taking a
+ * snapshot are each a single atomic swap with that third snapshot, so neither
+ * thread ever blocks the other: the filling thread can publish as often as it
+ * likes, and the drawing thread always draws the newest complete snapshot
+ * (or the same one again, if nothing new was published).
+ *
+ * @author Zeale
+ *
+ */
+public final class RenderBuffer {
+
+	/**
+	 * The latest snapshot that was published.
+	 */
+	private final AtomicReference<RenderSnapshot> ready = new AtomicReference<>(new RenderSnapshot());
+
+	/**
+	 * The snapshots owned by the filling and drawing threads.
+	 */
+	private RenderSnapshot back = new RenderSnapshot(), front = new RenderSnapshot();
+
+	/**
+	 * <p>
+	 * Gets the snapshot to fill. This must only be called by the filling
+	 * thread. The snapshot is cleared before it is returned.
+	 *
+	 * @return The back snapshot.
+	 */
+	public RenderSnapshot getBack() {
+		back.clear();
+		return back;
+	}
+
+	/**
+	 * Publishes the back snapshot, so that the drawing thread takes it the
+	 * next time it calls {@link #getFront()}. This must only be called by the
+	 * filling thread.
+	 */
+	public void publish() {
+		back.fresh = true;
+		back = ready.getAndSet(back);
+	}
+
+	/**
+	 * <p>
+	 * Gets the snapshot to draw. This must only be called by the drawing
+	 * thread. If a snapshot was published since the last call, it is taken;
+	 * otherwise, the same snapshot as last time is returned.
+	 *
+	 * @return The front snapshot.
+	 */
+	public RenderSnapshot getFront() {
+		if (ready.get().fresh) {
+			front = ready.getAndSet(front);
+			front.fresh = false;
+		}
+		return front;
+	}
+
+}
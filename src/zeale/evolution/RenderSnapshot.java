@@ -0,0 +1,130 @@
+package zeale.evolution;
+
+import java.util.Arrays;
+
+/**
+ * <p>
+ * A picture of a {@link World} at a single point in time, made of nothing but
+ * primitive arrays. Every {@link Object} {@link Object#render(RenderSnapshot)
+ * renders} itself into a snapshot as a list of <i>sprites</i> (filled
+ * rectangles) and <i>labels</i> (numbers), in world coordinates.
+ * <p>
+ * Snapshots are filled on the thread that ticks the {@link World}, then handed
+ * to the thread that draws them through a {@link RenderBuffer}. Since the
+ * drawing thread only ever reads a snapshot, it never touches the
+ * {@link World} itself, and the two threads never have to wait for each
+ * other.
+ *
+ * @author Zeale
+ *
+ */
+public final class RenderSnapshot {
+
+	/**
+	 * The sprites in this snapshot: their positions and sizes in world
+	 * coordinates, and their colors as ARGB values.
+	 */
+	int[] spriteX = new int[64], spriteY = new int[64], spriteWidth = new int[64], spriteHeight = new int[64],
+			spriteColor = new int[64];
+	int spriteCount;
+
+	/**
+	 * The labels in this snapshot: the numbers they show, their positions in
+	 * world coordinates (the baseline of the text) and their colors.
+	 */
+	int[] labelValue = new int[16], labelX = new int[16], labelY = new int[16], labelColor = new int[16];
+	int labelCount;
+
+	/**
+	 * Whether or not this snapshot has been published, but not yet taken by the
+	 * drawing thread. See {@link RenderBuffer}.
+	 */
+	volatile boolean fresh;
+
+	/**
+	 * Adds a sprite to this snapshot.
+	 *
+	 * @param x
+	 *            The x position of the sprite's top left corner.
+	 * @param y
+	 *            The y position of the sprite's top left corner.
+	 * @param width
+	 *            The width of the sprite.
+	 * @param height
+	 *            The height of the sprite.
+	 * @param color
+	 *            The color of the sprite, as an ARGB value. (See
+	 *            {@link java.awt.Color#getRGB()}.)
+	 */
+	public void sprite(final int x, final int y, final int width, final int height, final int color) {
+		if (spriteCount == spriteX.length) {
+			final int capacity = spriteCount * 2;
+			spriteX = Arrays.copyOf(spriteX, capacity);
+			spriteY = Arrays.copyOf(spriteY, capacity);
+			spriteWidth = Arrays.copyOf(spriteWidth, capacity);
+			spriteHeight = Arrays.copyOf(spriteHeight, capacity);
+			spriteColor = Arrays.copyOf(spriteColor, capacity);
+		}
+		final int i = spriteCount++;
+		spriteX[i] = x;
+		spriteY[i] = y;
+		spriteWidth[i] = width;
+		spriteHeight[i] = height;
+		spriteColor[i] = color;
+	}
+
+	/**
+	 * Adds a label to this snapshot.
+	 *
+	 * @param value
+	 *            The number that the label shows.
+	 * @param x
+	 *            The x position of the label.
+	 * @param y
+	 *            The y position of the label's baseline.
+	 * @param color
+	 *            The color of the label, as an ARGB value.
+	 */
+	public void label(final int value, final int x, final int y, final int color) {
+		if (labelCount == labelValue.length) {
+			final int capacity = labelCount * 2;
+			labelValue = Arrays.copyOf(labelValue, capacity);
+			labelX = Arrays.copyOf(labelX, capacity);
+			labelY = Arrays.copyOf(labelY, capacity);
+			labelColor = Arrays.copyOf(labelColor, capacity);
+		}
+		final int i = labelCount++;
+		labelValue[i] = value;
+		labelX[i] = x;
+		labelY[i] = y;
+		labelColor[i] = color;
+	}
+
+	/**
+	 * Empties this snapshot so that it can be filled again. The arrays are
+	 * kept, so a snapshot stops allocating once it's big enough.
+	 */
+	public void clear() {
+		spriteCount = 0;
+		labelCount = 0;
+	}
+
+	/**
+	 * A getter for the amount of sprites in this snapshot.
+	 *
+	 * @return The amount of sprites.
+	 */
+	public int getSpriteCount() {
+		return spriteCount;
+	}
+
+	/**
+	 * A getter for the amount of labels in this snapshot.
+	 *
+	 * @return The amount of labels.
+	 */
+	public int getLabelCount() {
+		return labelCount;
+	}
+
+}
@@ -0,0 +1,429 @@
+package zeale.evolution;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.Structure;
+
+/**
+ * <p>
+ * Plays back an {@link EventLog}. A {@link Replay} runs its {@link World}
+ * headless, with nothing drawn, as fast as the CPU allows, and can
+ * {@link #seek(long) jump} to any tick that was recorded by starting from the
+ * keyframe before it.
+ * <p>
+ * While it runs, a {@link Replay} listens to its {@link World} and checks
+ * that every {@link Object} that is added or killed, and every
+ * {@link Structure} that is activated, is exactly what was recorded. If
+ * anything isn't, the replay has <i>diverged</i> from the recording, and an
+ * {@link IllegalStateException} is thrown.
+ *
+ * @author Zeale
+ *
+ */
+public final class Replay implements World.Listener, Closeable {
+
+	/**
+	 * The directory of the log.
+	 */
+	private final Path directory;
+
+	private final FileChannel channel;
+	private final ChannelReader in;
+
+	/**
+	 * The seed from the log's header.
+	 */
+	private final long seed;
+
+	/**
+	 * The ticks of the keyframes, their tick lengths, and where the record
+	 * after each one starts in the log.
+	 */
+	private long[] keyframeTicks = new long[16], keyframeTickLengths = new long[16],
+			keyframePositions = new long[16];
+	private int keyframeCount;
+
+	/**
+	 * The last tick that can be replayed: the end of the log, or if it wasn't
+	 * closed, its last keyframe.
+	 */
+	private long lastTick;
+
+	/**
+	 * The {@link World} being replayed, or <code>null</code> before the first
+	 * {@link #seek(long)}.
+	 */
+	private World world;
+
+	/**
+	 * The camera and tick length as of the last record that was handled.
+	 */
+	private int cameraX, cameraY;
+	private double zoom = 1;
+	private long tickLength;
+
+	/**
+	 * The next record of the log, which hasn't been handled yet. Its
+	 * {@link #type} is <code>0</code> if there are no more. Camera records are
+	 * held in {@link #slot}, {@link #otherSlot} and {@link #x}, and tick
+	 * lengths in {@link #number}.
+	 */
+	private byte type, kind;
+	private long tick, number;
+	private double x, y;
+	private int slot, otherSlot;
+
+	/**
+	 * <p>
+	 * Opens an {@link EventLog} for replaying, and reads through it once to
+	 * find its keyframes.
+	 *
+	 * @param directory
+	 *            The directory of the {@link EventLog}.
+	 * @throws IOException
+	 *             If the log can't be read or isn't a valid log.
+	 */
+	public Replay(final Path directory) throws IOException {
+		this.directory = directory;
+		channel = FileChannel.open(directory.resolve(EventLog.EVENTS_FILE), StandardOpenOption.READ);
+		in = new ChannelReader(channel);
+		try {
+			in.require(28);
+			if (in.buffer.getInt() != EventLog.MAGIC)
+				throw new StreamCorruptedException("Not an event log: " + directory);
+			final short version = in.buffer.getShort();
+			if (version != EventLog.VERSION)
+				throw new StreamCorruptedException("Unsupported event log version: " + version);
+			// The flags, which are reserved.
+			in.buffer.getShort();
+			seed = in.buffer.getLong();
+			in.buffer.getInt();
+
+			tick = in.buffer.getLong();
+			for (next(); type != 0; next())
+				if (type == EventLog.KEYFRAME) {
+					if (keyframeCount == keyframeTicks.length) {
+						keyframeTicks = Arrays.copyOf(keyframeTicks, keyframeCount * 2);
+						keyframeTickLengths = Arrays.copyOf(keyframeTickLengths, keyframeCount * 2);
+						keyframePositions = Arrays.copyOf(keyframePositions, keyframeCount * 2);
+					}
+					keyframeTicks[keyframeCount] = lastTick = tick;
+					keyframeTickLengths[keyframeCount] = number;
+					keyframePositions[keyframeCount++] = in.position();
+				} else if (type == EventLog.END)
+					lastTick = tick;
+			if (keyframeCount == 0)
+				throw new StreamCorruptedException("The event log has no keyframes: " + directory);
+		} catch (final IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Replays the whole log, from its first keyframe to its end.
+	 *
+	 * @return The {@link World}, as it was at the end of the log.
+	 * @throws IOException
+	 *             If the log or the first keyframe can't be read.
+	 * @throws IllegalStateException
+	 *             If the replay diverges from the log.
+	 */
+	public World run() throws IOException {
+		seek(keyframeTicks[0]);
+		return advance(lastTick);
+	}
+
+	/**
+	 * <p>
+	 * Jumps to a tick, by loading the last keyframe at or before it and
+	 * replaying from there.
+	 *
+	 * @param tick
+	 *            The tick to jump to. This must be between the first keyframe
+	 *            and {@link #getLastTick()}.
+	 * @return The {@link World}, as it was at that tick.
+	 * @throws IOException
+	 *             If the log or the keyframe can't be read.
+	 * @throws IllegalStateException
+	 *             If the replay diverges from the log.
+	 */
+	public World seek(final long tick) throws IOException {
+		checkTick(tick);
+		int k = Arrays.binarySearch(keyframeTicks, 0, keyframeCount, tick);
+		if (k < 0)
+			k = -k - 2;
+		// Jumping backwards, or past the next keyframe, starts over from a
+		// keyframe. Otherwise it's quicker to keep going.
+		if (world == null || world.getTicks() > tick || world.getTicks() < keyframeTicks[k]) {
+			final SaveFile keyframe = SaveFile.read(directory.resolve(EventLog.keyframeName(keyframeTicks[k])));
+			world = keyframe.getWorld();
+			world.setListener(this);
+			cameraX = keyframe.getCameraX();
+			cameraY = keyframe.getCameraY();
+			zoom = keyframe.getZoom();
+			tickLength = keyframeTickLengths[k];
+			in.position(keyframePositions[k]);
+			this.tick = keyframeTicks[k];
+			next();
+		}
+		return advance(tick);
+	}
+
+	/**
+	 * <p>
+	 * Replays ticks, one after another, until the {@link World} has reached a
+	 * tick.
+	 *
+	 * @param tick
+	 *            The tick to stop at. This must be no earlier than the
+	 *            {@link World}'s current tick, and no later than
+	 *            {@link #getLastTick()}.
+	 * @return The {@link World}, as it was at that tick.
+	 * @throws IOException
+	 *             If the log can't be read.
+	 * @throws IllegalStateException
+	 *             If the replay diverges from the log.
+	 */
+	public World advance(final long tick) throws IOException {
+		if (world == null)
+			return seek(tick);
+		checkTick(tick);
+		if (tick < world.getTicks())
+			throw new IllegalArgumentException("Can't advance backwards from tick " + world.getTicks() + " to " + tick);
+		try {
+			while (world.getTicks() < tick) {
+				skipPassive(world.getTicks());
+				world.tick(tickLength);
+			}
+			skipPassive(tick);
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+		return world;
+	}
+
+	private void checkTick(final long tick) {
+		if (tick < keyframeTicks[0] || tick > lastTick)
+			throw new IllegalArgumentException(
+					"The log covers ticks " + keyframeTicks[0] + " to " + lastTick + ", not " + tick);
+	}
+
+	/**
+	 * Handles every camera, tick length and keyframe record up to a tick.
+	 *
+	 * @throws IllegalStateException
+	 *             If an event from before that tick hasn't happened.
+	 */
+	private void skipPassive(final long tick) {
+		try {
+			while (type != 0 && this.tick <= tick) {
+				switch (type) {
+				case EventLog.CAMERA:
+					cameraX = slot;
+					cameraY = otherSlot;
+					zoom = x;
+					break;
+				case EventLog.TICK_LENGTH:
+				case EventLog.KEYFRAME:
+					tickLength = number;
+					break;
+				case EventLog.END:
+					break;
+				default:
+					if (this.tick < tick)
+						throw diverged("it didn't happen");
+					return;
+				}
+				next();
+			}
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Checks that the next event in the log is of a type, skipping past any
+	 * camera, tick length and keyframe records before it.
+	 */
+	private void expect(final byte type) {
+		skipPassive(world.getTicks());
+		if (this.type != type || tick != world.getTicks())
+			throw diverged("the log has a different event");
+	}
+
+	private IllegalStateException diverged(final String reason) {
+		return new IllegalStateException("The replay diverged from the log at tick " + world.getTicks() + ": " + reason
+				+ " (the next event in the log is of type " + type + ", at tick " + tick + ").");
+	}
+
+	@Override
+	public void added(final Object object) {
+		expect(EventLog.ADDED);
+		if (kind != EventLog.kind(object) || x != object.getPosX() || y != object.getPosY())
+			throw diverged("a different object was added");
+		consume();
+	}
+
+	@Override
+	public void killed(final Object object) {
+		expect(EventLog.KILLED);
+		if (kind != EventLog.kind(object) || slot != object.listSlot)
+			throw diverged("a different object was killed");
+		consume();
+	}
+
+	@Override
+	public void activated(final Bot bot, final Structure structure) {
+		expect(EventLog.ACTIVATED);
+		if (slot != ((Object) bot).listSlot || otherSlot != ((Object) structure).listSlot)
+			throw diverged("a different structure was activated");
+		consume();
+	}
+
+	private void consume() {
+		try {
+			next();
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads the next record of the log. A record that was cut off counts as
+	 * the end of the log.
+	 */
+	private void next() throws IOException {
+		try {
+			if (!in.hasRemaining()) {
+				type = 0;
+				return;
+			}
+			in.require(1);
+			final byte type = in.buffer.get();
+			final long tick = this.tick + in.getVarLong();
+			switch (type) {
+			case EventLog.ADDED:
+				in.require(17);
+				kind = in.buffer.get();
+				x = in.buffer.getDouble();
+				y = in.buffer.getDouble();
+				break;
+			case EventLog.KILLED:
+				in.require(5);
+				kind = in.buffer.get();
+				slot = in.buffer.getInt();
+				break;
+			case EventLog.ACTIVATED:
+				in.require(8);
+				slot = in.buffer.getInt();
+				otherSlot = in.buffer.getInt();
+				break;
+			case EventLog.CAMERA:
+				in.require(16);
+				slot = in.buffer.getInt();
+				otherSlot = in.buffer.getInt();
+				x = in.buffer.getDouble();
+				break;
+			case EventLog.TICK_LENGTH:
+			case EventLog.KEYFRAME:
+				number = in.getVarLong();
+				break;
+			case EventLog.END:
+				break;
+			default:
+				throw new StreamCorruptedException("Unknown event type: " + type);
+			}
+			this.type = type;
+			this.tick = tick;
+		} catch (final EOFException e) {
+			type = 0;
+		}
+	}
+
+	/**
+	 * Closes the log.
+	 *
+	 * @throws IOException
+	 *             If the log can't be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * A getter for the {@link World} being replayed.
+	 *
+	 * @return The {@link World}, or <code>null</code> if nothing has been
+	 *         replayed yet.
+	 */
+	public World getWorld() {
+		return world;
+	}
+
+	/**
+	 * A getter for the seed of the recorded {@link World}.
+	 *
+	 * @return The seed of the {@link World}.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * A getter for the first tick that can be replayed.
+	 *
+	 * @return The tick of the first keyframe.
+	 */
+	public long getFirstTick() {
+		return keyframeTicks[0];
+	}
+
+	/**
+	 * A getter for {@link #lastTick}.
+	 *
+	 * @return The last tick that can be replayed.
+	 */
+	public long getLastTick() {
+		return lastTick;
+	}
+
+	/**
+	 * A getter for the x position of the camera at the current tick.
+	 *
+	 * @return The camera's x position.
+	 */
+	public int getCameraX() {
+		return cameraX;
+	}
+
+	/**
+	 * A getter for the y position of the camera at the current tick.
+	 *
+	 * @return The camera's y position.
+	 */
+	public int getCameraY() {
+		return cameraY;
+	}
+
+	/**
+	 * A getter for the zoom of the camera at the current tick.
+	 *
+	 * @return The camera's zoom.
+	 */
+	public double getZoom() {
+		return zoom;
+	}
+
+}
@@ -0,0 +1,191 @@
+package zeale.evolution;
+
+/**
+ * <p>
+ * A small, fast, splittable random number generator (SplitMix64, the
+ * algorithm behind {@link java.util.SplittableRandom}).
+ * <p>
+ * Unlike {@link java.util.Random}, an {@link Rng} isn't thread safe and never
+ * synchronizes, so each thread or {@link Object} should have its own. New,
+ * statistically independent generators are made with {@link #split()}, so a
+ * whole game's worth of generators can be derived from a single seed, and the
+ * game plays out the same way every time it's run with that seed.
+ * <p>
+ * The state of an {@link Rng} is just two <code>long</code>s, which can be
+ * read and restored (see {@link #getState()}, {@link #getGamma()} and
+ * {@link #setState(long, long)}), such as for saving the game.
+ *
+ * @author Zeale
+ *
+ */
+public final class Rng {
+
+	/**
+	 * The gamma of generators made straight from a seed.
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The state of this generator, which is advanced by {@link #gamma} for
+	 * every number generated. The gamma is always odd.
+	 */
+	private long state, gamma;
+
+	/**
+	 * Constructs a new {@link Rng} from a seed. {@link Rng}s made from the same
+	 * seed generate the same numbers.
+	 *
+	 * @param seed
+	 *            The seed.
+	 */
+	public Rng(final long seed) {
+		this(seed, Rng.GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Constructs a new {@link Rng} with the given state.
+	 *
+	 * @param state
+	 *            The state, as returned by {@link #getState()}.
+	 * @param gamma
+	 *            The gamma, as returned by {@link #getGamma()}.
+	 */
+	public Rng(final long state, final long gamma) {
+		setState(state, gamma);
+	}
+
+	/**
+	 * <p>
+	 * Splits off a new {@link Rng} from this one. The new {@link Rng} generates
+	 * numbers that are independent from this one's, and splitting the same
+	 * {@link Rng} in the same state always gives the same new {@link Rng}.
+	 *
+	 * @return The new {@link Rng}.
+	 */
+	public Rng split() {
+		return new Rng(nextLong(), Rng.mixGamma(nextState()));
+	}
+
+	/**
+	 * Generates a random <code>long</code>.
+	 *
+	 * @return The random <code>long</code>.
+	 */
+	public long nextLong() {
+		return Rng.mix64(nextState());
+	}
+
+	/**
+	 * Generates a random <code>int</code>.
+	 *
+	 * @return The random <code>int</code>.
+	 */
+	public int nextInt() {
+		return Rng.mix32(nextState());
+	}
+
+	/**
+	 * Generates a random <code>int</code> from <code>0</code> (inclusive) to
+	 * <code>bound</code> (exclusive), with every value equally likely.
+	 *
+	 * @param bound
+	 *            The bound. This must be positive.
+	 * @return The random <code>int</code>.
+	 */
+	public int nextInt(final int bound) {
+		if (bound <= 0)
+			throw new IllegalArgumentException("The bound must be positive: " + bound);
+		int r = Rng.mix32(nextState());
+		final int m = bound - 1;
+		if ((bound & m) == 0)
+			return r & m;
+		// Reject the values that would make some results more likely.
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = Rng.mix32(nextState()) >>> 1)
+			;
+		return r;
+	}
+
+	/**
+	 * Generates a random <code>double</code> from <code>0</code> (inclusive)
+	 * to <code>1</code> (exclusive).
+	 *
+	 * @return The random <code>double</code>.
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * Generates a random <code>boolean</code>.
+	 *
+	 * @return The random <code>boolean</code>.
+	 */
+	public boolean nextBoolean() {
+		return Rng.mix32(nextState()) < 0;
+	}
+
+	/**
+	 * A getter for {@link #state}.
+	 *
+	 * @return The state of this {@link Rng}.
+	 */
+	public long getState() {
+		return state;
+	}
+
+	/**
+	 * A getter for {@link #gamma}.
+	 *
+	 * @return The gamma of this {@link Rng}.
+	 */
+	public long getGamma() {
+		return gamma;
+	}
+
+	/**
+	 * Restores the state of this {@link Rng}.
+	 *
+	 * @param state
+	 *            The state, as returned by {@link #getState()}.
+	 * @param gamma
+	 *            The gamma, as returned by {@link #getGamma()}. It is made odd
+	 *            if it isn't.
+	 */
+	public void setState(final long state, final long gamma) {
+		this.state = state;
+		this.gamma = gamma | 1;
+	}
+
+	/**
+	 * Makes a seed that is different every time, for when no seed is given.
+	 *
+	 * @return A new seed.
+	 */
+	public static long randomSeed() {
+		return Rng.mix64(System.currentTimeMillis()) ^ Rng.mix64(System.nanoTime());
+	}
+
+	private long nextState() {
+		return state += gamma;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ z >>> 30) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ z >>> 27) * 0x94d049bb133111ebL;
+		return z ^ z >>> 31;
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ z >>> 33) * 0x62a9d9ed799705f5L;
+		return (int) ((z ^ z >>> 28) * 0xcb24d0a5c88c35b3L >>> 32);
+	}
+
+	private static long mixGamma(long z) {
+		z = (z ^ z >>> 33) * 0xff51afd7ed558ccdL;
+		z = (z ^ z >>> 33) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ z >>> 33) | 1L;
+		// Gammas with too few bit transitions generate poor numbers.
+		return Long.bitCount(z ^ z >>> 1) < 24 ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+}
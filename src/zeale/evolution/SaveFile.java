@@ -0,0 +1,405 @@
+package zeale.evolution;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import zeale.evolution.bots.Bot;
+import zeale.evolution.resources.Resource;
+import zeale.evolution.resources.ResourceBag;
+import zeale.evolution.resources.ResourceInventory;
+import zeale.evolution.structures.Spawnpoint;
+import zeale.evolution.structures.Structure;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * A saved game: a {@link World}, along with the camera that was looking at
+ * it. {@link SaveFile}s are written to and read from disk in a compact binary
+ * format, through a {@link FileChannel} and a single direct buffer, so even
+ * worlds with millions of {@link Object}s are saved and loaded in seconds.
+ * <p>
+ * The format is little endian, and laid out as:
+ * <ol>
+ * <li>A header: the magic number {@link #MAGIC}, the format
+ * {@link #VERSION} (a <code>short</code>), a <code>short</code> of flags
+ * (always <code>0</code> for now), then the width and height of the
+ * {@link World} and the amount of ticks it has run (a <code>long</code>, from
+ * version <code>3</code> on).</li>
+ * <li>The camera: its x and y position (<code>int</code>s) and its zoom (a
+ * <code>double</code>).</li>
+ * <li>The random state: an <code>int</code> length, followed by that many
+ * bytes. These are the {@link World}'s seed, and the state and gamma of its
+ * {@link Rng} (three <code>long</code>s). (Version <code>1</code> files have
+ * no random state, and no {@link Rng}s in their records.)</li>
+ * <li>The {@link EntityIds ID} table, from version <code>4</code> on: an
+ * <code>int</code> count of slots, followed by the generation of each slot
+ * (<code>int</code>s), then an <code>int</code> count of free slots, followed
+ * by their indices (<code>int</code>s), from the first freed to the
+ * last.</li>
+ * <li>The {@link Structure}s: an <code>int</code> count, followed by that
+ * many records.</li>
+ * <li>The {@link Bot}s: an <code>int</code> count, followed by that many
+ * records.</li>
+ * </ol>
+ * Every record starts with a type byte, the position of the {@link Object}
+ * (two <code>double</code>s), the state and gamma of its {@link Rng} (two
+ * <code>long</code>s) and its ID (a <code>long</code>, from version
+ * <code>4</code> on), followed by whatever that type holds. A {@link Bot}'s
+ * record holds the ID of its target, so relationships between
+ * {@link Object}s survive being saved. Resources are saved packed (see
+ * {@link Resource#pack(int, int)}).
+ *
+ * @author Zeale
+ *
+ */
+public final class SaveFile {
+
+	/**
+	 * The first four bytes of every save file: <code>EVOL</code>.
+	 */
+	public static final int MAGIC = 0x45564F4C;
+
+	/**
+	 * The version of the format that this class writes.
+	 */
+	public static final short VERSION = 4;
+
+	/**
+	 * The type bytes of the records.
+	 */
+	private static final byte TYPE_BOT = 1, TYPE_SPAWNPOINT = 2, TYPE_RESOURCE_SPAWNER = 3;
+
+	/**
+	 * The size of the start of every record: the type, the position, the
+	 * {@link Rng} and the ID.
+	 */
+	private static final int RECORD_HEADER_SIZE = 1 + 16 + 16 + 8;
+
+	/**
+	 * The saved {@link World}.
+	 */
+	private final World world;
+
+	/**
+	 * The saved camera.
+	 */
+	private final int cameraX, cameraY;
+	private final double zoom;
+
+	/**
+	 * Constructs a new {@link SaveFile}.
+	 *
+	 * @param world
+	 *            The {@link World} to save.
+	 * @param cameraX
+	 *            The x position of the camera.
+	 * @param cameraY
+	 *            The y position of the camera.
+	 * @param zoom
+	 *            The zoom of the camera.
+	 */
+	public SaveFile(final World world, final int cameraX, final int cameraY, final double zoom) {
+		this.world = world;
+		this.cameraX = cameraX;
+		this.cameraY = cameraY;
+		this.zoom = zoom;
+	}
+
+	/**
+	 * <p>
+	 * Writes this {@link SaveFile} to disk, replacing whatever file is there.
+	 * <p>
+	 * The {@link World} must not be ticked while it's being written, so this
+	 * should be called on the thread that ticks it, between ticks.
+	 *
+	 * @param path
+	 *            The file to write to.
+	 * @throws IOException
+	 *             If the file can't be written, or if the {@link World} holds
+	 *             an {@link Object} of a type that can't be saved.
+	 */
+	public void write(final Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			final ChannelWriter out = new ChannelWriter(channel);
+			out.ensure(16 + 8 + 16);
+			out.buffer.putInt(SaveFile.MAGIC).putShort(SaveFile.VERSION).putShort((short) 0);
+			out.buffer.putInt(world.getWidth()).putInt(world.getHeight()).putLong(world.getTicks());
+			out.buffer.putInt(cameraX).putInt(cameraY).putDouble(zoom);
+
+			final Rng random = world.getRandom();
+			out.ensure(4 + 24);
+			out.buffer.putInt(24).putLong(world.getSeed()).putLong(random.getState()).putLong(random.getGamma());
+
+			final EntityIds ids = world.getIds();
+			SaveFile.writeInts(out, ids.getGenerations());
+			SaveFile.writeInts(out, ids.getFree());
+
+			final EntityList<Structure> structures = world.getStructures();
+			out.ensure(4);
+			out.buffer.putInt(structures.size());
+			for (int i = 0; i < structures.extent(); i++) {
+				final Structure s = structures.get(i);
+				if (s != null)
+					writeStructure(out, s);
+			}
+
+			final EntityList<Bot> bots = world.getBots();
+			out.ensure(4);
+			out.buffer.putInt(bots.size());
+			for (int i = 0; i < bots.extent(); i++) {
+				final Bot b = bots.get(i);
+				if (b != null)
+					writeBot(out, b);
+			}
+			out.flush();
+		}
+	}
+
+	private static void writeStructure(final ChannelWriter out, final Structure structure) throws IOException {
+		if (structure.getClass() == Spawnpoint.class) {
+			SaveFile.writeHeader(out, SaveFile.TYPE_SPAWNPOINT, structure);
+			SaveFile.writeInventory(out, ((Spawnpoint) structure).getResources());
+		} else if (structure.getClass() == ResourceSpawner.class) {
+			SaveFile.writeHeader(out, SaveFile.TYPE_RESOURCE_SPAWNER, structure);
+			final ResourceBag resources = ((ResourceSpawner) structure).getResources();
+			out.ensure(8);
+			out.buffer.putInt(resources.getCapacity()).putInt(resources.size());
+			for (int i = 0; i < resources.size(); i++) {
+				out.ensure(4);
+				out.buffer.putInt(resources.get(i));
+			}
+		} else
+			throw new IOException("Structures of this type can't be saved: " + structure.getClass().getName());
+	}
+
+	private static void writeBot(final ChannelWriter out, final Bot bot) throws IOException {
+		if (bot.getClass() != Bot.class)
+			throw new IOException("Bots of this type can't be saved: " + bot.getClass().getName());
+		SaveFile.writeHeader(out, SaveFile.TYPE_BOT, bot);
+		out.ensure(28);
+		out.buffer.putDouble(bot.getLife()).putDouble(bot.getWaitTime()).putShort(bot.getSpeed())
+				.putShort(bot.getMaxResources()).putLong(bot.getTarget());
+		SaveFile.writeInventory(out, bot.getResources());
+	}
+
+	private static void writeHeader(final ChannelWriter out, final byte type, final Object object) throws IOException {
+		final Rng random = object.getRandom();
+		out.ensure(SaveFile.RECORD_HEADER_SIZE);
+		out.buffer.put(type).putDouble(object.getPosX()).putDouble(object.getPosY()).putLong(random.getState())
+				.putLong(random.getGamma()).putLong(object.getId());
+	}
+
+	private static void writeInts(final ChannelWriter out, final int[] ints) throws IOException {
+		out.ensure(4);
+		out.buffer.putInt(ints.length);
+		for (final int i : ints) {
+			out.ensure(4);
+			out.buffer.putInt(i);
+		}
+	}
+
+	private static void writeInventory(final ChannelWriter out, final ResourceInventory inventory) throws IOException {
+		out.ensure(4);
+		out.buffer.putInt(inventory.size());
+		for (int i = 0; i < inventory.size(); i++) {
+			out.ensure(4);
+			out.buffer.putInt(inventory.get(i));
+		}
+	}
+
+	/**
+	 * <p>
+	 * Reads a {@link SaveFile} from disk. The {@link World} that is read is
+	 * new, and doesn't share anything with any other {@link World}.
+	 *
+	 * @param path
+	 *            The file to read.
+	 * @return The {@link SaveFile} that was read.
+	 * @throws IOException
+	 *             If the file can't be read or isn't a valid save file of a
+	 *             version that this class can read.
+	 */
+	public static SaveFile read(final Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			final ChannelReader in = new ChannelReader(channel);
+			in.require(16 + 16);
+			if (in.buffer.getInt() != SaveFile.MAGIC)
+				throw new StreamCorruptedException("Not a save file: " + path);
+			final short version = in.buffer.getShort();
+			if (version < 1 || version > SaveFile.VERSION)
+				throw new StreamCorruptedException("Unsupported save file version: " + version);
+			in.buffer.getShort();
+			final int width = in.buffer.getInt(), height = in.buffer.getInt();
+			long ticks = 0;
+			if (version >= 3) {
+				ticks = in.buffer.getLong();
+				in.require(16);
+			}
+			final int cameraX = in.buffer.getInt(), cameraY = in.buffer.getInt();
+			final double zoom = in.buffer.getDouble();
+
+			final World world;
+			in.require(4);
+			final int randomLength = in.buffer.getInt();
+			if (randomLength >= 24) {
+				in.require(24);
+				world = new World(width, height, false, in.buffer.getLong());
+				world.getRandom().setState(in.buffer.getLong(), in.buffer.getLong());
+				in.skip(randomLength - 24);
+			} else {
+				world = new World(width, height, false);
+				in.skip(randomLength);
+			}
+
+			final EntityIds ids = version >= 4 ? world.getIds() : null;
+			if (ids != null)
+				try {
+					ids.restore(SaveFile.readInts(in), SaveFile.readInts(in));
+				} catch (final IllegalArgumentException e) {
+					throw new StreamCorruptedException(e.getMessage());
+				}
+
+			in.require(4);
+			for (int i = in.buffer.getInt(); i > 0; i--)
+				world.addStruct(SaveFile.readStructure(in, version, ids));
+			in.require(4);
+			for (int i = in.buffer.getInt(); i > 0; i--)
+				world.addBot(SaveFile.readBot(in, version, ids));
+			world.flush();
+			world.setTicks(ticks);
+
+			return new SaveFile(world, cameraX, cameraY, zoom);
+		}
+	}
+
+	private static Structure readStructure(final ChannelReader in, final short version, final EntityIds ids)
+			throws IOException {
+		in.require(SaveFile.recordHeaderSize(version));
+		final byte type = in.buffer.get();
+		final double x = in.buffer.getDouble(), y = in.buffer.getDouble();
+		final Rng random = version >= 2 ? new Rng(in.buffer.getLong(), in.buffer.getLong()) : null;
+		final long id = ids != null ? in.buffer.getLong() : EntityIds.NONE;
+		final Structure structure;
+		switch (type) {
+		case TYPE_SPAWNPOINT:
+			final Spawnpoint spawnpoint = new Spawnpoint(x, y);
+			SaveFile.readInventory(in, spawnpoint.getResources());
+			structure = spawnpoint;
+			break;
+		case TYPE_RESOURCE_SPAWNER:
+			in.require(8);
+			final ResourceBag resources = new ResourceBag(in.buffer.getInt());
+			for (int i = in.buffer.getInt(); i > 0; i--) {
+				in.require(4);
+				resources.add(in.buffer.getInt());
+			}
+			structure = new ResourceSpawner(x, y, resources);
+			break;
+		default:
+			throw new StreamCorruptedException("Unknown structure type: " + type);
+		}
+		((Object) structure).random = random;
+		SaveFile.putId(ids, structure, id);
+		return structure;
+	}
+
+	private static Bot readBot(final ChannelReader in, final short version, final EntityIds ids)
+			throws IOException {
+		in.require(SaveFile.recordHeaderSize(version) + 20 + (ids != null ? 8 : 0));
+		final byte type = in.buffer.get();
+		if (type != SaveFile.TYPE_BOT)
+			throw new StreamCorruptedException("Unknown bot type: " + type);
+		final double x = in.buffer.getDouble(), y = in.buffer.getDouble();
+		final Rng random = version >= 2 ? new Rng(in.buffer.getLong(), in.buffer.getLong()) : null;
+		final long id = ids != null ? in.buffer.getLong() : EntityIds.NONE;
+		final double life = in.buffer.getDouble(), waitTime = in.buffer.getDouble();
+		final short speed = in.buffer.getShort(), maxResources = in.buffer.getShort();
+		final Bot bot = new Bot(x, y, maxResources, speed);
+		((Object) bot).random = random;
+		bot.setLife(life);
+		bot.setWaitTime(waitTime);
+		if (ids != null)
+			bot.setTarget(in.buffer.getLong());
+		SaveFile.readInventory(in, bot.getResources());
+		SaveFile.putId(ids, bot, id);
+		return bot;
+	}
+
+	/**
+	 * Gets the size of the start of every record in a version of the format.
+	 */
+	private static int recordHeaderSize(final short version) {
+		return version >= 4 ? SaveFile.RECORD_HEADER_SIZE : version >= 2 ? SaveFile.RECORD_HEADER_SIZE - 8 : 17;
+	}
+
+	private static void putId(final EntityIds ids, final Object object, final long id) throws IOException {
+		if (ids != null)
+			try {
+				ids.put(object, id);
+			} catch (final IllegalArgumentException e) {
+				throw new StreamCorruptedException(e.getMessage());
+			}
+	}
+
+	private static int[] readInts(final ChannelReader in) throws IOException {
+		in.require(4);
+		final int length = in.buffer.getInt();
+		if (length < 0)
+			throw new StreamCorruptedException("Negative length: " + length);
+		final int[] ints = new int[length];
+		for (int i = 0; i < length; i++) {
+			in.require(4);
+			ints[i] = in.buffer.getInt();
+		}
+		return ints;
+	}
+
+	private static void readInventory(final ChannelReader in, final ResourceInventory inventory) throws IOException {
+		in.require(4);
+		for (int i = in.buffer.getInt(); i > 0; i--) {
+			in.require(4);
+			inventory.add(in.buffer.getInt());
+		}
+	}
+
+	/**
+	 * A getter for the saved {@link World}.
+	 *
+	 * @return The {@link World} of this {@link SaveFile}.
+	 */
+	public World getWorld() {
+		return world;
+	}
+
+	/**
+	 * A getter for the x position of the saved camera.
+	 *
+	 * @return The camera's x position.
+	 */
+	public int getCameraX() {
+		return cameraX;
+	}
+
+	/**
+	 * A getter for the y position of the saved camera.
+	 *
+	 * @return The camera's y position.
+	 */
+	public int getCameraY() {
+		return cameraY;
+	}
+
+	/**
+	 * A getter for the zoom of the saved camera.
+	 *
+	 * @return The camera's zoom.
+	 */
+	public double getZoom() {
+		return zoom;
+	}
+
+}
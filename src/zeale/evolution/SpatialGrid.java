@@ -0,0 +1,486 @@
+package zeale.evolution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * <p>
+ * A uniform grid that indexes {@link Object}s by their position so that
+ * proximity queries don't have to look at every {@link Object} in the game.
+ * <p>
+ * The grid covers an area of a fixed size, split into square cells.
+ * {@link Object}s are bucketed by their concrete class, then by the cell that
+ * they're in. Any {@link Object} that is outside of the grid's area is kept in
+ * the closest cell on the grid's edge, so nothing is ever lost.
+ * <p>
+ * The grid does not track {@link Object}s on its own. Every {@link Object}
+ * that is {@link #add(Object) added} must be {@link #update(Object) updated}
+ * when it moves and {@link #remove(Object) removed} when it dies.
+ *
+ * @author Zeale
+ *
+ * @param <E>
+ *            The type of {@link Object} that this grid holds.
+ */
+public final class SpatialGrid<E extends Object> {
+
+	/**
+	 * The size of the cells, in units.
+	 */
+	private final double cellSize;
+
+	/**
+	 * The amount of columns and rows of cells in this grid.
+	 */
+	private final int columns, rows;
+
+	/**
+	 * The {@link Layer}s of this grid, one for each concrete class that has
+	 * been {@link #add(Object) added}.
+	 */
+	private final HashMap<Class<?>, Layer> layers = new HashMap<>();
+
+	/**
+	 * <p>
+	 * Constructs a new {@link SpatialGrid} that covers the area from
+	 * <code>(0, 0)</code> to <code>(width, height)</code>.
+	 *
+	 * @param width
+	 *            The width of the area to cover.
+	 * @param height
+	 *            The height of the area to cover.
+	 * @param cellSize
+	 *            The size of each (square) cell. Cells should be roughly the
+	 *            size of the distance that is usually searched.
+	 */
+	public SpatialGrid(final int width, final int height, final double cellSize) {
+		if (cellSize <= 0)
+			throw new IllegalArgumentException("The cell size must be positive: " + cellSize);
+		this.cellSize = cellSize;
+		columns = Math.max(1, (int) Math.ceil(width / cellSize));
+		rows = Math.max(1, (int) Math.ceil(height / cellSize));
+	}
+
+	/**
+	 * Adds an {@link Object} to this grid.
+	 *
+	 * @param object
+	 *            The {@link Object} to add.
+	 */
+	public void add(final E object) {
+		Layer layer = layers.get(object.getClass());
+		if (layer == null)
+			layers.put(object.getClass(), layer = new Layer());
+		layer.insert(object, cellOf(object.getPosX(), object.getPosY()));
+	}
+
+	/**
+	 * Removes an {@link Object} from this grid. Nothing happens if the
+	 * {@link Object} is not in this grid.
+	 *
+	 * @param object
+	 *            The {@link Object} to remove.
+	 */
+	public void remove(final E object) {
+		if (object.gridCell < 0)
+			return;
+		final Layer layer = layers.get(object.getClass());
+		if (layer != null)
+			layer.delete(object);
+	}
+
+	/**
+	 * Moves an {@link Object} to the cell of its current position. This must
+	 * be called after an {@link Object} in this grid has moved.
+	 *
+	 * @param object
+	 *            The {@link Object} that moved.
+	 */
+	public void update(final E object) {
+		if (object.gridCell < 0)
+			return;
+		final int cell = cellOf(object.getPosX(), object.getPosY());
+		if (cell == object.gridCell)
+			return;
+		final Layer layer = layers.get(object.getClass());
+		layer.delete(object);
+		layer.insert(object, cell);
+	}
+
+	/**
+	 * <p>
+	 * Gets the closest {@link Object} of the given concrete class to the given
+	 * {@link Object}.
+	 *
+	 * @param object
+	 *            The {@link Object} to search around.
+	 * @param type
+	 *            The exact class of the {@link Object} to look for.
+	 * @return The closest {@link Object} of the given class, or
+	 *         <code>null</code> if there are none in this grid.
+	 */
+	public <T extends E> T nearest(final Object object, final Class<T> type) {
+		return nearest(object.getPosX(), object.getPosY(), type);
+	}
+
+	/**
+	 * <p>
+	 * Gets the closest {@link Object} of the given concrete class to the given
+	 * position.
+	 * <p>
+	 * The cells around the position are searched in growing rings, and the
+	 * search stops as soon as no ring further out can hold anything closer
+	 * than what has already been found.
+	 *
+	 * @param x
+	 *            The x position to search around.
+	 * @param y
+	 *            The y position to search around.
+	 * @param type
+	 *            The exact class of the {@link Object} to look for.
+	 * @return The closest {@link Object} of the given class, or
+	 *         <code>null</code> if there are none in this grid.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends E> T nearest(final double x, final double y, final Class<T> type) {
+		final Layer layer = layers.get(type);
+		if (layer == null || layer.size == 0)
+			return null;
+
+		final int col = column(x), row = row(y), maxRing = Math.max(columns, rows);
+		E closest = null;
+		int visited = 0;
+
+		search: for (int ring = 0; ring <= maxRing; ring++) {
+			for (int r = row - ring; r <= row + ring; r++) {
+				if (r < 0 || r >= rows)
+					continue;
+				// Only the edges of the ring are new. The inside was searched
+				// by the previous rings.
+				final int step = r == row - ring || r == row + ring ? 1 : Math.max(1, 2 * ring);
+				for (int c = col - ring; c <= col + ring; c += step) {
+					if (c < 0 || c >= columns)
+						continue;
+					// If the layer is sparse, looking at every occupied cell is
+					// cheaper than looking at all the empty ones around them.
+					if (++visited > layer.occupiedCount) {
+						closest = null;
+						for (int i = 0; i < layer.occupiedCount; i++)
+							closest = SpatialGrid.closestIn(layer.cells[layer.occupied[i]], x, y, closest);
+						break search;
+					}
+					final ArrayList<E> cell = layer.cells[r * columns + c];
+					if (cell != null)
+						closest = SpatialGrid.closestIn(cell, x, y, closest);
+				}
+			}
+
+			// Anything in the next ring is at least this far away.
+			final double bound = ring * cellSize;
+			if (closest != null && SpatialGrid.distanceSq(closest, x, y) <= bound * bound)
+				break;
+		}
+
+		return (T) closest;
+	}
+
+	/**
+	 * <p>
+	 * Gets the <code>k</code> closest {@link Object}s of the given concrete
+	 * class to the given {@link Object}, sorted from closest to farthest.
+	 *
+	 * @param object
+	 *            The {@link Object} to search around.
+	 * @param type
+	 *            The exact class of the {@link Object}s to look for.
+	 * @param k
+	 *            The maximum amount of {@link Object}s to find.
+	 * @param out
+	 *            The {@link List} that the found {@link Object}s are put in.
+	 *            It is cleared first.
+	 * @return <code>out</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends E> List<T> nearest(final Object object, final Class<T> type, final int k,
+			final List<T> out) {
+		out.clear();
+		final Layer layer = layers.get(type);
+		if (k <= 0 || layer == null || layer.size == 0)
+			return out;
+
+		final double x = object.getPosX(), y = object.getPosY();
+		final int col = column(x), row = row(y), maxRing = Math.max(columns, rows), wanted = Math.min(k, layer.size);
+
+		// Sorted from closest to farthest.
+		final java.lang.Object[] found = new java.lang.Object[wanted];
+		final double[] distances = new double[wanted];
+		int count = 0, visited = 0;
+
+		search: for (int ring = 0; ring <= maxRing; ring++) {
+			for (int r = row - ring; r <= row + ring; r++) {
+				if (r < 0 || r >= rows)
+					continue;
+				final int step = r == row - ring || r == row + ring ? 1 : Math.max(1, 2 * ring);
+				for (int c = col - ring; c <= col + ring; c += step) {
+					if (c < 0 || c >= columns)
+						continue;
+					if (++visited > layer.occupiedCount) {
+						count = 0;
+						for (int i = 0; i < layer.occupiedCount; i++) {
+							final ArrayList<E> cell = layer.cells[layer.occupied[i]];
+							for (int j = 0; j < cell.size(); j++)
+								count = SpatialGrid.offer(cell.get(j), x, y, found, distances, count);
+						}
+						break search;
+					}
+					final ArrayList<E> cell = layer.cells[r * columns + c];
+					if (cell == null)
+						continue;
+					for (int i = 0; i < cell.size(); i++)
+						count = SpatialGrid.offer(cell.get(i), x, y, found, distances, count);
+				}
+			}
+
+			final double bound = ring * cellSize;
+			if (count == wanted && distances[wanted - 1] <= bound * bound)
+				break;
+		}
+
+		for (int i = 0; i < count; i++)
+			out.add((T) found[i]);
+		return out;
+	}
+
+	/**
+	 * <p>
+	 * Gets every {@link Object} of the given concrete class that is within the
+	 * given distance of the given {@link Object}.
+	 *
+	 * @param object
+	 *            The {@link Object} to search around.
+	 * @param radius
+	 *            The maximum distance, inclusive.
+	 * @param type
+	 *            The exact class of the {@link Object}s to look for.
+	 * @param out
+	 *            The {@link List} that the found {@link Object}s are put in.
+	 *            It is cleared first.
+	 * @return <code>out</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends E> List<T> within(final Object object, final double radius, final Class<T> type,
+			final List<T> out) {
+		out.clear();
+		final Layer layer = layers.get(type);
+		if (layer == null || layer.size == 0)
+			return out;
+
+		final double x = object.getPosX(), y = object.getPosY(), radiusSq = radius * radius;
+		final int minCol = column(x - radius), maxCol = column(x + radius), minRow = row(y - radius),
+				maxRow = row(y + radius);
+
+		for (int r = minRow; r <= maxRow; r++)
+			for (int c = minCol; c <= maxCol; c++) {
+				final ArrayList<E> cell = layer.cells[r * columns + c];
+				if (cell == null)
+					continue;
+				for (int i = 0; i < cell.size(); i++) {
+					final E e = cell.get(i);
+					final double vx = e.getPosX() - x, vy = e.getPosY() - y;
+					if (vx * vx + vy * vy <= radiusSq)
+						out.add((T) e);
+				}
+			}
+		return out;
+	}
+
+	/**
+	 * <p>
+	 * Gets every {@link Object} in this grid, of any class, whose position is
+	 * inside the given rectangle. Only the cells that overlap the rectangle
+	 * are looked at, so this costs about as much as the amount of
+	 * {@link Object}s that are found.
+	 *
+	 * @param minX
+	 *            The left edge of the rectangle, inclusive.
+	 * @param minY
+	 *            The top edge of the rectangle, inclusive.
+	 * @param maxX
+	 *            The right edge of the rectangle, inclusive.
+	 * @param maxY
+	 *            The bottom edge of the rectangle, inclusive.
+	 * @param out
+	 *            The {@link List} that the found {@link Object}s are put in.
+	 *            It is cleared first.
+	 * @return <code>out</code>.
+	 */
+	public List<E> inside(final double minX, final double minY, final double maxX, final double maxY,
+			final List<E> out) {
+		out.clear();
+		if (maxX < minX || maxY < minY)
+			return out;
+		final int minCol = column(minX), maxCol = column(maxX), minRow = row(minY), maxRow = row(maxY);
+
+		for (final Layer layer : layers.values()) {
+			if (layer.size == 0)
+				continue;
+			for (int r = minRow; r <= maxRow; r++)
+				for (int c = minCol; c <= maxCol; c++) {
+					final ArrayList<E> cell = layer.cells[r * columns + c];
+					if (cell == null)
+						continue;
+					for (int i = 0; i < cell.size(); i++) {
+						final E e = cell.get(i);
+						final double x = e.getPosX(), y = e.getPosY();
+						if (x >= minX && x <= maxX && y >= minY && y <= maxY)
+							out.add(e);
+					}
+				}
+		}
+		return out;
+	}
+
+	/**
+	 * Gets the amount of {@link Object}s of the given concrete class in this
+	 * grid.
+	 *
+	 * @param type
+	 *            The exact class to count.
+	 * @return The amount of {@link Object}s of that class.
+	 */
+	public int size(final Class<? extends E> type) {
+		final Layer layer = layers.get(type);
+		return layer == null ? 0 : layer.size;
+	}
+
+	private static double distanceSq(final Object object, final double x, final double y) {
+		final double vx = object.getPosX() - x, vy = object.getPosY() - y;
+		return vx * vx + vy * vy;
+	}
+
+	/**
+	 * Gets whichever is closest to the given position: <code>closest</code>,
+	 * or an {@link Object} in <code>cell</code>.
+	 */
+	private static <E extends Object> E closestIn(final ArrayList<E> cell, final double x, final double y,
+			E closest) {
+		double closestDistSq = closest == null ? Double.POSITIVE_INFINITY : SpatialGrid.distanceSq(closest, x, y);
+		for (int i = 0; i < cell.size(); i++) {
+			final E e = cell.get(i);
+			final double distSq = SpatialGrid.distanceSq(e, x, y);
+			if (distSq < closestDistSq) {
+				closestDistSq = distSq;
+				closest = e;
+			}
+		}
+		return closest;
+	}
+
+	/**
+	 * Puts an {@link Object} into the sorted <code>found</code> array if it's
+	 * closer than the farthest one there, or if the array isn't full yet.
+	 *
+	 * @return The new amount of {@link Object}s in <code>found</code>.
+	 */
+	private static int offer(final Object object, final double x, final double y, final java.lang.Object[] found,
+			final double[] distances, int count) {
+		final double distSq = SpatialGrid.distanceSq(object, x, y);
+		if (count == found.length && distSq >= distances[count - 1])
+			return count;
+		int pos = count < found.length ? count++ : count - 1;
+		for (; pos > 0 && distances[pos - 1] > distSq; pos--) {
+			distances[pos] = distances[pos - 1];
+			found[pos] = found[pos - 1];
+		}
+		distances[pos] = distSq;
+		found[pos] = object;
+		return count;
+	}
+
+	private int cellOf(final double x, final double y) {
+		return row(y) * columns + column(x);
+	}
+
+	private int column(final double x) {
+		final int col = (int) Math.floor(x / cellSize);
+		return col < 0 ? 0 : col >= columns ? columns - 1 : col;
+	}
+
+	private int row(final double y) {
+		final int row = (int) Math.floor(y / cellSize);
+		return row < 0 ? 0 : row >= rows ? rows - 1 : row;
+	}
+
+	/**
+	 * The cells of every {@link Object} of a single concrete class.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	private final class Layer {
+
+		/**
+		 * The cells, row by row. Cells are only created once something is put
+		 * in them.
+		 */
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		private final ArrayList<E>[] cells = new ArrayList[columns * rows];
+
+		/**
+		 * The amount of {@link Object}s in this {@link Layer}.
+		 */
+		private int size;
+
+		/**
+		 * The indices of the cells that aren't empty, and where each cell's
+		 * index is in {@link #occupied} (or <code>-1</code> if it's empty).
+		 */
+		private int[] occupied = new int[16];
+		private final int[] occupiedSlots = new int[columns * rows];
+		private int occupiedCount;
+
+		{
+			Arrays.fill(occupiedSlots, -1);
+		}
+
+		private void insert(final E object, final int cell) {
+			ArrayList<E> list = cells[cell];
+			if (list == null)
+				cells[cell] = list = new ArrayList<>(4);
+			if (list.isEmpty()) {
+				if (occupiedCount == occupied.length)
+					occupied = Arrays.copyOf(occupied, occupiedCount * 2);
+				occupiedSlots[cell] = occupiedCount;
+				occupied[occupiedCount++] = cell;
+			}
+			object.gridCell = cell;
+			object.gridSlot = list.size();
+			list.add(object);
+			size++;
+		}
+
+		/**
+		 * Removes an {@link Object} by moving the last {@link Object} of its
+		 * cell into its slot.
+		 */
+		private void delete(final E object) {
+			final ArrayList<E> list = cells[object.gridCell];
+			final E last = list.remove(list.size() - 1);
+			if (last != object) {
+				list.set(object.gridSlot, last);
+				last.gridSlot = object.gridSlot;
+			}
+			if (list.isEmpty()) {
+				final int slot = occupiedSlots[object.gridCell], moved = occupied[--occupiedCount];
+				occupied[slot] = moved;
+				occupiedSlots[moved] = slot;
+				occupiedSlots[object.gridCell] = -1;
+			}
+			object.gridCell = object.gridSlot = -1;
+			size--;
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package zeale.evolution;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Draws {@link RenderSnapshot}s to the screen in batches.
+ * <p>
+ * Rather than switching colors from one sprite to the next, the sprites of a
+ * snapshot are grouped by color (with a counting sort, in a single pass), and
+ * each group is filled one after another with its color set once. Labels are
+ * grouped the same way and drawn from a {@link DigitAtlas} for their color,
+ * so drawing them never allocates or lays out any text. Every position and
+ * size is converted to screen coordinates up front by the frame's
+ * {@link Camera}.
+ * <p>
+ * Once its arrays have grown big enough and it has seen every color, a
+ * {@link SpriteBatch} doesn't allocate anything while drawing. It must only
+ * be used by one thread.
+ *
+ * @author Zeale
+ *
+ */
+public final class SpriteBatch {
+
+	/**
+	 * The colors that have been seen so far, as ARGB values, along with their
+	 * {@link Color}s and {@link DigitAtlas}es. A color's index in these arrays
+	 * is its <i>palette index</i>.
+	 */
+	private int[] paletteRGB = new int[8];
+	private Color[] paletteColors = new Color[8];
+	private DigitAtlas[] paletteAtlases = new DigitAtlas[8];
+	private int paletteSize;
+
+	/**
+	 * The amount of things of each palette index, and then where each palette
+	 * index's group starts in {@link #order}.
+	 */
+	private int[] groupStart = new int[9];
+
+	/**
+	 * The palette index of each sprite or label, and the order to draw them
+	 * in, grouped by color.
+	 */
+	private int[] colorIndex = new int[0], order = new int[0];
+
+	/**
+	 * The screen positions and sizes of the sprites or labels being drawn.
+	 */
+	private int[] screenX = new int[0], screenY = new int[0], screenWidth = new int[0], screenHeight = new int[0];
+
+	/**
+	 * Draws a {@link RenderSnapshot}, sprites first and then labels.
+	 *
+	 * @param g
+	 *            The {@link Graphics} to draw with.
+	 * @param snapshot
+	 *            The {@link RenderSnapshot} to draw.
+	 * @param camera
+	 *            The {@link Camera} of this frame.
+	 */
+	public void draw(final Graphics g, final RenderSnapshot snapshot, final Camera camera) {
+		final int sprites = snapshot.spriteCount, labels = snapshot.labelCount;
+		ensureCapacity(Math.max(sprites, labels));
+
+		camera.screenX(snapshot.spriteX, screenX, sprites);
+		camera.screenY(snapshot.spriteY, screenY, sprites);
+		camera.screenWidth(snapshot.spriteWidth, screenWidth, sprites);
+		camera.screenHeight(snapshot.spriteHeight, screenHeight, sprites);
+		group(snapshot.spriteColor, sprites);
+		for (int p = 0; p < paletteSize; p++) {
+			final int start = groupStart[p], end = groupStart[p + 1];
+			if (start == end)
+				continue;
+			g.setColor(paletteColors[p]);
+			for (int j = start; j < end; j++) {
+				final int i = order[j];
+				g.fillRect(screenX[i], screenY[i], screenWidth[i], screenHeight[i]);
+			}
+		}
+
+		if (labels == 0)
+			return;
+		camera.screenX(snapshot.labelX, screenX, labels);
+		camera.screenY(snapshot.labelY, screenY, labels);
+		group(snapshot.labelColor, labels);
+		final Font font = g.getFont();
+		for (int p = 0; p < paletteSize; p++) {
+			final int start = groupStart[p], end = groupStart[p + 1];
+			if (start == end)
+				continue;
+			DigitAtlas atlas = paletteAtlases[p];
+			if (atlas == null || !atlas.getFont().equals(font))
+				paletteAtlases[p] = atlas = new DigitAtlas(font, paletteColors[p]);
+			for (int j = start; j < end; j++) {
+				final int i = order[j];
+				atlas.draw(g, snapshot.labelValue[i], screenX[i], screenY[i]);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Sorts the first <code>count</code> things by color, with a counting
+	 * sort. Afterwards, the things with palette index <code>p</code> are in
+	 * {@link #order}, from <code>groupStart[p]</code> to
+	 * <code>groupStart[p + 1]</code>, in the order that they were in.
+	 */
+	private void group(final int[] colors, final int count) {
+		int last = 0, lastIndex = -1;
+		for (int i = 0; i < count; i++) {
+			final int rgb = colors[i];
+			if (lastIndex < 0 || rgb != last) {
+				last = rgb;
+				lastIndex = paletteIndex(rgb);
+			}
+			colorIndex[i] = lastIndex;
+		}
+
+		Arrays.fill(groupStart, 0, paletteSize + 1, 0);
+		for (int i = 0; i < count; i++)
+			groupStart[colorIndex[i] + 1]++;
+		for (int p = 0; p < paletteSize; p++)
+			groupStart[p + 1] += groupStart[p];
+		// groupStart[p] is now where group p starts. Fill each group, using
+		// groupStart[p] as its cursor, then shift the cursors back.
+		for (int i = 0; i < count; i++)
+			order[groupStart[colorIndex[i]]++] = i;
+		for (int p = paletteSize; p > 0; p--)
+			groupStart[p] = groupStart[p - 1];
+		groupStart[0] = 0;
+	}
+
+	/**
+	 * Gets the palette index of a color, adding it to the palette if it's new.
+	 */
+	private int paletteIndex(final int rgb) {
+		for (int p = 0; p < paletteSize; p++)
+			if (paletteRGB[p] == rgb)
+				return p;
+		if (paletteSize == paletteRGB.length) {
+			final int capacity = paletteSize * 2;
+			paletteRGB = Arrays.copyOf(paletteRGB, capacity);
+			paletteColors = Arrays.copyOf(paletteColors, capacity);
+			paletteAtlases = Arrays.copyOf(paletteAtlases, capacity);
+			groupStart = Arrays.copyOf(groupStart, capacity + 1);
+		}
+		paletteRGB[paletteSize] = rgb;
+		paletteColors[paletteSize] = new Color(rgb, true);
+		return paletteSize++;
+	}
+
+	private void ensureCapacity(final int needed) {
+		if (order.length >= needed)
+			return;
+		final int capacity = Math.max(needed, order.length * 2);
+		colorIndex = new int[capacity];
+		order = new int[capacity];
+		screenX = new int[capacity];
+		screenY = new int[capacity];
+		screenWidth = new int[capacity];
+		screenHeight = new int[capacity];
+	}
+
+}
@@ -0,0 +1,431 @@
+package zeale.evolution;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.Spawnpoint;
+import zeale.evolution.structures.Structure;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * Samples the statistics of a {@link World} every few ticks and exports them
+ * to a file, as CSV or as a compact binary format. A {@link StatsSampler} is
+ * attached to a {@link World} with {@link World#setSampler(StatsSampler)}.
+ * <p>
+ * Each sample holds {@link #FIELDS}: the tick, the amount of living
+ * {@link Bot}s, the amount of {@link Spawnpoint}s, {@link ResourceSpawner}s
+ * and other {@link Structure}s, the amount of
+ * {@link zeale.evolution.resources.Resource Resource}s held by {@link Bot}s,
+ * {@link ResourceSpawner}s and {@link Spawnpoint}s, how many {@link Bot}s and
+ * {@link Structure}s were spawned and died since the sample before it (or
+ * since the {@link World} was made), and how many samples were dropped right
+ * before it.
+ * <p>
+ * Samples are taken on the thread that ticks the {@link World}, and handed to
+ * a background thread that writes them, through a ring buffer of a fixed
+ * size. The ticking thread never waits for the writer: if the writer falls so
+ * far behind that the ring buffer is full, samples are
+ * {@link #getDropped() dropped} until it catches up. Taking a sample only
+ * copies totals that the {@link World} keeps up to date as things are added
+ * and removed, so it costs the same however big the {@link World} is.
+ * <p>
+ * The binary format is little endian. It starts with the magic number
+ * {@link #MAGIC}, the format {@link #VERSION} (a <code>short</code>) and the
+ * amount of fields in each sample (a <code>short</code>). Each sample after
+ * that is its tick minus the tick of the sample before it, then every other
+ * field, all as unsigned variable length numbers (seven bits a byte, lowest
+ * first, with the top bit set on every byte but the last), so most samples
+ * take a byte or two a field.
+ *
+ * @author Zeale
+ *
+ */
+public final class StatsSampler implements Closeable {
+
+	/**
+	 * The formats that samples can be written in.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	public enum Format {
+		/**
+		 * A header line with the names of the {@link StatsSampler#FIELDS},
+		 * then a line of comma separated numbers for each sample.
+		 */
+		CSV,
+		/**
+		 * The binary format described in {@link StatsSampler}.
+		 */
+		BINARY;
+
+		/**
+		 * Gets the {@link Format} of a file from its name.
+		 *
+		 * @param file
+		 *            The file.
+		 * @return {@link #CSV} if the file's name ends with <code>.csv</code>,
+		 *         {@link #BINARY} otherwise.
+		 */
+		public static Format of(final Path file) {
+			return file.getFileName().toString().toLowerCase().endsWith(".csv") ? CSV : BINARY;
+		}
+	}
+
+	/**
+	 * The first four bytes of every binary file: <code>EVST</code>.
+	 */
+	public static final int MAGIC = 0x45565354;
+
+	/**
+	 * The version of the binary format that this class writes.
+	 */
+	public static final short VERSION = 1;
+
+	/**
+	 * The amount of samples that the ring buffer holds by default: over a
+	 * minute of game time, at a sample a tick.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * The names of the fields of every sample, in order.
+	 */
+	public static final String[] FIELDS = { "tick", "bots", "spawnpoints", "resourceSpawners", "otherStructures",
+			"resourcesInBots", "resourcesInSpawners", "resourcesInSpawnpoints", "botsSpawned", "botsDied",
+			"structuresSpawned", "structuresDied", "dropped" };
+
+	private static final int FIELD_COUNT = StatsSampler.FIELDS.length;
+
+	/**
+	 * The ring buffer. Sample <code>i</code> is held in the
+	 * {@link #FIELD_COUNT} <code>long</code>s starting at
+	 * <code>(i % capacity) * FIELD_COUNT</code>.
+	 */
+	private final long[] ring;
+	private final int capacity;
+
+	/**
+	 * The index of the next sample that the writer will write, and of the
+	 * next sample that will be taken. Each is only changed by its own thread.
+	 */
+	private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+
+	/**
+	 * How many ticks there are between samples.
+	 */
+	private final int interval;
+
+	/**
+	 * The {@link World}'s spawn and death counts as of the last sample, and
+	 * the amount of samples dropped since then. These are only used by the
+	 * ticking thread.
+	 */
+	private long botsAdded, botsKilled, structuresAdded, structuresKilled, droppedSince;
+
+	/**
+	 * The amount of samples that have ever been dropped.
+	 */
+	private volatile long dropped;
+
+	private final Sink sink;
+	private final Thread writer;
+
+	/**
+	 * <code>closed</code> is set first thing when this {@link StatsSampler} is
+	 * closed, and <code>sampling</code> while the ticking thread is taking a
+	 * sample. Each thread sets its own flag before checking the other's, so a
+	 * sample is either seen by {@link #close()}, which waits for it to be
+	 * published, or never taken. <code>finished</code> is set once no more
+	 * samples can be published, and tells the writer to stop once it has
+	 * caught up.
+	 */
+	private volatile boolean closed, sampling, finished;
+	private volatile IOException failure;
+
+	/**
+	 * <p>
+	 * Starts exporting a sample of every tick to a file, in the {@link Format}
+	 * that its name calls for (see {@link Format#of(Path)}).
+	 *
+	 * @param file
+	 *            The file to write to. It's replaced if it exists.
+	 * @throws IOException
+	 *             If the file can't be opened.
+	 */
+	public StatsSampler(final Path file) throws IOException {
+		this(file, Format.of(file), 1, StatsSampler.DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * <p>
+	 * Starts exporting samples to a file. The file's header is written by the
+	 * background thread, which is started straight away.
+	 *
+	 * @param file
+	 *            The file to write to. It's replaced if it exists.
+	 * @param format
+	 *            The {@link Format} to write in.
+	 * @param interval
+	 *            How many ticks there are between samples.
+	 * @param capacity
+	 *            How many samples the ring buffer can hold.
+	 * @throws IOException
+	 *             If the file can't be opened.
+	 */
+	public StatsSampler(final Path file, final Format format, final int interval, final int capacity)
+			throws IOException {
+		if (interval <= 0)
+			throw new IllegalArgumentException("The interval must be positive: " + interval);
+		if (capacity <= 0)
+			throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+		this.interval = interval;
+		this.capacity = capacity;
+		ring = new long[capacity * StatsSampler.FIELD_COUNT];
+		sink = format == Format.CSV ? new CsvSink(file) : new BinarySink(file);
+		writer = new Thread(this::drain, "Stats writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Takes a sample of a {@link World}, if it's on a tick that is sampled.
+	 * This is called by the {@link World} at the end of every tick.
+	 */
+	void sample(final World world) {
+		if (world.getTicks() % interval != 0)
+			return;
+		sampling = true;
+		try {
+			if (!closed)
+				take(world);
+		} finally {
+			sampling = false;
+		}
+	}
+
+	private void take(final World world) {
+		final long index = tail.get();
+		if (index - head.get() == capacity) {
+			droppedSince++;
+			dropped++;
+			return;
+		}
+
+		// Everything is a running total, so this never walks the world.
+		final long structures = world.getStructuresAdded() - world.getStructuresKilled(),
+				spawnpoints = world.getSpawnpointCount(), spawners = world.getResourceSpawnerCount();
+		final int base = (int) (index % capacity) * StatsSampler.FIELD_COUNT;
+		ring[base] = world.getTicks();
+		ring[base + 1] = world.getBotsAdded() - world.getBotsKilled();
+		ring[base + 2] = spawnpoints;
+		ring[base + 3] = spawners;
+		ring[base + 4] = structures - spawnpoints - spawners;
+		ring[base + 5] = world.getResourcesInBots();
+		ring[base + 6] = world.getResourcesInSpawners();
+		ring[base + 7] = world.getResourcesInSpawnpoints();
+		ring[base + 8] = world.getBotsAdded() - botsAdded;
+		ring[base + 9] = world.getBotsKilled() - botsKilled;
+		ring[base + 10] = world.getStructuresAdded() - structuresAdded;
+		ring[base + 11] = world.getStructuresKilled() - structuresKilled;
+		ring[base + 12] = droppedSince;
+		botsAdded = world.getBotsAdded();
+		botsKilled = world.getBotsKilled();
+		structuresAdded = world.getStructuresAdded();
+		structuresKilled = world.getStructuresKilled();
+		droppedSince = 0;
+		// Publishes the sample to the writer.
+		tail.lazySet(index + 1);
+	}
+
+	/**
+	 * The writer's loop: writes samples as they come in, and flushes whenever
+	 * it runs out of them, until this {@link StatsSampler} is closed and every
+	 * sample has been written.
+	 */
+	private void drain() {
+		final long[] sample = new long[StatsSampler.FIELD_COUNT];
+		try {
+			sink.start();
+			boolean unflushed = false;
+			while (true) {
+				final long index = head.get();
+				if (index == tail.get()) {
+					if (unflushed) {
+						sink.flush();
+						unflushed = false;
+					}
+					// Once finished is set, every sample has been published,
+					// so tail is checked again after reading it.
+					if (finished && index == tail.get())
+						break;
+					LockSupport.parkNanos(this, 1000000);
+					continue;
+				}
+				System.arraycopy(ring, (int) (index % capacity) * StatsSampler.FIELD_COUNT, sample, 0,
+						StatsSampler.FIELD_COUNT);
+				head.lazySet(index + 1);
+				sink.write(sample);
+				unflushed = true;
+			}
+		} catch (final IOException e) {
+			failure = e;
+		} finally {
+			try {
+				sink.close();
+			} catch (final IOException e) {
+				if (failure == null)
+					failure = e;
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Stops sampling, waits for every sample that has been taken to be
+	 * written, and closes the file. This can be called from any thread. The
+	 * {@link StatsSampler} should be detached from its {@link World} first.
+	 *
+	 * @throws IOException
+	 *             If the file couldn't be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		// A sample that was started before closing is published before it
+		// stops sampling.
+		while (sampling)
+			Thread.yield();
+		finished = true;
+		LockSupport.unpark(writer);
+		boolean interrupted = false;
+		while (writer.isAlive())
+			try {
+				writer.join();
+			} catch (final InterruptedException e) {
+				interrupted = true;
+			}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * A getter for {@link #dropped}.
+	 *
+	 * @return The amount of samples that were dropped because the writer had
+	 *         fallen behind.
+	 */
+	public long getDropped() {
+		return dropped;
+	}
+
+	/**
+	 * A getter for how many ticks there are between samples.
+	 *
+	 * @return The interval of this {@link StatsSampler}.
+	 */
+	public int getInterval() {
+		return interval;
+	}
+
+	/**
+	 * Where the writer puts samples. Only the writer's thread uses a
+	 * {@link Sink}.
+	 */
+	private interface Sink {
+		void start() throws IOException;
+
+		void write(long[] sample) throws IOException;
+
+		void flush() throws IOException;
+
+		void close() throws IOException;
+	}
+
+	private static final class CsvSink implements Sink {
+		private final BufferedWriter out;
+		private final StringBuilder line = new StringBuilder();
+
+		private CsvSink(final Path file) throws IOException {
+			out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void start() throws IOException {
+			out.write(String.join(",", StatsSampler.FIELDS));
+			out.newLine();
+		}
+
+		@Override
+		public void write(final long[] sample) throws IOException {
+			line.setLength(0);
+			for (int i = 0; i < sample.length; i++)
+				(i == 0 ? line : line.append(',')).append(sample[i]);
+			out.append(line);
+			out.newLine();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	private static final class BinarySink implements Sink {
+		private final FileChannel channel;
+		private final ChannelWriter out;
+		private long lastTick;
+
+		private BinarySink(final Path file) throws IOException {
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			out = new ChannelWriter(channel, 1 << 16);
+		}
+
+		@Override
+		public void start() throws IOException {
+			out.buffer.putInt(StatsSampler.MAGIC).putShort(StatsSampler.VERSION)
+					.putShort((short) StatsSampler.FIELD_COUNT);
+		}
+
+		@Override
+		public void write(final long[] sample) throws IOException {
+			out.putVarLong(sample[0] - lastTick);
+			lastTick = sample[0];
+			for (int i = 1; i < sample.length; i++)
+				out.putVarLong(sample[i]);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				out.flush();
+			} finally {
+				channel.close();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,466 @@
+package zeale.evolution;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import zeale.evolution.bots.Bot;
+import zeale.evolution.structures.Spawnpoint;
+import zeale.evolution.structures.Structure;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * Runs a parameter sweep: a headless {@link World} for every combination of a
+ * grid of {@link Parameters} and a number of seeds, all in parallel on a
+ * {@link ForkJoinPool}, and writes what happened in each combination to a
+ * results file.
+ * <p>
+ * Each run is a small {@link World} with a single {@link Spawnpoint} in its
+ * center and {@link ResourceSpawner}s and {@link Bot}s scattered around it,
+ * all made with the run's {@link Parameters}. It's ticked on a single thread
+ * until it has run for the requested amount of ticks, or until its
+ * {@link Bot}s have died out for good. Runs are independent of each other,
+ * so the pool's workers steal whole runs from each other and a sweep's
+ * throughput grows with the amount of cores.
+ * <p>
+ * Every {@link Parameters} of the grid is run once for each seed, and the
+ * <code>n</code>th seed is the same for every {@link Parameters}, so that
+ * the differences between {@link Parameters} aren't hidden by luck. As soon
+ * as every run of a {@link Parameters} is done, a line of CSV with the
+ * averages of its runs is written to the results:
+ * <ul>
+ * <li>the {@link Parameters},</li>
+ * <li>the amount of runs, and how many of them died out,</li>
+ * <li>the mean tick that those that died out did so at,</li>
+ * <li>the mean amount of {@link zeale.evolution.resources.Resource Resource}s
+ * that {@link Bot}s banked at the {@link Spawnpoint},</li>
+ * <li>and the mean population, every {@link #getSampleInterval() few}
+ * ticks.</li>
+ * </ul>
+ * Lines are written in the order that {@link Parameters} finish, which
+ * changes from sweep to sweep, but every number in them is the same every
+ * time.
+ *
+ * @author Zeale
+ *
+ */
+public final class Sweep {
+
+	private final List<Parameters> grid;
+	private final int seeds;
+	private final long ticks;
+
+	/**
+	 * The {@link Rng} seed of each run, by the index of the run among the runs
+	 * of its {@link Parameters}.
+	 */
+	private final long[] runSeeds;
+
+	private int width = 1920, height = 1080, bots = 50, spawners = 10, sampleInterval = 600;
+
+	/**
+	 * <p>
+	 * Constructs a new {@link Sweep}.
+	 *
+	 * @param grid
+	 *            The {@link Parameters} to run.
+	 * @param seeds
+	 *            How many times to run each {@link Parameters}, each time
+	 *            from a different seed.
+	 * @param ticks
+	 *            The most ticks that each run lasts for.
+	 * @param seed
+	 *            The seed that the seeds of the runs are made from.
+	 */
+	public Sweep(final List<Parameters> grid, final int seeds, final long ticks, final long seed) {
+		if (grid.isEmpty())
+			throw new IllegalArgumentException("The grid is empty.");
+		if (seeds <= 0)
+			throw new IllegalArgumentException("The amount of seeds must be positive: " + seeds);
+		if (ticks < 0)
+			throw new IllegalArgumentException("The amount of ticks can't be negative: " + ticks);
+		this.grid = new ArrayList<>(grid);
+		this.seeds = seeds;
+		this.ticks = ticks;
+		runSeeds = new long[seeds];
+		final Rng random = new Rng(seed);
+		for (int i = 0; i < seeds; i++)
+			runSeeds[i] = random.nextLong();
+	}
+
+	/**
+	 * Makes every combination of the given values.
+	 *
+	 * @param botSpeeds
+	 *            The {@link Parameters#getBotSpeed() bot speeds}.
+	 * @param botMaxResources
+	 *            The {@link Parameters#getBotMaxResources() bot inventory
+	 *            sizes}.
+	 * @param spawnerCapacities
+	 *            The {@link Parameters#getSpawnerCapacity() spawner
+	 *            capacities}.
+	 * @param spawnThresholds
+	 *            The {@link Parameters#getSpawnThreshold() spawn thresholds}.
+	 * @return A new {@link List} of {@link Parameters}, one for each
+	 *         combination.
+	 */
+	public static List<Parameters> grid(final short[] botSpeeds, final short[] botMaxResources,
+			final short[] spawnerCapacities, final int[] spawnThresholds) {
+		final List<Parameters> grid = new ArrayList<>(
+				botSpeeds.length * botMaxResources.length * spawnerCapacities.length * spawnThresholds.length);
+		for (final short speed : botSpeeds)
+			for (final short maxResources : botMaxResources)
+				for (final short capacity : spawnerCapacities)
+					for (final int threshold : spawnThresholds)
+						grid.add(new Parameters(speed, maxResources, capacity, threshold));
+		return grid;
+	}
+
+	/**
+	 * Sets the size of each run's {@link World}.
+	 *
+	 * @param width
+	 *            The width of the {@link World}.
+	 * @param height
+	 *            The height of the {@link World}.
+	 */
+	public void setArea(final int width, final int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Sets what each run's {@link World} starts with, besides its
+	 * {@link Spawnpoint}.
+	 *
+	 * @param bots
+	 *            The amount of {@link Bot}s.
+	 * @param spawners
+	 *            The amount of {@link ResourceSpawner}s.
+	 */
+	public void setPopulation(final int bots, final int spawners) {
+		this.bots = bots;
+		this.spawners = spawners;
+	}
+
+	/**
+	 * Sets how many ticks there are between the population samples of each
+	 * run.
+	 *
+	 * @param sampleInterval
+	 *            The amount of ticks between samples.
+	 */
+	public void setSampleInterval(final int sampleInterval) {
+		if (sampleInterval <= 0)
+			throw new IllegalArgumentException("The sample interval must be positive: " + sampleInterval);
+		this.sampleInterval = sampleInterval;
+	}
+
+	/**
+	 * A getter for the amount of ticks between population samples.
+	 *
+	 * @return The sample interval of this {@link Sweep}.
+	 */
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/**
+	 * A getter for the amount of runs in this {@link Sweep}.
+	 *
+	 * @return The amount of {@link Parameters} times the amount of seeds.
+	 */
+	public int getRuns() {
+		return grid.size() * seeds;
+	}
+
+	/**
+	 * <p>
+	 * Runs this {@link Sweep} and writes its results to a file, replacing it
+	 * if it exists.
+	 *
+	 * @param pool
+	 *            The {@link ForkJoinPool} to run on.
+	 * @param results
+	 *            The file to write the results to.
+	 * @throws IOException
+	 *             If the results can't be written.
+	 */
+	public void run(final ForkJoinPool pool, final Path results) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(results, StandardCharsets.UTF_8)) {
+			run(pool, out);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Runs this {@link Sweep}, and writes its results to a {@link Writer}: a
+	 * header line, then a line for each {@link Parameters}, as soon as all of
+	 * its runs are done. The {@link Writer} is flushed after every line.
+	 *
+	 * @param pool
+	 *            The {@link ForkJoinPool} to run on.
+	 * @param out
+	 *            The {@link Writer} to write the results to.
+	 * @throws IOException
+	 *             If the results can't be written.
+	 */
+	public void run(final ForkJoinPool pool, final Writer out) throws IOException {
+		final long samples = ticks / sampleInterval + 1;
+		final StringBuilder header = new StringBuilder(
+				"botSpeed,botMaxResources,spawnerCapacity,spawnThreshold,runs,extinct,meanExtinctionTick,meanBanked");
+		for (long i = 0; i < samples; i++)
+			header.append(",population@").append(i * sampleInterval);
+		out.write(header.append('\n').toString());
+		out.flush();
+
+		final Results[] results = new Results[grid.size()];
+		for (int i = 0; i < results.length; i++)
+			results[i] = new Results(grid.get(i), (int) samples);
+		try {
+			pool.invoke(new RunTask(results, out, 0, getRuns()));
+		} catch (final UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Runs a {@link Sweep} from the command line. Each of
+	 * <code>--speed</code>, <code>--max-resources</code>,
+	 * <code>--capacity</code> and <code>--threshold</code> takes a comma
+	 * separated list of values, and the grid is every combination of them.
+	 * Anything left out is kept at {@link Parameters#DEFAULT}. The other flags
+	 * are <code>--out &lt;file&gt;</code> (<code>sweep.csv</code> by
+	 * default), <code>--ticks &lt;ticks&gt;</code>,
+	 * <code>--seeds &lt;runs per parameters&gt;</code>,
+	 * <code>--seed &lt;seed&gt;</code>,
+	 * <code>--threads &lt;threads&gt;</code> (every core by default),
+	 * <code>--area &lt;width&gt; &lt;height&gt;</code>,
+	 * <code>--population &lt;bots&gt; &lt;spawners&gt;</code> and
+	 * <code>--sample-interval &lt;ticks&gt;</code>.
+	 *
+	 * @param args
+	 *            The program arguments.
+	 * @throws IOException
+	 *             If the results can't be written.
+	 */
+	public static void main(final String[] args) throws IOException {
+		short[] speeds = { Parameters.DEFAULT.getBotSpeed() },
+				maxResources = { Parameters.DEFAULT.getBotMaxResources() },
+				capacities = { Parameters.DEFAULT.getSpawnerCapacity() };
+		int[] thresholds = { Parameters.DEFAULT.getSpawnThreshold() };
+		Path out = Paths.get("sweep.csv");
+		long ticks = 36000, seed = Rng.randomSeed();
+		int seeds = 8, threads = Runtime.getRuntime().availableProcessors(), width = -1, height = -1, bots = -1,
+				spawners = -1, sampleInterval = -1;
+		for (int i = 0; i < args.length; i++)
+			if (args[i].equals("--speed") && i + 1 < args.length)
+				speeds = Sweep.parseShorts(args[++i]);
+			else if (args[i].equals("--max-resources") && i + 1 < args.length)
+				maxResources = Sweep.parseShorts(args[++i]);
+			else if (args[i].equals("--capacity") && i + 1 < args.length)
+				capacities = Sweep.parseShorts(args[++i]);
+			else if (args[i].equals("--threshold") && i + 1 < args.length) {
+				final String[] values = args[++i].split(",");
+				thresholds = new int[values.length];
+				for (int j = 0; j < values.length; j++)
+					thresholds[j] = Integer.parseInt(values[j].trim());
+			} else if (args[i].equals("--out") && i + 1 < args.length)
+				out = Paths.get(args[++i]);
+			else if (args[i].equals("--ticks") && i + 1 < args.length)
+				ticks = Long.parseLong(args[++i]);
+			else if (args[i].equals("--seeds") && i + 1 < args.length)
+				seeds = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--seed") && i + 1 < args.length)
+				seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("--threads") && i + 1 < args.length)
+				threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--area") && i + 2 < args.length) {
+				width = Integer.parseInt(args[++i]);
+				height = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--population") && i + 2 < args.length) {
+				bots = Integer.parseInt(args[++i]);
+				spawners = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("--sample-interval") && i + 1 < args.length)
+				sampleInterval = Integer.parseInt(args[++i]);
+
+		final Sweep sweep = new Sweep(Sweep.grid(speeds, maxResources, capacities, thresholds), seeds, ticks, seed);
+		if (width > 0)
+			sweep.setArea(width, height);
+		if (bots >= 0)
+			sweep.setPopulation(bots, spawners);
+		if (sampleInterval > 0)
+			sweep.setSampleInterval(sampleInterval);
+		final ForkJoinPool pool = new ForkJoinPool(threads);
+		final long start = System.nanoTime();
+		try {
+			sweep.run(pool, out);
+		} finally {
+			pool.shutdown();
+		}
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d runs (seed %d) on %d threads in %.1f s (%.1f runs/s). Results are in %s.%n",
+				sweep.getRuns(), seed, threads, seconds, sweep.getRuns() / seconds, out);
+	}
+
+	private static short[] parseShorts(final String list) {
+		final String[] values = list.split(",");
+		final short[] shorts = new short[values.length];
+		for (int i = 0; i < values.length; i++)
+			shorts[i] = Short.parseShort(values[i].trim());
+		return shorts;
+	}
+
+	/**
+	 * Plays out a single run, and adds what happened to its {@link Results}.
+	 *
+	 * @return <code>true</code> if that was the last run of its
+	 *         {@link Results}.
+	 */
+	private boolean run(final Results results, final int seed) {
+		final Parameters parameters = results.parameters;
+		final World world = new World(width, height, false, runSeeds[seed]);
+		world.setParameters(parameters);
+		final Rng random = world.getRandom().split();
+		final Spawnpoint spawnpoint = new Spawnpoint(width / 2, height / 2);
+		world.addStruct(spawnpoint);
+		for (int i = 0; i < spawners; i++)
+			world.addStruct(new ResourceSpawner(random.nextDouble() * width, random.nextDouble() * height,
+					parameters.getSpawnerCapacity(), random));
+		for (int i = 0; i < bots; i++)
+			world.addBot(new Bot(random.nextDouble() * width, random.nextDouble() * height,
+					parameters.getBotMaxResources(), parameters.getBotSpeed()));
+		final long[] banked = new long[1];
+		world.setListener(new World.Listener() {
+			@Override
+			public void activated(final Bot bot, final Structure structure) {
+				if (structure instanceof Spawnpoint)
+					banked[0] += bot.getResources().size();
+			}
+		});
+		world.flush();
+
+		final int[] population = new int[results.population.length];
+		long extinction = -1;
+		for (long tick = 0;; tick++) {
+			final int alive = world.getBots().size();
+			if (tick % sampleInterval == 0)
+				population[(int) (tick / sampleInterval)] = alive;
+			// Only bots bring resources to the spawnpoint, so once they're
+			// gone and it can't spawn any more, nothing else can happen.
+			if (alive == 0 && spawnpoint.getResources().size() < parameters.getSpawnThreshold()) {
+				extinction = tick;
+				break;
+			}
+			if (tick == ticks)
+				break;
+			world.tick(World.TICK_LENGTH);
+		}
+		return results.add(population, extinction, banked[0]);
+	}
+
+	/**
+	 * The totals of the runs of a {@link Parameters}.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	private final class Results {
+		private final Parameters parameters;
+		private final long[] population;
+		private int runs, extinct;
+		private long extinctionTicks, banked;
+
+		private Results(final Parameters parameters, final int samples) {
+			this.parameters = parameters;
+			population = new long[samples];
+		}
+
+		/**
+		 * Adds a run to the totals.
+		 *
+		 * @return <code>true</code> if that was the last run.
+		 */
+		private synchronized boolean add(final int[] population, final long extinction, final long banked) {
+			for (int i = 0; i < population.length; i++)
+				this.population[i] += population[i];
+			if (extinction >= 0) {
+				extinct++;
+				extinctionTicks += extinction;
+			}
+			this.banked += banked;
+			return ++runs == seeds;
+		}
+
+		private synchronized String toCsv() {
+			final StringBuilder line = new StringBuilder().append(parameters.getBotSpeed()).append(',')
+					.append(parameters.getBotMaxResources()).append(',').append(parameters.getSpawnerCapacity())
+					.append(',').append(parameters.getSpawnThreshold()).append(',').append(runs).append(',')
+					.append(extinct).append(',');
+			if (extinct > 0)
+				line.append((double) extinctionTicks / extinct);
+			line.append(',').append((double) banked / runs);
+			for (final long p : population)
+				line.append(',').append((double) p / runs);
+			return line.append('\n').toString();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Plays out a range of runs, splitting itself in half until it's down to
+	 * a single run. Run <code>i</code> is of the <code>i / seeds</code>th
+	 * {@link Parameters}, so the runs of a {@link Parameters} are done around
+	 * the same time, and its results can be written early on.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	private final class RunTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Results[] results;
+		private final Writer out;
+		private final int from, to;
+
+		private RunTask(final Results[] results, final Writer out, final int from, final int to) {
+			this.results = results;
+			this.out = out;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int middle = (from + to) >>> 1;
+				ForkJoinTask.invokeAll(new RunTask(results, out, from, middle), new RunTask(results, out, middle, to));
+				return;
+			}
+			final Results r = results[from / seeds];
+			if (Sweep.this.run(r, from % seeds))
+				try {
+					synchronized (out) {
+						out.write(r.toCsv());
+						out.flush();
+					}
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+		}
+	}
+
+}
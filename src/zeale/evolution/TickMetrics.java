@@ -0,0 +1,293 @@
+package zeale.evolution;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * <p>
+ * Measures where the time of a {@link World}'s ticks goes. Every tick is split
+ * into phases: the {@link zeale.evolution.structures.Structure}s' work, the
+ * {@link zeale.evolution.bots.Bot}s' work, and merging in everything that was
+ * added (the <i>flush</i>). Each phase's latency is recorded into a
+ * {@link LatencyHistogram}, along with the whole tick's, and a game window
+ * records the time it takes to capture each frame as the render phase.
+ * Alongside those, a {@link TickMetrics} keeps the tick rate, the amount of
+ * living {@link Object}s of each type, and, while {@link Object}s are updated
+ * in parallel, how they're spread over the {@link RegionShards}.
+ * <p>
+ * Every {@link World} has a {@link TickMetrics} (see
+ * {@link World#getMetrics()}), which is always recording; timing a tick only
+ * reads the clock a few times. It can be published through JMX with
+ * {@link #register(String)}.
+ *
+ * @author Zeale
+ *
+ */
+public final class TickMetrics implements TickMetricsMXBean {
+
+	/**
+	 * How long the tick rate is measured over, in nanoseconds.
+	 */
+	private static final long RATE_WINDOW = 1000000000;
+
+	private final LatencyHistogram tickLatency = new LatencyHistogram(), structureLatency = new LatencyHistogram(),
+			botLatency = new LatencyHistogram(), flushLatency = new LatencyHistogram(),
+			renderLatency = new LatencyHistogram();
+
+	/**
+	 * The amount of living {@link Object}s of each type.
+	 */
+	private final ConcurrentHashMap<Class<?>, AtomicLong> entityCounts = new ConcurrentHashMap<>();
+
+	/**
+	 * The amount of ticks run, and the amount that were slower than the time
+	 * they simulate. These are only written by the ticking thread.
+	 */
+	private volatile long ticks, slowTicks;
+
+	/**
+	 * The amount of occupied {@link RegionShards} regions as of the last tick,
+	 * the amount of {@link zeale.evolution.bots.Bot Bot}s that were handed off
+	 * between regions in the last tick, and how many have been altogether.
+	 * These are only written by the ticking thread.
+	 */
+	private volatile long occupiedRegions, tickHandoffs, handoffs;
+
+	/**
+	 * When the current tick rate window started, and the amount of ticks run
+	 * since then. These are only written by the ticking thread.
+	 */
+	private volatile long windowStart = System.nanoTime(), windowTicks;
+
+	/**
+	 * The tick rate measured over the last full window.
+	 */
+	private volatile double tickRate;
+
+	/**
+	 * The {@link TickScheduler} that paces the {@link World}, if any.
+	 */
+	private volatile TickScheduler scheduler;
+
+	/**
+	 * <p>
+	 * Records a tick. This is called by {@link World#tick(long)}.
+	 *
+	 * @param structures
+	 *            The time spent on the structure phase, in nanoseconds.
+	 * @param bots
+	 *            The time spent on the bot phase, in nanoseconds.
+	 * @param flush
+	 *            The time spent on the flush phase, in nanoseconds.
+	 * @param total
+	 *            The time that the whole tick took, in nanoseconds.
+	 * @param delta
+	 *            The amount of time that the tick simulated, in nanoseconds.
+	 */
+	void tick(final long structures, final long bots, final long flush, final long total, final long delta) {
+		structureLatency.record(structures);
+		botLatency.record(bots);
+		flushLatency.record(flush);
+		tickLatency.record(total);
+		ticks++;
+		if (total > delta)
+			slowTicks++;
+
+		final long now = System.nanoTime(), elapsed = now - windowStart;
+		windowTicks++;
+		if (elapsed >= TickMetrics.RATE_WINDOW) {
+			tickRate = windowTicks * 1e9 / elapsed;
+			windowStart = now;
+			windowTicks = 0;
+		}
+	}
+
+	/**
+	 * Records the state of the {@link RegionShards} after a tick. This is
+	 * called by {@link World#tick(long)} while its {@link Object}s are sharded,
+	 * and with zeroes once they stop being sharded.
+	 *
+	 * @param occupiedRegions
+	 *            The amount of regions that have a
+	 *            {@link zeale.evolution.bots.Bot Bot} in them.
+	 * @param handoffs
+	 *            The amount of {@link zeale.evolution.bots.Bot Bot}s that moved
+	 *            from one region to another during the tick.
+	 */
+	void shards(final int occupiedRegions, final long handoffs) {
+		this.occupiedRegions = occupiedRegions;
+		tickHandoffs = handoffs;
+		this.handoffs += handoffs;
+	}
+
+	/**
+	 * Records the time it took to capture a frame.
+	 *
+	 * @param nanoseconds
+	 *            The time, in nanoseconds.
+	 */
+	public void render(final long nanoseconds) {
+		renderLatency.record(nanoseconds);
+	}
+
+	/**
+	 * Counts an {@link Object} that was added to the {@link World}.
+	 */
+	void added(final Object object) {
+		AtomicLong count = entityCounts.get(object.getClass());
+		if (count == null)
+			count = entityCounts.computeIfAbsent(object.getClass(), c -> new AtomicLong());
+		count.incrementAndGet();
+	}
+
+	/**
+	 * Stops counting an {@link Object} that was removed from the
+	 * {@link World}. This must only be called for {@link Object}s that were
+	 * {@link #added(Object) counted}, which happens when they're flushed in.
+	 */
+	void removed(final Object object) {
+		final AtomicLong count = entityCounts.get(object.getClass());
+		if (count != null)
+			count.decrementAndGet();
+	}
+
+	/**
+	 * Sets the {@link TickScheduler} that paces the {@link World}, which the
+	 * target tick rate and overruns are read from.
+	 *
+	 * @param scheduler
+	 *            The {@link TickScheduler}, or <code>null</code> if the
+	 *            {@link World} isn't paced.
+	 */
+	public void setScheduler(final TickScheduler scheduler) {
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * <p>
+	 * Publishes this {@link TickMetrics} on the platform's MBean server, under
+	 * the name <code>zeale.evolution:type=TickMetrics,name=</code> followed by
+	 * the given name.
+	 *
+	 * @param name
+	 *            The name to tell this {@link World}'s metrics apart by.
+	 * @return The name that this was registered under.
+	 * @throws IllegalStateException
+	 *             If this couldn't be registered, such as if the name is
+	 *             taken.
+	 */
+	public ObjectName register(final String name) {
+		try {
+			final ObjectName objectName = new ObjectName(
+					"zeale.evolution:type=TickMetrics,name=" + ObjectName.quote(name));
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+			return objectName;
+		} catch (final JMException e) {
+			throw new IllegalStateException("The tick metrics couldn't be registered as " + name, e);
+		}
+	}
+
+	@Override
+	public long getTicks() {
+		return ticks;
+	}
+
+	@Override
+	public double getTickRate() {
+		// If ticks have stopped, the last full window is out of date.
+		final long elapsed = System.nanoTime() - windowStart;
+		return elapsed >= 2 * TickMetrics.RATE_WINDOW ? windowTicks * 1e9 / elapsed : tickRate;
+	}
+
+	@Override
+	public double getTargetTickRate() {
+		final TickScheduler scheduler = this.scheduler;
+		return scheduler == null ? 0 : 1e9 / scheduler.getTickLength();
+	}
+
+	@Override
+	public boolean isBehind() {
+		return getTickRate() < getTargetTickRate();
+	}
+
+	@Override
+	public long getOverruns() {
+		final TickScheduler scheduler = this.scheduler;
+		return scheduler == null ? 0 : scheduler.getOverruns();
+	}
+
+	@Override
+	public long getDroppedTicks() {
+		final TickScheduler scheduler = this.scheduler;
+		return scheduler == null ? 0 : scheduler.getDroppedTicks();
+	}
+
+	@Override
+	public long getSlowTicks() {
+		return slowTicks;
+	}
+
+	@Override
+	public long getOccupiedRegions() {
+		return occupiedRegions;
+	}
+
+	@Override
+	public long getTickHandoffs() {
+		return tickHandoffs;
+	}
+
+	@Override
+	public long getHandoffs() {
+		return handoffs;
+	}
+
+	@Override
+	public LatencySummary getTickLatency() {
+		return tickLatency.summarize();
+	}
+
+	@Override
+	public LatencySummary getStructureLatency() {
+		return structureLatency.summarize();
+	}
+
+	@Override
+	public LatencySummary getBotLatency() {
+		return botLatency.summarize();
+	}
+
+	@Override
+	public LatencySummary getFlushLatency() {
+		return flushLatency.summarize();
+	}
+
+	@Override
+	public LatencySummary getRenderLatency() {
+		return renderLatency.summarize();
+	}
+
+	@Override
+	public Map<String, Long> getEntityCounts() {
+		final Map<String, Long> counts = new TreeMap<>();
+		for (final Map.Entry<Class<?>, AtomicLong> e : entityCounts.entrySet())
+			counts.merge(e.getKey().getSimpleName(), e.getValue().get(), Long::sum);
+		return counts;
+	}
+
+	@Override
+	public void resetLatencies() {
+		tickLatency.reset();
+		structureLatency.reset();
+		botLatency.reset();
+		flushLatency.reset();
+		renderLatency.reset();
+	}
+
+}
@@ -0,0 +1,121 @@
+package zeale.evolution;
+
+import java.util.Map;
+
+/**
+ * <p>
+ * The JMX view of a {@link TickMetrics}, registered by
+ * {@link TickMetrics#register(String)}. Every latency is in microseconds.
+ * <p>
+ * The simulation has fallen behind when {@link #getTickRate()} drops below
+ * {@link #getTargetTickRate()}, or when {@link #getOverruns()} goes up.
+ *
+ * @author Zeale
+ *
+ */
+public interface TickMetricsMXBean {
+
+	/**
+	 * @return The amount of ticks that have been run.
+	 */
+	long getTicks();
+
+	/**
+	 * @return The amount of ticks run per second, measured over about the last
+	 *         second.
+	 */
+	double getTickRate();
+
+	/**
+	 * @return The amount of ticks that should be run per second, or
+	 *         <code>0</code> if the {@link World} isn't paced by a
+	 *         {@link TickScheduler} (such as when it's run headless).
+	 */
+	double getTargetTickRate();
+
+	/**
+	 * @return Whether or not {@link #getTickRate()} is below
+	 *         {@link #getTargetTickRate()}.
+	 */
+	boolean isBehind();
+
+	/**
+	 * @return The amount of times that the {@link TickScheduler} fell so far
+	 *         behind that it dropped ticks.
+	 */
+	long getOverruns();
+
+	/**
+	 * @return The amount of ticks that the {@link TickScheduler} has dropped.
+	 */
+	long getDroppedTicks();
+
+	/**
+	 * @return The amount of ticks that took longer to run than the time that
+	 *         they simulate.
+	 */
+	long getSlowTicks();
+
+	/**
+	 * @return The amount of regions that have a
+	 *         {@link zeale.evolution.bots.Bot Bot} in them, while
+	 *         {@link zeale.evolution.bots.Bot Bot}s are updated in parallel,
+	 *         or <code>0</code>.
+	 */
+	long getOccupiedRegions();
+
+	/**
+	 * @return The amount of {@link zeale.evolution.bots.Bot Bot}s that were
+	 *         handed off from one region to another in the last tick. If this
+	 *         stays high, the regions are too small for how far
+	 *         {@link zeale.evolution.bots.Bot Bot}s move.
+	 */
+	long getTickHandoffs();
+
+	/**
+	 * @return The amount of {@link zeale.evolution.bots.Bot Bot}s that have
+	 *         been handed off from one region to another since the
+	 *         {@link World} was made.
+	 */
+	long getHandoffs();
+
+	/**
+	 * @return The latency of whole ticks.
+	 */
+	LatencySummary getTickLatency();
+
+	/**
+	 * @return The latency of the {@link zeale.evolution.structures.Structure}s'
+	 *         work, per tick.
+	 */
+	LatencySummary getStructureLatency();
+
+	/**
+	 * @return The latency of the {@link zeale.evolution.bots.Bot}s' work, per
+	 *         tick.
+	 */
+	LatencySummary getBotLatency();
+
+	/**
+	 * @return The latency of merging in everything that was added during a
+	 *         tick, per tick.
+	 */
+	LatencySummary getFlushLatency();
+
+	/**
+	 * @return The latency of capturing a frame.
+	 */
+	LatencySummary getRenderLatency();
+
+	/**
+	 * @return The amount of living {@link Object}s of each type, by simple
+	 *         class name.
+	 */
+	Map<String, Long> getEntityCounts();
+
+	/**
+	 * Forgets every latency that has been recorded. The counts are kept.
+	 */
+	void resetLatencies();
+
+}
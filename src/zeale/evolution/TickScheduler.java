@@ -0,0 +1,228 @@
+package zeale.evolution;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>
+ * A fixed timestep tick scheduler. Every tick simulates exactly the same
+ * amount of time, no matter how long it actually took to run.
+ * <p>
+ * Time that passes is added to an accumulator, and ticks are run until the
+ * accumulator holds less than a single tick's worth of time. If the ticks fall
+ * behind, up to {@link #getMaxCatchUpTicks()} ticks are run back to back to
+ * catch up. Anything past that is dropped and reported as an <i>overrun</i>.
+ * Between ticks, the scheduler's thread is parked rather than left spinning.
+ *
+ * @author Zeale
+ *
+ */
+public final class TickScheduler {
+
+	/**
+	 * <p>
+	 * Notified when a {@link TickScheduler} falls so far behind that it has to
+	 * drop ticks.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	@FunctionalInterface
+	public interface OverrunListener {
+		/**
+		 * Called when ticks are dropped.
+		 *
+		 * @param droppedTicks
+		 *            The amount of ticks that were dropped.
+		 */
+		void overrun(long droppedTicks);
+	}
+
+	/**
+	 * The amount of time that a single tick simulates, in nanoseconds.
+	 */
+	private volatile long tickLength;
+
+	/**
+	 * The maximum amount of ticks that are run back to back to catch up.
+	 */
+	private volatile int maxCatchUpTicks;
+
+	/**
+	 * Whether or not this {@link TickScheduler} is running.
+	 */
+	private volatile boolean running;
+
+	/**
+	 * Statistics about this {@link TickScheduler}. These are only ever written
+	 * by the thread that is running this {@link TickScheduler}.
+	 */
+	private volatile long ticks, overruns, droppedTicks;
+
+	/**
+	 * The {@link OverrunListener} that is notified of overruns. This may be
+	 * <code>null</code>.
+	 */
+	private volatile OverrunListener overrunListener;
+
+	/**
+	 * Constructs a new {@link TickScheduler}.
+	 *
+	 * @param tickRate
+	 *            The amount of ticks to run per second.
+	 * @param maxCatchUpTicks
+	 *            The maximum amount of ticks to run back to back when catching
+	 *            up.
+	 */
+	public TickScheduler(final int tickRate, final int maxCatchUpTicks) {
+		setTickRate(tickRate);
+		setMaxCatchUpTicks(maxCatchUpTicks);
+	}
+
+	/**
+	 * <p>
+	 * Runs ticks on the calling thread until {@link #stop()} is called.
+	 *
+	 * @param tick
+	 *            Called for every tick with the amount of time that the tick
+	 *            simulates, in nanoseconds. This is always the same.
+	 * @param frame
+	 *            Called once after every batch of ticks, (such as to repaint
+	 *            the screen). This may be <code>null</code>.
+	 */
+	public void run(final LongConsumer tick, final Runnable frame) {
+		running = true;
+		long previous = System.nanoTime(), accumulator = 0;
+		while (running) {
+			final long now = System.nanoTime(), length = tickLength;
+			accumulator += now - previous;
+			previous = now;
+
+			int steps = 0;
+			while (accumulator >= length && steps < maxCatchUpTicks) {
+				tick.accept(length);
+				accumulator -= length;
+				steps++;
+				ticks++;
+			}
+
+			if (accumulator >= length) {
+				final long dropped = accumulator / length;
+				accumulator %= length;
+				overruns++;
+				droppedTicks += dropped;
+				final OverrunListener listener = overrunListener;
+				if (listener != null)
+					listener.overrun(dropped);
+			}
+
+			if (steps > 0 && frame != null)
+				frame.run();
+
+			// Sleep until the next tick is due.
+			final long wait = length - accumulator - (System.nanoTime() - now);
+			if (wait > 0)
+				LockSupport.parkNanos(this, wait);
+		}
+	}
+
+	/**
+	 * Stops this {@link TickScheduler}. {@link #run(LongConsumer, Runnable)}
+	 * returns after the current batch of ticks.
+	 */
+	public void stop() {
+		running = false;
+	}
+
+	/**
+	 * Sets the amount of ticks that are run per second.
+	 *
+	 * @param tickRate
+	 *            The new tick rate.
+	 */
+	public void setTickRate(final int tickRate) {
+		if (tickRate <= 0)
+			throw new IllegalArgumentException("The tick rate must be positive: " + tickRate);
+		tickLength = 1000000000 / tickRate;
+	}
+
+	/**
+	 * Sets the maximum amount of ticks that are run back to back to catch up.
+	 *
+	 * @param maxCatchUpTicks
+	 *            The new maximum. This must be at least 1.
+	 */
+	public void setMaxCatchUpTicks(final int maxCatchUpTicks) {
+		if (maxCatchUpTicks <= 0)
+			throw new IllegalArgumentException("At least one tick must be run at a time: " + maxCatchUpTicks);
+		this.maxCatchUpTicks = maxCatchUpTicks;
+	}
+
+	/**
+	 * Sets the {@link OverrunListener} that is notified when ticks are
+	 * dropped.
+	 *
+	 * @param overrunListener
+	 *            The new {@link OverrunListener}, or <code>null</code>.
+	 */
+	public void setOverrunListener(final OverrunListener overrunListener) {
+		this.overrunListener = overrunListener;
+	}
+
+	/**
+	 * A getter for {@link #tickLength}.
+	 *
+	 * @return The amount of time that a single tick simulates, in nanoseconds.
+	 */
+	public long getTickLength() {
+		return tickLength;
+	}
+
+	/**
+	 * A getter for {@link #maxCatchUpTicks}.
+	 *
+	 * @return The maximum amount of ticks that are run back to back to catch
+	 *         up.
+	 */
+	public int getMaxCatchUpTicks() {
+		return maxCatchUpTicks;
+	}
+
+	/**
+	 * A getter for {@link #ticks}.
+	 *
+	 * @return The amount of ticks that have been run.
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * A getter for {@link #overruns}.
+	 *
+	 * @return The amount of times that this {@link TickScheduler} fell behind
+	 *         far enough to drop ticks.
+	 */
+	public long getOverruns() {
+		return overruns;
+	}
+
+	/**
+	 * A getter for {@link #droppedTicks}.
+	 *
+	 * @return The total amount of ticks that have been dropped.
+	 */
+	public long getDroppedTicks() {
+		return droppedTicks;
+	}
+
+	/**
+	 * A getter for {@link #running}.
+	 *
+	 * @return Whether or not this {@link TickScheduler} is running.
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+}
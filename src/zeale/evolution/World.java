@@ -0,0 +1,1336 @@
+package zeale.evolution;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import zeale.evolution.bots.Bot;
+import zeale.evolution.bots.BotStore;
+import zeale.evolution.resources.Resource;
+import zeale.evolution.resources.ResourceInventory;
+import zeale.evolution.resources.ResourceTally;
+import zeale.evolution.structures.Spawnpoint;
+import zeale.evolution.structures.Structure;
+import zeale.evolution.structures.resourcespawners.ResourceSpawner;
+
+/**
+ * <p>
+ * The simulation of <i>Evolution</i>. A {@link World} owns all of the
+ * {@link Bot}s and {@link Structure}s in the game and contains the tick logic
+ * that makes them {@link Object#work(long) work}.
+ * <p>
+ * A {@link World} has no dependency on AWT or Swing whatsoever. It can be run
+ * headless (see {@link #run()}), or it can be driven and drawn by an
+ * {@link Evolution} window, which attaches itself to a {@link World} for
+ * rendering.
+ *
+ * @author Zeale
+ *
+ */
+public final class World {
+
+	/**
+	 * The amount of time, in nanoseconds, that a single tick simulates when
+	 * this {@link World} is run headless. This is a sixtieth of a second.
+	 */
+	public static final long TICK_LENGTH = 1000000000 / 60;
+
+	/**
+	 * The size of the cells of this {@link World}'s {@link SpatialGrid}s.
+	 */
+	private static final double GRID_CELL_SIZE = 64;
+
+	/**
+	 * How far past the edges of the area being rendered an {@link Object}'s
+	 * position may be while still being rendered. An {@link Object}'s position
+	 * is only one corner (or the center) of what it draws, so this must be at
+	 * least as big as anything that is drawn.
+	 */
+	private static final double RENDER_MARGIN = 64;
+
+	/**
+	 * The amount of the most recently added {@link Structure}s that a
+	 * {@link World} remembers. See {@link #getAddedStructure(long)}.
+	 */
+	public static final int RECENT_STRUCTURES = 64;
+
+	/**
+	 * The amount of {@link Bot}s that a single task updates when {@link Bot}s
+	 * are updated in parallel.
+	 */
+	private static final int PARALLEL_BATCH_SIZE = 1024;
+
+	/**
+	 * The amount of {@link Command}s that can be waiting to be applied at
+	 * once. See {@link #submit(Command)}.
+	 */
+	public static final int COMMAND_CAPACITY = 4096;
+
+	/**
+	 * An {@link EntityList} of all the {@link Bot}s in this {@link World}.
+	 * {@link Bot}s that are added are held aside until the end of the tick.
+	 */
+	private final EntityList<Bot> bots = new EntityList<>();
+
+	/**
+	 * An {@link EntityList} of all the {@link Structure}s in this {@link World}.
+	 * {@link Structure}s that are added are held aside until every
+	 * {@link Structure} has worked.
+	 */
+	private final EntityList<Structure> structures = new EntityList<>();
+
+	/**
+	 * The {@link SpatialGrid}s that index the positions of the {@link Bot}s and
+	 * {@link Structure}s in this {@link World}. These are kept in sync as
+	 * things are added, moved and killed.
+	 */
+	private final SpatialGrid<Bot> botIndex;
+	private final SpatialGrid<Structure> structureIndex;
+
+	/**
+	 * Reused by {@link #render(RenderSnapshot, double, double, double, double)}
+	 * to hold the {@link Object}s that are in view.
+	 */
+	private final ArrayList<Structure> visibleStructures = new ArrayList<>();
+	private final ArrayList<Bot> visibleBots = new ArrayList<>();
+
+	/**
+	 * The size of this {@link World}. Nothing is spawned outside of these
+	 * bounds.
+	 */
+	private final int width, height;
+
+	/**
+	 * The {@link ForkJoinPool} that {@link Bot}s are updated on, or
+	 * <code>null</code> if {@link Bot}s are updated one after another on the
+	 * ticking thread. See {@link #setParallelism(int)}.
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * The {@link RegionShards} that own this {@link World}'s {@link Bot}s while
+	 * they're updated in parallel, or <code>null</code> if they aren't, or if
+	 * they're kept in a {@link BotStore} (which is split up by slot instead).
+	 * See {@link #setParallelism(int)}.
+	 */
+	private RegionShards shards;
+
+	/**
+	 * The {@link BotStore} that holds the state of every {@link Bot} in this
+	 * {@link World}, or <code>null</code> if each {@link Bot} holds its own.
+	 * See {@link #setColumnar(boolean)}.
+	 */
+	private BotStore store;
+
+	/**
+	 * The seed that this {@link World} was made from, and the {@link Rng} made
+	 * from it. Every {@link Object} that is added to this {@link World} gets its
+	 * own {@link Rng}, {@link Rng#split() split} off from this one.
+	 */
+	private final long seed;
+	private final Rng random;
+
+	/**
+	 * The amount of ticks that this {@link World} has run.
+	 */
+	private long ticks;
+
+	/**
+	 * The {@link Listener} that is told about what happens in this
+	 * {@link World}. This is never <code>null</code>.
+	 */
+	private Listener listener = World.NO_LISTENER;
+
+	/**
+	 * The {@link Parameters} of this {@link World}. This is never
+	 * <code>null</code>.
+	 */
+	private Parameters parameters = Parameters.DEFAULT;
+
+	/**
+	 * The {@link TickMetrics} that every tick of this {@link World} is
+	 * measured by.
+	 */
+	private final TickMetrics metrics = new TickMetrics();
+
+	/**
+	 * The {@link #RECENT_STRUCTURES} {@link Structure}s that were added to
+	 * this {@link World} most recently, in a ring, and the amount of
+	 * {@link Structure}s that have ever been added.
+	 */
+	private final Structure[] recentStructures = new Structure[World.RECENT_STRUCTURES];
+	private long structuresAdded;
+
+	/**
+	 * The IDs of every {@link Object} in this {@link World}.
+	 */
+	private final EntityIds ids = new EntityIds();
+
+	/**
+	 * The amount of {@link Bot}s that have ever been added to this
+	 * {@link World}, and the amount of {@link Bot}s and {@link Structure}s that
+	 * have ever been killed in it. Both are only counted once they've been
+	 * flushed in, so the amount that are alive is always the amount added
+	 * minus the amount killed.
+	 */
+	private long botsAdded, botsKilled, structuresKilled;
+
+	/**
+	 * The amount of {@link Spawnpoint}s and {@link ResourceSpawner}s in this
+	 * {@link World}, and the amount of {@link Resource}s held by its
+	 * {@link Bot}s, {@link ResourceSpawner}s and {@link Spawnpoint}s. These
+	 * are kept up to date as things are flushed in and removed, so that they
+	 * never have to be counted up.
+	 */
+	private long spawnpoints, resourceSpawners;
+	private final ResourceTally resourcesInBots = new ResourceTally(), resourcesInSpawners = new ResourceTally(),
+			resourcesInSpawnpoints = new ResourceTally();
+
+	/**
+	 * The {@link StatsSampler} that samples this {@link World} after every
+	 * tick, or <code>null</code> if it isn't sampled. This is volatile since
+	 * it may be set from another thread, such as a shutdown hook.
+	 */
+	private volatile StatsSampler sampler;
+
+	/**
+	 * The {@link Command}s that have been submitted and are waiting for the
+	 * next tick.
+	 */
+	private final CommandQueue commands = new CommandQueue(World.COMMAND_CAPACITY);
+
+	/**
+	 * The {@link Listener} of {@link World}s that have none.
+	 */
+	private static final Listener NO_LISTENER = new Listener() {
+	};
+
+	/**
+	 * <p>
+	 * Constructs a new {@link World} of the given size and populates it with
+	 * the starting {@link Bot}s and {@link Structure}s.
+	 *
+	 * @param width
+	 *            The width of the {@link World}.
+	 * @param height
+	 *            The height of the {@link World}.
+	 */
+	public World(final int width, final int height) {
+		this(width, height, true);
+	}
+
+	/**
+	 * <p>
+	 * Constructs a new {@link World} of the given size from a seed, and
+	 * populates it with the starting {@link Bot}s and {@link Structure}s.
+	 * {@link World}s made from the same seed play out exactly the same way,
+	 * whether or not their {@link Bot}s are updated in parallel or kept in a
+	 * {@link BotStore}: every {@link Bot} is {@link Bot#update(long) updated}
+	 * against the same state of the {@link World}, and then their effects are
+	 * {@link Bot#commit() committed} in order (see {@link #tick(long)}).
+	 *
+	 * @param width
+	 *            The width of the {@link World}.
+	 * @param height
+	 *            The height of the {@link World}.
+	 * @param seed
+	 *            The seed of the {@link World}.
+	 */
+	public World(final int width, final int height, final long seed) {
+		this(width, height, true, seed);
+	}
+
+	/**
+	 * <p>
+	 * Constructs a new {@link World} of the given size, which is either
+	 * populated with the starting {@link Bot}s and {@link Structure}s or left
+	 * empty (such as for loading a {@link SaveFile} into).
+	 *
+	 * @param width
+	 *            The width of the {@link World}.
+	 * @param height
+	 *            The height of the {@link World}.
+	 * @param populate
+	 *            Whether or not to add the starting {@link Bot}s and
+	 *            {@link Structure}s.
+	 */
+	public World(final int width, final int height, final boolean populate) {
+		this(width, height, populate, Rng.randomSeed());
+	}
+
+	/**
+	 * <p>
+	 * Constructs a new {@link World} of the given size from a seed, which is
+	 * either populated with the starting {@link Bot}s and {@link Structure}s
+	 * or left empty.
+	 *
+	 * @param width
+	 *            The width of the {@link World}.
+	 * @param height
+	 *            The height of the {@link World}.
+	 * @param populate
+	 *            Whether or not to add the starting {@link Bot}s and
+	 *            {@link Structure}s.
+	 * @param seed
+	 *            The seed of the {@link World}.
+	 */
+	public World(final int width, final int height, final boolean populate, final long seed) {
+		this.width = width;
+		this.height = height;
+		this.seed = seed;
+		random = new Rng(seed);
+		botIndex = new SpatialGrid<>(width, height, World.GRID_CELL_SIZE);
+		structureIndex = new SpatialGrid<>(width, height, World.GRID_CELL_SIZE);
+		if (!populate)
+			return;
+		addStruct(new ResourceSpawner(random.nextInt(width), random.nextInt(height), (short) 10, random));
+		addStruct(new ResourceSpawner(random.nextInt(width), random.nextInt(height), (short) 25, random));
+		addBot(new Bot(random.nextInt(width), random.nextInt(height)));
+		addBot(new Bot(random.nextInt(width), random.nextInt(height)));
+		addStruct(new Spawnpoint(960, 540));
+		flushStructures();
+		flushBots();
+	}
+
+	/**
+	 * <p>
+	 * Runs a single tick of the simulation. Every {@link Command} that was
+	 * {@link #submit(Command) submitted} since the last tick is applied first.
+	 * Then every living {@link Structure} works, then every living {@link Bot}
+	 * is {@link Bot#update(long) updated}, possibly in parallel, and then the
+	 * effects of each {@link Bot} are {@link Bot#commit() committed}, in the
+	 * order of {@link #bots}. Anything that was added during the tick is
+	 * merged in once its list has been iterated over, and anything that was
+	 * killed is cleared out of the lists at the end of the tick. Each of these
+	 * phases is timed by this {@link World}'s {@link TickMetrics}, and once
+	 * the tick is done, this {@link World}'s {@link StatsSampler} (if it has
+	 * one) samples it.
+	 *
+	 * @param delta
+	 *            The amount of time that this tick simulates, in nanoseconds.
+	 */
+	public void tick(final long delta) {
+		commands.drain(this);
+		listener.ticking(delta);
+		final long start = System.nanoTime();
+		for (int i = 0; i < structures.extent(); i++) {
+			final Structure s = structures.get(i);
+			if (s != null && s.isAlive())
+				s.work(delta);
+		}
+		final long structuresDone = System.nanoTime();
+		flushStructures();
+		final long botsStart = System.nanoTime();
+
+		// Every bot reads the same state of the world while it's updated, then
+		// the effects are applied in order, so the outcome is the same no
+		// matter how (or whether) the work was split up.
+		final int extent = bots.extent();
+		if (store != null)
+			if (pool == null)
+				store.update(delta, 0, store.size());
+			else
+				pool.invoke(new BotUpdateTask(store, 0, store.size(), delta));
+		else if (pool != null)
+			shards.update(pool, World.PARALLEL_BATCH_SIZE, delta);
+		else
+			for (int i = 0; i < extent; i++) {
+				final Bot b = bots.get(i);
+				if (b != null && b.isAlive())
+					b.update(delta);
+			}
+		for (int i = 0; i < extent; i++) {
+			final Bot b = bots.get(i);
+			if (b == null)
+				continue;
+			b.commit();
+			if (b.isAlive()) {
+				botIndex.update(b);
+				if (shards != null)
+					shards.update(b);
+			}
+		}
+		final long botsDone = System.nanoTime();
+		flushBots();
+		flushStructures();
+		final long end = System.nanoTime();
+		if (shards != null)
+			metrics.shards(shards.getOccupiedRegions(), shards.takeHandoffs());
+		metrics.tick(structuresDone - start, botsDone - botsStart, botsStart - structuresDone + end - botsDone,
+				end - start, delta);
+		ticks++;
+		final StatsSampler sampler = this.sampler;
+		if (sampler != null)
+			sampler.sample(this);
+		listener.ticked();
+	}
+
+	/**
+	 * Flushes {@link #structures} and then {@link #bots}, so that anything that
+	 * was added outside of a tick is in this {@link World} straight away.
+	 */
+	void flush() {
+		flushStructures();
+		flushBots();
+	}
+
+	/**
+	 * Flushes {@link #structures} and indexes any {@link Structure}s that were
+	 * added. {@link Structure}s are added in a set order, so they are given
+	 * their {@link Rng}s and IDs here.
+	 */
+	private void flushStructures() {
+		final int added = structures.flush();
+		for (int i = structures.extent() - added; i < structures.extent(); i++) {
+			final Structure s = structures.get(i);
+			if (((Object) s).random == null)
+				((Object) s).random = random.split();
+			if (((Object) s).id == EntityIds.NONE)
+				ids.assign(s);
+			track(s, true);
+			structureIndex.add(s);
+			metrics.added(s);
+			recentStructures[(int) (structuresAdded++ % World.RECENT_STRUCTURES)] = s;
+		}
+	}
+
+	/**
+	 * Flushes {@link #bots} and indexes (and, if needed, stores) any
+	 * {@link Bot}s that were added, giving them their {@link Rng}s and IDs.
+	 */
+	private void flushBots() {
+		final int added = bots.flush();
+		for (int i = bots.extent() - added; i < bots.extent(); i++) {
+			final Bot b = bots.get(i);
+			if (((Object) b).random == null)
+				((Object) b).random = random.split();
+			if (((Object) b).id == EntityIds.NONE)
+				ids.assign(b);
+			b.getResources().setTally(resourcesInBots);
+			botIndex.add(b);
+			if (shards != null)
+				shards.add(b);
+			metrics.added(b);
+			if (store != null)
+				store.attach(b);
+		}
+		botsAdded += added;
+	}
+
+	/**
+	 * Starts or stops counting a {@link Structure} of a type that this
+	 * {@link World} keeps totals for.
+	 */
+	private void track(final Structure struct, final boolean tracked) {
+		if (struct instanceof Spawnpoint) {
+			spawnpoints += tracked ? 1 : -1;
+			((Spawnpoint) struct).getResources().setTally(tracked ? resourcesInSpawnpoints : null);
+		} else if (struct instanceof ResourceSpawner) {
+			resourceSpawners += tracked ? 1 : -1;
+			((ResourceSpawner) struct).getResources().setTally(tracked ? resourcesInSpawners : null);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Runs this {@link World} headless, forever. Ticks are run one after
+	 * another as fast as the CPU allows, each simulating {@link #TICK_LENGTH}
+	 * nanoseconds.
+	 */
+	public void run() {
+		while (true)
+			tick(World.TICK_LENGTH);
+	}
+
+	/**
+	 * <p>
+	 * Runs this {@link World} headless for the specified amount of ticks. Ticks
+	 * are run one after another as fast as the CPU allows, each simulating
+	 * {@link #TICK_LENGTH} nanoseconds.
+	 *
+	 * @param ticks
+	 *            The amount of ticks to run.
+	 */
+	public void run(final long ticks) {
+		for (long i = 0; i < ticks; i++)
+			tick(World.TICK_LENGTH);
+	}
+
+	/**
+	 * A getter for {@link #seed}.
+	 *
+	 * @return The seed that this {@link World} was made from.
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * A getter for this {@link World}'s {@link Rng}, which every {@link Object}
+	 * added to it gets its {@link Rng} from.
+	 *
+	 * @return The {@link Rng} of this {@link World}.
+	 */
+	public Rng getRandom() {
+		return random;
+	}
+
+	/**
+	 * A getter for {@link #ticks}.
+	 *
+	 * @return The amount of ticks that this {@link World} has run.
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * Sets the amount of ticks that this {@link World} has run, such as when
+	 * it's loaded from a {@link SaveFile}.
+	 */
+	void setTicks(final long ticks) {
+		this.ticks = ticks;
+	}
+
+	/**
+	 * A getter for the amount of {@link Structure}s that have ever been added
+	 * to this {@link World}. This only goes up, and only changes when
+	 * {@link Structure}s that were added are merged in, between phases of a
+	 * tick.
+	 *
+	 * @return The amount of {@link Structure}s that have been added.
+	 */
+	public long getStructuresAdded() {
+		return structuresAdded;
+	}
+
+	/**
+	 * A getter for the amount of {@link Structure}s that have ever been killed
+	 * in this {@link World}.
+	 *
+	 * @return The amount of {@link Structure}s that have been killed.
+	 */
+	public long getStructuresKilled() {
+		return structuresKilled;
+	}
+
+	/**
+	 * A getter for the amount of {@link Bot}s that have ever been added to
+	 * this {@link World}. Like {@link #getStructuresAdded()}, this only changes
+	 * when {@link Bot}s that were added are merged in.
+	 *
+	 * @return The amount of {@link Bot}s that have been added.
+	 */
+	public long getBotsAdded() {
+		return botsAdded;
+	}
+
+	/**
+	 * A getter for the amount of {@link Bot}s that have ever been killed in
+	 * this {@link World}.
+	 *
+	 * @return The amount of {@link Bot}s that have been killed.
+	 */
+	public long getBotsKilled() {
+		return botsKilled;
+	}
+
+	/**
+	 * <p>
+	 * Gets one of the {@link Structure}s that were added to this {@link World}
+	 * most recently. Together with {@link #getStructuresAdded()}, this lets
+	 * anything that depends on the {@link Structure}s of this {@link World}
+	 * check just the ones that are new, rather than searching again.
+	 *
+	 * @param index
+	 *            Which {@link Structure} to get, counting from the first one
+	 *            that was ever added, from <code>0</code>.
+	 * @return The {@link Structure}, which may have been killed since, or
+	 *         <code>null</code> if it was added more than
+	 *         {@link #RECENT_STRUCTURES} {@link Structure}s ago, or hasn't been
+	 *         added yet.
+	 */
+	public Structure getAddedStructure(final long index) {
+		if (index < 0 || index >= structuresAdded || structuresAdded - index > World.RECENT_STRUCTURES)
+			return null;
+		return recentStructures[(int) (index % World.RECENT_STRUCTURES)];
+	}
+
+	/**
+	 * A getter for the amount of {@link Spawnpoint}s in this {@link World}.
+	 *
+	 * @return The amount of {@link Spawnpoint}s that have been flushed in and
+	 *         not removed.
+	 */
+	public long getSpawnpointCount() {
+		return spawnpoints;
+	}
+
+	/**
+	 * A getter for the amount of {@link ResourceSpawner}s in this
+	 * {@link World}.
+	 *
+	 * @return The amount of {@link ResourceSpawner}s that have been flushed in
+	 *         and not removed.
+	 */
+	public long getResourceSpawnerCount() {
+		return resourceSpawners;
+	}
+
+	/**
+	 * A getter for the amount of {@link Resource}s held by the {@link Bot}s in
+	 * this {@link World}.
+	 *
+	 * @return The amount of {@link Resource}s that {@link Bot}s are carrying.
+	 */
+	public long getResourcesInBots() {
+		return resourcesInBots.get();
+	}
+
+	/**
+	 * A getter for the amount of {@link Resource}s held by the
+	 * {@link ResourceSpawner}s in this {@link World}.
+	 *
+	 * @return The amount of {@link Resource}s left in
+	 *         {@link ResourceSpawner}s.
+	 */
+	public long getResourcesInSpawners() {
+		return resourcesInSpawners.get();
+	}
+
+	/**
+	 * A getter for the amount of {@link Resource}s held by the
+	 * {@link Spawnpoint}s in this {@link World}.
+	 *
+	 * @return The amount of {@link Resource}s banked in {@link Spawnpoint}s.
+	 */
+	public long getResourcesInSpawnpoints() {
+		return resourcesInSpawnpoints.get();
+	}
+
+	/**
+	 * Gets the {@link Object} in this {@link World} that an ID belongs to. See
+	 * {@link Object#getId()}.
+	 *
+	 * @param id
+	 *            The ID.
+	 * @return The {@link Object}, or <code>null</code> if the ID is
+	 *         {@link EntityIds#NONE} or its {@link Object} has since been
+	 *         removed from this {@link World}.
+	 */
+	public Object getEntity(final long id) {
+		return ids.get(id);
+	}
+
+	/**
+	 * A getter for the {@link EntityIds} of this {@link World}.
+	 *
+	 * @return The table that the IDs of this {@link World}'s {@link Object}s
+	 *         are kept in.
+	 */
+	EntityIds getIds() {
+		return ids;
+	}
+
+	/**
+	 * A getter for the {@link TickMetrics} of this {@link World}.
+	 *
+	 * @return The {@link TickMetrics} that every tick of this {@link World} is
+	 *         measured by.
+	 */
+	public TickMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Sets the {@link Listener} of this {@link World}, replacing any other.
+	 *
+	 * @param listener
+	 *            The {@link Listener}, or <code>null</code> for none.
+	 */
+	public void setListener(final Listener listener) {
+		this.listener = listener == null ? World.NO_LISTENER : listener;
+	}
+
+	/**
+	 * A getter for the {@link Listener} of this {@link World}.
+	 *
+	 * @return The {@link Listener} of this {@link World}. If none has been set,
+	 *         this is one that ignores everything.
+	 */
+	public Listener getListener() {
+		return listener;
+	}
+
+	/**
+	 * <p>
+	 * Sets the {@link Parameters} that this {@link World} plays out with.
+	 * <p>
+	 * {@link Parameters} aren't part of a {@link SaveFile} or an
+	 * {@link EventLog}, so a {@link World} that isn't using
+	 * {@link Parameters#DEFAULT} can't be loaded or replayed faithfully.
+	 *
+	 * @param parameters
+	 *            The {@link Parameters}, or <code>null</code> for
+	 *            {@link Parameters#DEFAULT}.
+	 */
+	public void setParameters(final Parameters parameters) {
+		this.parameters = parameters == null ? Parameters.DEFAULT : parameters;
+	}
+
+	/**
+	 * A getter for the {@link Parameters} of this {@link World}.
+	 *
+	 * @return The {@link Parameters} that this {@link World} plays out with.
+	 */
+	public Parameters getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * Sets the {@link StatsSampler} that samples this {@link World} at the end
+	 * of every tick, replacing any other.
+	 *
+	 * @param sampler
+	 *            The {@link StatsSampler}, or <code>null</code> for none.
+	 */
+	public void setSampler(final StatsSampler sampler) {
+		this.sampler = sampler;
+	}
+
+	/**
+	 * A getter for the {@link StatsSampler} of this {@link World}.
+	 *
+	 * @return The {@link StatsSampler} of this {@link World}, or
+	 *         <code>null</code> if it has none.
+	 */
+	public StatsSampler getSampler() {
+		return sampler;
+	}
+
+	/**
+	 * <p>
+	 * Renders every living {@link Structure} and then every living {@link Bot}
+	 * in this {@link World} into a {@link RenderSnapshot}. This must be called
+	 * on the thread that ticks this {@link World}, between ticks.
+	 *
+	 * @param snapshot
+	 *            The {@link RenderSnapshot} to render into.
+	 */
+	public void render(final RenderSnapshot snapshot) {
+		for (int i = 0; i < structures.extent(); i++) {
+			final Structure s = structures.get(i);
+			if (s != null && s.isAlive())
+				s.render(snapshot);
+		}
+		for (int i = 0; i < bots.extent(); i++) {
+			final Bot b = bots.get(i);
+			if (b != null && b.isAlive())
+				b.render(snapshot);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Renders every living {@link Structure} and then every living {@link Bot}
+	 * that can be seen in the given area into a {@link RenderSnapshot}.
+	 * Everything else is skipped without being looked at, since the
+	 * {@link Object}s in view are found through this {@link World}'s
+	 * {@link SpatialGrid}s. This must be called on the thread that ticks this
+	 * {@link World}, between ticks.
+	 *
+	 * @param snapshot
+	 *            The {@link RenderSnapshot} to render into.
+	 * @param minX
+	 *            The left edge of the area in view.
+	 * @param minY
+	 *            The top edge of the area in view.
+	 * @param maxX
+	 *            The right edge of the area in view.
+	 * @param maxY
+	 *            The bottom edge of the area in view.
+	 */
+	public void render(final RenderSnapshot snapshot, final double minX, final double minY, final double maxX,
+			final double maxY) {
+		structureIndex.inside(minX - RENDER_MARGIN, minY - RENDER_MARGIN, maxX + RENDER_MARGIN,
+				maxY + RENDER_MARGIN, visibleStructures);
+		for (int i = 0; i < visibleStructures.size(); i++) {
+			final Structure s = visibleStructures.get(i);
+			if (s.isAlive())
+				s.render(snapshot);
+		}
+		botIndex.inside(minX - RENDER_MARGIN, minY - RENDER_MARGIN, maxX + RENDER_MARGIN, maxY + RENDER_MARGIN,
+				visibleBots);
+		for (int i = 0; i < visibleBots.size(); i++) {
+			final Bot b = visibleBots.get(i);
+			if (b.isAlive())
+				b.render(snapshot);
+		}
+		visibleStructures.clear();
+		visibleBots.clear();
+	}
+
+	/**
+	 * <p>
+	 * Sets the amount of threads that {@link Bot}s are updated on. With more
+	 * than one thread, every tick's {@link Bot}s are {@link Bot#update(long)
+	 * updated} in parallel on a {@link ForkJoinPool} and their effects are
+	 * then {@link Bot#commit() committed} in order, on the ticking thread.
+	 * <p>
+	 * While updated in parallel, the {@link Bot}s are divided between the
+	 * regions of a {@link RegionShards}, and each region's {@link Bot}s are
+	 * updated together, on the same thread. {@link Bot}s that leave their
+	 * region are handed off to the next one as they're committed. This isn't
+	 * done while the {@link World} is {@link #setColumnar(boolean) columnar};
+	 * the {@link BotStore} is split into batches of slots instead.
+	 *
+	 * @param threads
+	 *            The amount of threads to use. <code>1</code> or less updates
+	 *            {@link Bot}s one after another on the ticking thread.
+	 */
+	public void setParallelism(final int threads) {
+		if (pool != null)
+			pool.shutdown();
+		pool = threads > 1 ? new ForkJoinPool(threads) : null;
+		updateShards();
+	}
+
+	/**
+	 * Makes or drops the {@link RegionShards}, so that there are some exactly
+	 * when {@link Bot}s are updated in parallel without a {@link BotStore}.
+	 */
+	private void updateShards() {
+		if (pool == null || store != null) {
+			if (shards != null)
+				metrics.shards(0, 0);
+			shards = null;
+		} else if (shards == null) {
+			shards = new RegionShards(width, height, RegionShards.REGION_SIZE);
+			for (final Bot b : bots)
+				shards.add(b);
+		}
+	}
+
+	/**
+	 * A getter for the amount of threads that {@link Bot}s are updated on.
+	 *
+	 * @return The amount of threads that {@link Bot}s are updated on. See
+	 *         {@link #setParallelism(int)}.
+	 */
+	public int getParallelism() {
+		return pool == null ? 1 : pool.getParallelism();
+	}
+
+	/**
+	 * <p>
+	 * Sets whether or not the state of this {@link World}'s {@link Bot}s is
+	 * kept in a {@link BotStore}. When it is, {@link Bot}s are updated with
+	 * linear scans over the store's arrays (see
+	 * {@link BotStore#update(long, int, int)}) and their effects are then
+	 * {@link Bot#commit() committed} in order, like when they're updated in
+	 * parallel.
+	 *
+	 * @param columnar
+	 *            <code>true</code> to keep {@link Bot} state in a
+	 *            {@link BotStore}, <code>false</code> to have each {@link Bot}
+	 *            hold its own.
+	 */
+	public void setColumnar(final boolean columnar) {
+		if (columnar == (store != null))
+			return;
+		if (columnar) {
+			store = new BotStore(bots.size());
+			for (final Bot b : bots)
+				store.attach(b);
+		} else {
+			for (final Bot b : bots)
+				store.detach(b);
+			store = null;
+		}
+		updateShards();
+	}
+
+	/**
+	 * A getter for whether or not {@link Bot} state is kept in a
+	 * {@link BotStore}.
+	 *
+	 * @return <code>true</code> if this {@link World}'s {@link Bot}s are
+	 *         handles into a {@link BotStore}. See
+	 *         {@link #setColumnar(boolean)}.
+	 */
+	public boolean isColumnar() {
+		return store != null;
+	}
+
+	/**
+	 * Adds a {@link Bot} to this {@link World}.
+	 *
+	 * @param bot
+	 *            The {@link Bot} that will be added to this {@link World}.
+	 * @return As specified in {@link EntityList#add(Object)}.
+	 */
+	public boolean addBot(final Bot bot) {
+		((Object) bot).world = this;
+		listener.added(bot);
+		return bots.add(bot);
+	}
+
+	/**
+	 * Adds a {@link Structure} to this {@link World}.
+	 *
+	 * @param struct
+	 *            The {@link Structure} that will be added to this
+	 *            {@link World}.
+	 * @return As specified in {@link EntityList#add(Object)}.
+	 */
+	public boolean addStruct(final Structure struct) {
+		((Object) struct).world = this;
+		listener.added(struct);
+		return structures.add(struct);
+	}
+
+	/**
+	 * Removes a {@link Bot} from this {@link World}. This is called when a
+	 * {@link Bot} is killed.
+	 *
+	 * @param bot
+	 *            The {@link Bot} to remove.
+	 * @return As specified in {@link EntityList#remove(Object)}.
+	 */
+	public boolean removeBot(final Bot bot) {
+		if (!bots.contains(bot))
+			return false;
+		// A bot that hasn't been flushed in yet was never counted, so it
+		// doesn't count as a death either.
+		final boolean flushed = ((Object) bot).listSlot >= 0;
+		// This is recorded first, while the bot still has its slot.
+		listener.killed(bot);
+		botIndex.remove(bot);
+		if (shards != null)
+			shards.remove(bot);
+		if (store != null)
+			store.detach(bot);
+		bots.remove(bot);
+		ids.release(bot);
+		if (flushed) {
+			botsKilled++;
+			metrics.removed(bot);
+			bot.getResources().setTally(null);
+		}
+		return true;
+	}
+
+	/**
+	 * Removes a {@link Structure} from this {@link World}. This is called when
+	 * a {@link Structure} is killed.
+	 *
+	 * @param struct
+	 *            The {@link Structure} to remove.
+	 * @return As specified in {@link EntityList#remove(Object)}.
+	 */
+	public boolean removeStruct(final Structure struct) {
+		if (!structures.contains(struct))
+			return false;
+		// A structure that hasn't been flushed in yet was never counted, so
+		// it doesn't count as a death either.
+		final boolean flushed = ((Object) struct).listSlot >= 0;
+		// This is recorded first, while the structure still has its slot.
+		listener.killed(struct);
+		structureIndex.remove(struct);
+		structures.remove(struct);
+		ids.release(struct);
+		if (flushed) {
+			structuresKilled++;
+			metrics.removed(struct);
+			track(struct, false);
+		}
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Submits a {@link Command} to be applied to this {@link World} at the
+	 * start of its next tick, on the thread that ticks it. Unlike everything
+	 * else that changes a {@link World}, this can be called from any thread,
+	 * at any time, and never waits for a lock. {@link Command}s are applied in
+	 * the order that they were submitted.
+	 * <p>
+	 * {@link Command}s come from outside of the simulation, so they aren't
+	 * part of an {@link EventLog}. A {@link World} that is changed by one
+	 * can't be replayed past that point.
+	 *
+	 * @param command
+	 *            The {@link Command}.
+	 * @return <code>true</code> if the {@link Command} was submitted,
+	 *         <code>false</code> if {@link #COMMAND_CAPACITY} {@link Command}s
+	 *         are already waiting.
+	 */
+	public boolean submit(final Command command) {
+		return commands.offer(command);
+	}
+
+	/**
+	 * Submits a {@link Command} that {@link #addBot(Bot) adds} a {@link Bot}.
+	 * See {@link #submit(Command)}.
+	 *
+	 * @param bot
+	 *            The {@link Bot} to add.
+	 * @return <code>true</code> if the {@link Command} was submitted.
+	 */
+	public boolean submitSpawn(final Bot bot) {
+		return submit(world -> world.addBot(bot));
+	}
+
+	/**
+	 * Submits a {@link Command} that {@link #addStruct(Structure) adds} a
+	 * {@link Structure}. See {@link #submit(Command)}.
+	 *
+	 * @param struct
+	 *            The {@link Structure} to add.
+	 * @return <code>true</code> if the {@link Command} was submitted.
+	 */
+	public boolean submitSpawn(final Structure struct) {
+		return submit(world -> world.addStruct(struct));
+	}
+
+	/**
+	 * Submits a {@link Command} that {@link Object#kill() kills} an
+	 * {@link Object}, if it's still alive by then. See
+	 * {@link #submit(Command)}.
+	 *
+	 * @param object
+	 *            The {@link Object} to kill.
+	 * @return <code>true</code> if the {@link Command} was submitted.
+	 */
+	public boolean submitKill(final Object object) {
+		return submit(world -> {
+			if (object.isAlive())
+				object.kill();
+		});
+	}
+
+	/**
+	 * Submits a {@link Command} that moves an {@link Object} to a position,
+	 * and updates this {@link World}'s indices to match. See
+	 * {@link #submit(Command)}.
+	 *
+	 * @param object
+	 *            The {@link Object} to move.
+	 * @param x
+	 *            The new x position.
+	 * @param y
+	 *            The new y position.
+	 * @return <code>true</code> if the {@link Command} was submitted.
+	 */
+	public boolean submitMove(final Object object, final double x, final double y) {
+		return submit(world -> world.move(object, x, y));
+	}
+
+	/**
+	 * Submits a {@link Command} that moves as many {@link Resource}s as will
+	 * fit from one {@link ResourceInventory} into another. See
+	 * {@link #submit(Command)}.
+	 *
+	 * @param source
+	 *            The {@link ResourceInventory} to take {@link Resource}s from.
+	 * @param destination
+	 *            The {@link ResourceInventory} to put them into.
+	 * @return <code>true</code> if the {@link Command} was submitted.
+	 */
+	public boolean submitTransfer(final ResourceInventory source, final ResourceInventory destination) {
+		return submit(world -> source.transferTo(destination));
+	}
+
+	/**
+	 * Moves an {@link Object} and updates whichever of this {@link World}'s
+	 * indices it's in.
+	 */
+	private void move(final Object object, final double x, final double y) {
+		object.setX(x);
+		object.setY(y);
+		if (object instanceof Bot) {
+			final Bot b = (Bot) object;
+			botIndex.update(b);
+			if (shards != null)
+				shards.update(b);
+		} else if (object instanceof Structure)
+			structureIndex.update((Structure) object);
+	}
+
+	/**
+	 * <p>
+	 * <strong>A getter for the {@link Bot}s List in this {@link World}.</strong>
+	 *
+	 * @return The {@link #bots} list that's used by this {@link World}.
+	 */
+	public EntityList<Bot> getBots() {
+		return bots;
+	}
+
+	/**
+	 * <p>
+	 * <strong>A getter for the {@link Structure}s List in this
+	 * {@link World}.</strong>
+	 *
+	 * @return The {@link #structures} list used by this {@link World}.
+	 */
+	public EntityList<Structure> getStructures() {
+		return structures;
+	}
+
+	/**
+	 * A getter for the {@link SpatialGrid} of the {@link Bot}s in this
+	 * {@link World}. This can be used for k-nearest and within-radius queries.
+	 *
+	 * @return The {@link SpatialGrid} of this {@link World}'s {@link Bot}s.
+	 */
+	public SpatialGrid<Bot> getBotIndex() {
+		return botIndex;
+	}
+
+	/**
+	 * A getter for the {@link SpatialGrid} of the {@link Structure}s in this
+	 * {@link World}. This can be used for k-nearest and within-radius queries.
+	 *
+	 * @return The {@link SpatialGrid} of this {@link World}'s
+	 *         {@link Structure}s.
+	 */
+	public SpatialGrid<Structure> getStructureIndex() {
+		return structureIndex;
+	}
+
+	/**
+	 * A width getter.
+	 *
+	 * @return The width of this {@link World}.
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * A height getter.
+	 *
+	 * @return The height of this {@link World}.
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * <p>
+	 * A get method for all the living {@link Bot}s.
+	 * <p>
+	 * NOTE: <strong>There is no guarantee that the returned list is not
+	 * empty.</strong>
+	 *
+	 * @return A new {@link LinkedList} containing all the living {@link Bot}s
+	 *         in this {@link World}.
+	 */
+	public LinkedList<Bot> getLivingBots() {
+		final LinkedList<Bot> list = new LinkedList<>();
+		for (final Bot b : bots)
+			if (b.isAlive())
+				list.add(b);
+		return list;
+	}
+
+	/**
+	 * <p>
+	 * A get method for all the living {@link Structure}s.
+	 * <p>
+	 * NOTE: <strong>There is no guarantee that the returned list is not
+	 * empty.</strong>
+	 *
+	 * @return A new {@link LinkedList} containing all the living
+	 *         {@link Structure}s in this {@link World}.
+	 */
+	public LinkedList<Structure> getLivingStructures() {
+		final LinkedList<Structure> list = new LinkedList<>();
+		for (final Structure s : structures)
+			if (s.isAlive())
+				list.add(s);
+		return list;
+	}
+
+	/**
+	 * Gets the closest living {@link Bot} of the specified type. See
+	 * {@link Evolution#getClosestBot(Object, Class)} for more details.
+	 *
+	 * @param object
+	 *            Any {@link Object}. The returned {@link Bot} will be the
+	 *            closest of its type, to this {@link Object}.
+	 * @param botClass
+	 *            The Type of {@link Bot} to look for.
+	 * @return The {@link Bot} of Type <code>botClass</code> which is closest to
+	 *         <code>object</code>.
+	 */
+	public <T extends Bot> T getClosestBot(final Object object, final Class<T> botClass) {
+		return botIndex.nearest(object, botClass);
+	}
+
+	/**
+	 * Gets the closest living {@link Structure} of the specified type. See
+	 * {@link Evolution#getClosestStructure(Object, Class)} for more details.
+	 *
+	 * @param object
+	 *            Any {@link Object}. The returned {@link Structure} will be the
+	 *            closest of its type, to this {@link Object}.
+	 * @param structClass
+	 *            The Type of {@link Structure} to look for.
+	 * @return The {@link Structure} of Type <code>structClass</code> which is
+	 *         closest to <code>object</code>.
+	 */
+	public <T extends Structure> T getClosestStructure(final Object object, final Class<T> structClass) {
+		return structureIndex.nearest(object, structClass);
+	}
+
+	/**
+	 * Returns a new {@link LinkedList} of all the living {@link Bot}s of the
+	 * specified type. Only {@link Bot}s whose class is exactly
+	 * <code>botClass</code> are included.
+	 *
+	 * @param botClass
+	 *            The type of {@link Bot} to search for.
+	 * @return A new {@link LinkedList} with all the found {@link Bot}s.
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Bot> LinkedList<T> getSpecBots(final Class<T> botClass) {
+		final LinkedList<T> list = new LinkedList<>();
+		for (final Bot bot : bots) {
+			if (!bot.isAlive() || bot.getClass() != botClass)
+				continue;
+			list.add((T) bot);
+		}
+
+		return list;
+	}
+
+	/**
+	 * <p>
+	 * Told about everything that changes the makeup of a {@link World}:
+	 * {@link Object}s being added and killed, and {@link Bot}s activating
+	 * {@link Structure}s. Each method is called on the thread that ticks the
+	 * {@link World}, when the change is made, so the calls come in the same
+	 * order every time a {@link World} is run from the same state. Every
+	 * method does nothing by default. See {@link EventLog}.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	public interface Listener {
+
+		/**
+		 * Called when an {@link Object} is added to the {@link World}, before
+		 * it's given a slot in its {@link EntityList}.
+		 *
+		 * @param object
+		 *            The added {@link Bot} or {@link Structure}.
+		 */
+		default void added(final Object object) {
+		}
+
+		/**
+		 * Called when an {@link Object} is killed, before it's removed from
+		 * its {@link EntityList}.
+		 *
+		 * @param object
+		 *            The killed {@link Bot} or {@link Structure}.
+		 */
+		default void killed(final Object object) {
+		}
+
+		/**
+		 * Called when a {@link Bot} activates a {@link Structure}, before the
+		 * {@link Structure} is activated.
+		 *
+		 * @param bot
+		 *            The {@link Bot}.
+		 * @param structure
+		 *            The {@link Structure} that it activates.
+		 */
+		default void activated(final Bot bot, final Structure structure) {
+		}
+
+		/**
+		 * Called at the start of every tick.
+		 *
+		 * @param delta
+		 *            The amount of time that the tick simulates, in
+		 *            nanoseconds.
+		 */
+		default void ticking(final long delta) {
+		}
+
+		/**
+		 * Called at the end of every tick, once {@link World#getTicks()} has
+		 * been advanced.
+		 */
+		default void ticked() {
+		}
+
+	}
+
+	/**
+	 * <p>
+	 * A change to a {@link World} that was {@link World#submit(Command)
+	 * submitted} from any thread, to be applied by the thread that ticks the
+	 * {@link World}.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	@FunctionalInterface
+	public interface Command {
+
+		/**
+		 * Applies this {@link Command}. This is called on the thread that
+		 * ticks the {@link World}, at the start of a tick, so it may change
+		 * the {@link World} in any way.
+		 *
+		 * @param world
+		 *            The {@link World} that this {@link Command} was submitted
+		 *            to.
+		 */
+		void apply(World world);
+
+	}
+
+	/**
+	 * <p>
+	 * Updates a range of the slots of a {@link BotStore}, splitting itself in
+	 * half until the range is small enough to do on a single thread.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	private static final class BotUpdateTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final BotStore store;
+		private final int from, to;
+		private final long delta;
+
+		private BotUpdateTask(final BotStore store, final int from, final int to, final long delta) {
+			this.store = store;
+			this.from = from;
+			this.to = to;
+			this.delta = delta;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= World.PARALLEL_BATCH_SIZE) {
+				store.update(delta, from, to);
+				return;
+			}
+			final int middle = (from + to) >>> 1;
+			ForkJoinTask.invokeAll(new BotUpdateTask(store, from, middle, delta),
+					new BotUpdateTask(store, middle, to, delta));
+		}
+	}
+
+}
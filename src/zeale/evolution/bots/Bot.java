@@ -1,13 +1,14 @@
 package zeale.evolution.bots;
 
 import java.awt.Color;
-import java.awt.Graphics;
-import java.util.LinkedList;
-import java.util.Random;
 
+import zeale.evolution.EntityIds;
 import zeale.evolution.Evolution;
 import zeale.evolution.Object;
+import zeale.evolution.RenderSnapshot;
+import zeale.evolution.World;
 import zeale.evolution.resources.Resource;
+import zeale.evolution.resources.ResourceInventory;
 import zeale.evolution.structures.Spawnpoint;
 import zeale.evolution.structures.Structure;
 import zeale.evolution.structures.resourcespawners.ResourceSpawner;
@@ -25,16 +26,12 @@ public class Bot extends Object {
 
 	@Override
 	public boolean kill() {
-		Evolution.getCurrentInstance().getBots().remove(this);
+		final World world = getWorld();
+		if (world != null)
+			world.removeBot(this);
 		return super.kill();
 	}
 
-	/**
-	 * A private static {@link Random} object, for wherever it's needed in this
-	 * class.
-	 */
-	private static final Random random = new Random();
-
 	/**
 	 * The life that this {@link Bot} has remaining before it dies (in seconds).
 	 */
@@ -46,11 +43,11 @@ public class Bot extends Object {
 	private short maxResources = 5;
 
 	/**
-	 * The {@link LinkedList} of {@link Resource}s that this {@link Bot}
+	 * The {@link ResourceInventory} of {@link Resource}s that this {@link Bot}
 	 * carries. This is sometimes referred to as its <i>inventory</i> in
 	 * documentation.
 	 */
-	private final LinkedList<Resource> resources = new LinkedList<>();
+	private final ResourceInventory resources = new ResourceInventory();
 
 	/**
 	 * The speed at which this {@link Bot} travels. The speed is multiplied by
@@ -59,9 +56,61 @@ public class Bot extends Object {
 	private short speed = 1;
 
 	/**
-	 * The {@link Object} that this {@link Bot} is attempting to head towards.
+	 * The ID of the {@link Object} that this {@link Bot} is attempting to head
+	 * towards, or {@link EntityIds#NONE}. (See {@link Object#getId()}.) If
+	 * the target is removed from the {@link World}, its ID stops finding it.
+	 */
+	private long target = EntityIds.NONE;
+
+	/**
+	 * <p>
+	 * What {@link #target} was picked for, so that it's only picked again when
+	 * something relevant happens (see {@link #steer()}):
+	 * <ul>
+	 * <li>{@link #targetState}: the state of this {@link Bot}'s inventory at
+	 * the time (see {@link #inventoryState()}), or
+	 * {@link #TARGET_STALE} if the target must be picked again.</li>
+	 * <li>{@link #targetAdded}: how many {@link Structure}s had been added to
+	 * the {@link World} (see {@link World#getStructuresAdded()}).</li>
+	 * <li>{@link #targetType}: the class of {@link Structure} that was searched
+	 * for and found, or <code>null</code> if there was nothing of the wanted
+	 * class, in which case any new {@link Structure} means the target must be
+	 * picked again.</li>
+	 * </ul>
 	 */
-	private transient Object target;
+	private transient int targetState = Bot.TARGET_STALE;
+	private transient long targetAdded;
+	private transient Class<? extends Structure> targetType;
+
+	/**
+	 * The states of a {@link Bot}'s inventory that it picks its
+	 * {@link #target} by, and the {@link #targetState} of a {@link Bot} that
+	 * has to pick its target again.
+	 */
+	private static final int TARGET_STALE = -1, INVENTORY_EMPTY = 0, INVENTORY_CARRYING = 1, INVENTORY_FULL = 2;
+
+	/**
+	 * <p>
+	 * The effects that {@link #update(long)} has decided on, but not yet
+	 * applied. {@link #commit()} applies them. These are:
+	 * <ul>
+	 * <li>The {@link Structure} that this {@link Bot} will activate, if
+	 * any.</li>
+	 * <li>Whether or not this {@link Bot} will be killed.</li>
+	 * </ul>
+	 */
+	private transient Structure pendingActivation;
+	transient boolean pendingKill;
+
+	/**
+	 * <p>
+	 * The {@link BotStore} that holds this {@link Bot}'s {@link #posx},
+	 * {@link #posy}, {@link #life}, {@link #waitTime}, {@link #speed} and
+	 * {@link #maxResources}, and the slot that they're in. While this is
+	 * <code>null</code>, this {@link Bot}'s own fields are used.
+	 */
+	transient BotStore store;
+	transient int slot = -1;
 
 	/**
 	 * The current amount of wait time that this {@link Bot} has. See
@@ -159,6 +208,8 @@ public class Bot extends Object {
 	 * @return The total amount of life that this {@link Bot} has left.
 	 */
 	public double addLife(double life) {
+		if (store != null)
+			return store.life[slot] += life;
 		return this.life += life;
 	}
 
@@ -171,7 +222,10 @@ public class Bot extends Object {
 	 * @param miliseconds
 	 */
 	public void addWaitTime(final double miliseconds) {
-		waitTime += miliseconds;
+		if (store != null)
+			store.waitTime[slot] += miliseconds;
+		else
+			waitTime += miliseconds;
 	}
 
 	/**
@@ -182,6 +236,8 @@ public class Bot extends Object {
 	 * @return The amount of life that this {@link Bot} has left over.
 	 */
 	public double decrementLife(double life) {
+		if (store != null)
+			return store.life[slot] -= life;
 		return this.life -= life;
 	}
 
@@ -191,7 +247,74 @@ public class Bot extends Object {
 	 * @return The life remaining for this {@link Bot}.
 	 */
 	public double getLife() {
-		return life;
+		return store != null ? store.life[slot] : life;
+	}
+
+	/**
+	 * A getter for {@link #target}. Use {@link World#getEntity(long)} to get
+	 * the target itself.
+	 *
+	 * @return The ID of the {@link Object} that this {@link Bot} is heading
+	 *         for, or {@link EntityIds#NONE} if it hasn't picked one.
+	 */
+	public long getTarget() {
+		return target;
+	}
+
+	/**
+	 * A getter for {@link #waitTime}.
+	 *
+	 * @return The wait time remaining for this {@link Bot}, in milliseconds.
+	 */
+	public double getWaitTime() {
+		return store != null ? store.waitTime[slot] : waitTime;
+	}
+
+	/**
+	 * A getter for {@link #speed}.
+	 *
+	 * @return The speed of this {@link Bot}.
+	 */
+	public short getSpeed() {
+		return store != null ? store.speed[slot] : speed;
+	}
+
+	/**
+	 * A getter for {@link #maxResources}.
+	 *
+	 * @return The maximum amount of {@link Resource}s that this {@link Bot}
+	 *         can carry.
+	 */
+	public short getMaxResources() {
+		return store != null ? store.maxResources[slot] : maxResources;
+	}
+
+	@Override
+	public double getPosX() {
+		return store != null ? store.posx[slot] : posx;
+	}
+
+	@Override
+	public double getPosY() {
+		return store != null ? store.posy[slot] : posy;
+	}
+
+	@Override
+	public void setX(final double posx) {
+		targetState = Bot.TARGET_STALE;
+		if (store != null)
+			store.posx[slot] = posx;
+		else
+			this.posx = posx;
+	}
+
+	@Override
+	public void setY(final double posy) {
+		targetState = Bot.TARGET_STALE;
+		if (store != null)
+			store.posy[slot] = posy;
+		else
+			this.posy = posy;
 	}
 
 	/**
@@ -208,19 +331,30 @@ public class Bot extends Object {
 	 *         if this {@link Bot}'s inventory is full.
 	 */
 	public boolean giveResource(final Resource resource) {
-		if (resources.size() >= maxResources)
+		return giveResource(resource.pack());
+	}
+
+	/**
+	 * Adds a packed {@link Resource} to this {@link Bot}'s inventory. See
+	 * {@link #giveResource(Resource)}.
+	 *
+	 * @param resource
+	 *            The packed {@link Resource} to add to this {@link Bot}'s
+	 *            inventory. {@link Resource#NONE} is never added.
+	 * @return <code>true</code> if this method successfully added the
+	 *         {@link Resource} to this {@link Bot}.
+	 */
+	public boolean giveResource(final int resource) {
+		if (resource == Resource.NONE || resources.size() >= getMaxResources())
 			return false;
 		return resources.add(resource);
 	}
 
 	@Override
-	public void render(final Graphics g) {
-		g.setColor(botColor);
-		g.fillRect(Evolution.calculatePosition(getX(), true), Evolution.calculatePosition(getY(), false),
-				Evolution.calculateSize(width, true), Evolution.calculateSize(height, false));
-		g.setColor(Color.BLACK);
-		g.drawString("" + resources.size(), Evolution.calculateSize(getX() + 7, true),
-				Evolution.calculateSize(getY() + height - 7, false));
+	public void render(final RenderSnapshot snapshot) {
+		final int x = getX(), y = getY();
+		snapshot.sprite(x, y, width, height, botColor.getRGB());
+		snapshot.label(resources.size(), x + 7, y + height - 7, Color.BLACK.getRGB());
 	}
 
 	/**
@@ -230,31 +364,119 @@ public class Bot extends Object {
 	 *            The amount of life that will be set to this {@link Bot}.
 	 */
 	public void setLife(double life) {
-		this.life = life;
+		if (store != null)
+			store.life[slot] = life;
+		else
+			this.life = life;
 	}
 
 	/**
-	 * Removes and returns all of this {@link Bot}'s {@link Resource}s.
+	 * Sets the amount of wait time that this {@link Bot} has left. See
+	 * {@link #addWaitTime(double)}.
 	 *
-	 * @return A new {@link LinkedList} full of this {@link Bot}'s
-	 *         {@link Resource}s.
+	 * @param miliseconds
+	 *            The new wait time, in milliseconds.
+	 */
+	public void setWaitTime(final double miliseconds) {
+		if (store != null)
+			store.waitTime[slot] = miliseconds;
+		else
+			waitTime = miliseconds;
+	}
+
+	/**
+	 * Sets the ID of the {@link Object} that this {@link Bot} is heading for,
+	 * such as when it's loaded. The target is still checked against the
+	 * closest {@link Structure} on this {@link Bot}'s next tick. See
+	 * {@link #steer()}.
+	 *
+	 * @param target
+	 *            The ID of the new target, or {@link EntityIds#NONE}.
+	 */
+	public void setTarget(final long target) {
+		this.target = target;
+		targetState = Bot.TARGET_STALE;
+	}
+
+	/**
+	 * Sets the speed at which this {@link Bot} travels.
+	 *
+	 * @param speed
+	 *            The new speed of this {@link Bot}.
+	 */
+	public void setSpeed(final short speed) {
+		if (store != null)
+			store.speed[slot] = speed;
+		else
+			this.speed = speed;
+	}
+
+	/**
+	 * Sets the maximum amount of {@link Resource}s that this {@link Bot} can
+	 * carry.
+	 *
+	 * @param maxResources
+	 *            The new maximum.
+	 */
+	public void setMaxResources(final short maxResources) {
+		if (store != null)
+			store.maxResources[slot] = maxResources;
+		else
+			this.maxResources = maxResources;
+	}
+
+	/**
+	 * Moves all of this {@link Bot}'s {@link Resource}s (or as many as will
+	 * fit) into the given {@link ResourceInventory}.
+	 *
+	 * @param destination
+	 *            The {@link ResourceInventory} to move this {@link Bot}'s
+	 *            {@link Resource}s into.
+	 * @return The amount of {@link Resource}s that were moved.
 	 */
-	public LinkedList<Resource> takeResources() {
-		final LinkedList<Resource> list = new LinkedList<>();
-		list.addAll(resources);
-		resources.clear();
-		return list;
+	public int takeResources(final ResourceInventory destination) {
+		return resources.transferTo(destination);
 	}
 
+	/**
+	 * <p>
+	 * Makes this {@link Bot} work by calling {@link #update(long)} and then
+	 * {@link #commit()}.
+	 */
 	@Override
 	public void work(final long delta) {
+		update(delta);
+		commit();
+	}
+
+	/**
+	 * <p>
+	 * The first phase of {@link #work(long)}. This only changes the state of
+	 * this {@link Bot} and only reads the rest of the game, so it is safe to
+	 * call on many {@link Bot}s at once from different threads, as long as
+	 * nothing else changes the game in the meantime.
+	 * <p>
+	 * Anything that this {@link Bot} would do to the rest of the game
+	 * (activating a {@link Structure} or dying) is held until
+	 * {@link #commit()} is called.
+	 *
+	 * @param delta
+	 *            The amount of time that has passed since the last call to
+	 *            {@link #work(long)}, in nanoseconds.
+	 */
+	public void update(final long delta) {
+		if (store != null) {
+			store.update(delta, slot, slot + 1);
+			return;
+		}
+
 		// Handle wait time...
 
 		if (life > 0) {
 			life -= Evolution.nanosecToSec(delta);
 			if (life <= 0) {
 				life = 0;
-				kill();
+				pendingKill = true;
 			}
 		}
 
@@ -265,29 +487,9 @@ public class Bot extends Object {
 			return;
 		}
 
-		if (resources.size() >= maxResources)// Check if this bot's inventory is
-												// full.
-			// If it is, go to spawn to deposit resources.
-			target = Evolution.<Spawnpoint>getClosestStructure(this, Spawnpoint.class);
-		else
-			// Set this bot's next goal. It needs to get resources to survive,
-			// so...
-			target = Evolution.<ResourceSpawner>getClosestStructure(this, ResourceSpawner.class);
-
-		// This happens if there are no Resource Spawners left.
+		final Object target = steer();
 		if (target == null)
-			if (resources.size() > 0)
-				target = Evolution.<Spawnpoint>getClosestStructure(this, Spawnpoint.class);
-			else
-				return;
-
-		// This is the distance between this bot and its target.
-		final double distance = Evolution.getDistance(this, target);
-
-		// This means that the bot is in range to take things from its target.
-		// (Or activate its target. Whatever it needs to do.)
-		if (distance <= speed)
-			((Structure) target).activate(this);
+			return;
 
 		// Difference between the target destination and the current position.
 		final double dx = Math.abs(posx - target.getX()), dy = Math.abs(posy - target.getY());
@@ -319,41 +521,193 @@ public class Bot extends Object {
 	}
 
 	/**
-	 * This method returns a {@code new} {@link LinkedList} which contains all
-	 * the {@link Resource}s in this {@link Bot}.
+	 * <p>
+	 * Picks the {@link Object} that this {@link Bot} should head towards and, if
+	 * it's in range, queues it to be activated on {@link #commit()}. This is
+	 * part of {@link #update(long)}.
+	 * <p>
+	 * {@link Structure}s never move, and a {@link Bot} heads for its target in
+	 * a straight line, so its target stays the closest {@link Structure} of its
+	 * class until either:
+	 * <ul>
+	 * <li>the target is killed,</li>
+	 * <li>a closer {@link Structure} of that class is added,</li>
+	 * <li>the state of this {@link Bot}'s inventory changes, so that it wants
+	 * a different class of {@link Structure}, or</li>
+	 * <li>this {@link Bot} reaches its target (and may step past it), or is
+	 * moved some other way.</li>
+	 * </ul>
+	 * So, the target is kept from tick to tick, and the closest
+	 * {@link Structure} is only searched for again in those cases. New
+	 * {@link Structure}s are checked without a search, by comparing them to the
+	 * target (see {@link World#getAddedStructure(long)}).
 	 *
-	 * @return A new {@link LinkedList} with all the {@link Resource}s in this
-	 *         {@link Bot}.
+	 * @return The {@link #target} of this {@link Bot}, or <code>null</code> if
+	 *         it has nowhere to go.
 	 */
-	public LinkedList<Resource> getResources() {
-		return new LinkedList<>(resources);
+	Object steer() {
+		final Object target = seek();
+		if (target != null)
+			// This is the distance between this bot and its target.
+			approach(target, Evolution.getDistance(this, target));
+		return target;
 	}
 
 	/**
-	 * This method removes and returns {@link Resource}s at random from this
-	 * {@link Bot}.
+	 * The first half of {@link #steer()}: picks the {@link Object} that this
+	 * {@link Bot} should head towards.
 	 *
-	 * @param count
-	 *            The amount of {@link Resource}s to remove from this
-	 *            {@link Bot}.
-	 * @return A {@code new} {@link LinkedList} with the {@link Resource}s that
-	 *         were removed from this {@link Bot}.
+	 * @return The {@link #target} of this {@link Bot}, or <code>null</code> if
+	 *         it has nowhere to go.
+	 */
+	Object seek() {
+		final World world = getWorld();
+		final int state = inventoryState();
+		final Object target = world.getEntity(this.target);
+		if (state != targetState || target == null && this.target != EntityIds.NONE)
+			return retarget(world, state);
+		if (targetAdded != world.getStructuresAdded())
+			return checkAddedStructures(world, target);
+		return target;
+	}
+
+	/**
+	 * The second half of {@link #steer()}: queues the target to be activated
+	 * if it's in range. A {@link BotStore} calls {@link #seek()} and this
+	 * separately, so that it can work out the distances of many {@link Bot}s
+	 * at once.
+	 *
+	 * @param target
+	 *            The target that {@link #seek()} picked.
+	 * @param distance
+	 *            The distance between this {@link Bot} and its target.
+	 */
+	void approach(final Object target, final double distance) {
+		// This means that the bot is in range to take things from its target.
+		// (Or activate its target. Whatever it needs to do.)
+		if (distance <= getSpeed()) {
+			pendingActivation = (Structure) target;
+			targetState = Bot.TARGET_STALE;
+		}
+	}
+
+	/**
+	 * Gets the state of this {@link Bot}'s inventory, which decides what it
+	 * heads for.
+	 */
+	private int inventoryState() {
+		final int size = resources.size();
+		return size >= getMaxResources() ? Bot.INVENTORY_FULL
+				: size > 0 ? Bot.INVENTORY_CARRYING : Bot.INVENTORY_EMPTY;
+	}
+
+	/**
+	 * Searches for the closest {@link Structure} that this {@link Bot} should
+	 * head for and makes it the {@link #target}.
+	 *
+	 * @return The new target, or <code>null</code> if there is none.
+	 */
+	private Object retarget(final World world, final int state) {
+		targetState = state;
+		targetAdded = world.getStructuresAdded();
+		Object target;
+		if (state == Bot.INVENTORY_FULL) {
+			// If this bot's inventory is full, go to spawn to deposit
+			// resources.
+			target = world.getClosestStructure(this, Spawnpoint.class);
+			targetType = target == null ? null : Spawnpoint.class;
+		} else {
+			// Set this bot's next goal. It needs to get resources to survive,
+			// so...
+			target = world.getClosestStructure(this, ResourceSpawner.class);
+			targetType = target == null ? null : ResourceSpawner.class;
+
+			// This happens if there are no Resource Spawners left.
+			if (target == null && state == Bot.INVENTORY_CARRYING)
+				target = world.getClosestStructure(this, Spawnpoint.class);
+		}
+		this.target = target == null ? EntityIds.NONE : target.getId();
+		return target;
+	}
+
+	/**
+	 * Checks whether any of the {@link Structure}s that were added since the
+	 * {@link #target} was picked is closer, and if so, makes the closest of
+	 * them the target.
+	 *
+	 * @return The target, or <code>null</code> if there is none.
 	 */
-	public LinkedList<Resource> removeRandomResources(short count) {
-		LinkedList<Resource> list;
+	private Object checkAddedStructures(final World world, Object target) {
+		final long added = world.getStructuresAdded();
+		if (targetType == null || added - targetAdded > World.RECENT_STRUCTURES)
+			return retarget(world, targetState);
+		double distance = Evolution.getDistance(this, target);
+		for (long i = targetAdded; i < added; i++) {
+			final Structure s = world.getAddedStructure(i);
+			if (s != null && s.getClass() == targetType && s.isAlive()) {
+				final double d = Evolution.getDistance(this, s);
+				if (d < distance) {
+					distance = d;
+					target = s;
+				}
+			}
+		}
+		targetAdded = added;
+		this.target = target.getId();
+		return target;
+	}
 
-		if (count >= resources.size()) {
-			list = new LinkedList<>(resources);
-			resources.clear();
-			return list;
+	/**
+	 * <p>
+	 * The second phase of {@link #work(long)}. This applies whatever the last
+	 * call to {@link #update(long)} decided on. This must be called from the
+	 * thread that owns the game.
+	 */
+	public void commit() {
+		if (pendingKill) {
+			pendingKill = false;
+			kill();
 		}
+		if (pendingActivation != null) {
+			final Structure structure = pendingActivation;
+			pendingActivation = null;
+			getWorld().getListener().activated(this, structure);
+			structure.activate(this);
+		}
+	}
 
-		list = new LinkedList<>();
+	/**
+	 * This method returns this {@link Bot}'s inventory. Changes to the returned
+	 * {@link ResourceInventory} are changes to this {@link Bot}'s inventory.
+	 *
+	 * @return The {@link ResourceInventory} that holds this {@link Bot}'s
+	 *         {@link Resource}s.
+	 */
+	public ResourceInventory getResources() {
+		return resources;
+	}
+
+	/**
+	 * This method moves {@link Resource}s at random from this {@link Bot} into
+	 * the given {@link ResourceInventory}.
+	 *
+	 * @param count
+	 *            The amount of {@link Resource}s to remove from this
+	 *            {@link Bot}.
+	 * @param destination
+	 *            The {@link ResourceInventory} that the removed
+	 *            {@link Resource}s are put in.
+	 * @return The amount of {@link Resource}s that were moved.
+	 */
+	public int removeRandomResources(final short count, final ResourceInventory destination) {
+		if (count >= resources.size())
+			return resources.transferTo(destination);
 
-		for (short i = 0; i < count; i++)
-			list.add(resources.remove((int) Math.round(random.nextDouble() * resources.size())));
+		int moved = 0;
+		for (short i = 0; i < count && !destination.isFull(); i++, moved++)
+			destination.add(resources.remove(getRandom().nextInt(resources.size())));
 
-		return list;
+		return moved;
 	}
 
 }
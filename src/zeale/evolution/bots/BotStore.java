@@ -0,0 +1,255 @@
+package zeale.evolution.bots;
+
+import java.util.Arrays;
+
+import zeale.evolution.Evolution;
+import zeale.evolution.Object;
+
+/**
+ * <p>
+ * A column-oriented store for the state of {@link Bot}s that changes every
+ * tick. Rather than each {@link Bot} holding its own position, life, wait
+ * time, speed and inventory size, a {@link Bot} that is {@link #attach(Bot)
+ * attached} to a {@link BotStore} is only a handle to a slot in these
+ * arrays, and updating many {@link Bot}s is a linear scan over them.
+ * <p>
+ * Slots are kept dense. When a {@link Bot} is {@link #detach(Bot) detached},
+ * the last {@link Bot} is moved into its slot.
+ *
+ * @author Zeale
+ *
+ */
+public final class BotStore {
+
+	/**
+	 * The {@link Bot} that owns each slot.
+	 */
+	private Bot[] bots;
+
+	/**
+	 * The columns. See {@link Bot} for what each of these are.
+	 */
+	double[] posx, posy, life, waitTime;
+	short[] speed, maxResources;
+
+	/**
+	 * What each {@link Bot} is heading towards this tick: the target itself,
+	 * its position in whole units (which {@link Bot}s steer by) and its exact
+	 * position (which they measure their distance to it by), that distance,
+	 * and whether or not it is heading anywhere at all.
+	 */
+	private Object[] targets;
+	private double[] targetx, targety, targetPosX, targetPosY, distance;
+	private boolean[] moving;
+
+	/**
+	 * The amount of slots in use.
+	 */
+	private int size;
+
+	/**
+	 * Constructs a new, empty {@link BotStore}.
+	 *
+	 * @param capacity
+	 *            The amount of {@link Bot}s to make room for. The store grows
+	 *            as needed.
+	 */
+	public BotStore(final int capacity) {
+		bots = new Bot[Math.max(16, capacity)];
+		posx = new double[bots.length];
+		posy = new double[bots.length];
+		life = new double[bots.length];
+		waitTime = new double[bots.length];
+		speed = new short[bots.length];
+		maxResources = new short[bots.length];
+		targets = new Object[bots.length];
+		targetx = new double[bots.length];
+		targety = new double[bots.length];
+		targetPosX = new double[bots.length];
+		targetPosY = new double[bots.length];
+		distance = new double[bots.length];
+		moving = new boolean[bots.length];
+	}
+
+	/**
+	 * <p>
+	 * Moves a {@link Bot}'s state into this store. From now on, the
+	 * {@link Bot} reads and writes its state here.
+	 *
+	 * @param bot
+	 *            The {@link Bot} to attach. It must not be attached to any
+	 *            store.
+	 */
+	public void attach(final Bot bot) {
+		if (bot.store != null)
+			throw new IllegalStateException("The bot is already attached to a store.");
+		if (size == bots.length)
+			grow();
+		final int slot = size++;
+		posx[slot] = bot.getPosX();
+		posy[slot] = bot.getPosY();
+		life[slot] = bot.getLife();
+		waitTime[slot] = bot.getWaitTime();
+		speed[slot] = bot.getSpeed();
+		maxResources[slot] = bot.getMaxResources();
+		bots[slot] = bot;
+		bot.store = this;
+		bot.slot = slot;
+	}
+
+	/**
+	 * <p>
+	 * Moves a {@link Bot}'s state back into the {@link Bot} itself and frees
+	 * its slot.
+	 *
+	 * @param bot
+	 *            The {@link Bot} to detach. Nothing happens if it isn't
+	 *            attached to this store.
+	 */
+	public void detach(final Bot bot) {
+		if (bot.store != this)
+			return;
+		final int slot = bot.slot;
+		bot.store = null;
+		bot.slot = -1;
+		bot.setX(posx[slot]);
+		bot.setY(posy[slot]);
+		bot.setLife(life[slot]);
+		bot.setWaitTime(waitTime[slot]);
+		bot.setSpeed(speed[slot]);
+		bot.setMaxResources(maxResources[slot]);
+
+		final int last = --size;
+		if (slot != last) {
+			posx[slot] = posx[last];
+			posy[slot] = posy[last];
+			life[slot] = life[last];
+			waitTime[slot] = waitTime[last];
+			speed[slot] = speed[last];
+			maxResources[slot] = maxResources[last];
+			bots[slot] = bots[last];
+			bots[slot].slot = slot;
+		}
+		bots[last] = null;
+	}
+
+	/**
+	 * <p>
+	 * The columnar version of {@link Bot#update(long)}, for the {@link Bot}s in
+	 * the slots <code>from</code> (inclusive) to <code>to</code> (exclusive).
+	 * <p>
+	 * This runs in four passes: life and wait time are counted down over the
+	 * whole range, then each {@link Bot} that isn't waiting picks its target,
+	 * then the distance from every {@link Bot} to its target is measured, to
+	 * see whether it's in range, and then every {@link Bot} that has a target
+	 * is moved towards it. The measuring and the moving are done by a
+	 * {@link MovementKernel}, many {@link Bot}s at a time where the CPU
+	 * allows it. Only the second and third passes touch the {@link Bot}
+	 * objects themselves.
+	 * <p>
+	 * Like {@link Bot#update(long)}, this is safe to call for separate ranges
+	 * from separate threads.
+	 *
+	 * @param delta
+	 *            The amount of time that has passed, in nanoseconds.
+	 * @param from
+	 *            The first slot to update.
+	 * @param to
+	 *            The slot after the last one to update.
+	 */
+	public void update(final long delta, final int from, final int to) {
+		final short seconds = Evolution.nanosecToSec(delta);
+		final long millis = delta / 1000000;
+
+		for (int i = from; i < to; i++) {
+			if (life[i] > 0) {
+				life[i] -= seconds;
+				if (life[i] <= 0) {
+					life[i] = 0;
+					bots[i].pendingKill = true;
+				}
+			}
+			if (waitTime[i] > 0) {
+				waitTime[i] -= millis;
+				if (waitTime[i] < 0)
+					waitTime[i] = 0;
+				moving[i] = false;
+			} else
+				moving[i] = true;
+		}
+
+		for (int i = from; i < to; i++) {
+			if (!moving[i])
+				continue;
+			final Object target = bots[i].seek();
+			if (target == null)
+				moving[i] = false;
+			else {
+				targets[i] = target;
+				targetx[i] = target.getX();
+				targety[i] = target.getY();
+				targetPosX[i] = target.getPosX();
+				targetPosY[i] = target.getPosY();
+			}
+		}
+
+		MovementKernel.INSTANCE.distances(posx, posy, targetPosX, targetPosY, distance, from, to);
+		for (int i = from; i < to; i++)
+			if (moving[i]) {
+				bots[i].approach(targets[i], distance[i]);
+				targets[i] = null;
+			}
+
+		MovementKernel.INSTANCE.move(posx, posy, targetx, targety, speed, moving, from, to);
+	}
+
+	/**
+	 * A getter for the name of the {@link MovementKernel} that
+	 * {@link #update(long, int, int)} uses, such as to log whether or not
+	 * the CPU's vector instructions are being used.
+	 *
+	 * @return The name of the kernel.
+	 */
+	public static String getKernel() {
+		return MovementKernel.INSTANCE.getName();
+	}
+
+	/**
+	 * A getter for the {@link Bot} in a slot.
+	 *
+	 * @param slot
+	 *            The slot.
+	 * @return The {@link Bot} attached to that slot.
+	 */
+	public Bot get(final int slot) {
+		return bots[slot];
+	}
+
+	/**
+	 * A getter for the amount of {@link Bot}s in this store.
+	 *
+	 * @return The amount of slots in use.
+	 */
+	public int size() {
+		return size;
+	}
+
+	private void grow() {
+		final int capacity = bots.length * 2;
+		bots = Arrays.copyOf(bots, capacity);
+		posx = Arrays.copyOf(posx, capacity);
+		posy = Arrays.copyOf(posy, capacity);
+		life = Arrays.copyOf(life, capacity);
+		waitTime = Arrays.copyOf(waitTime, capacity);
+		speed = Arrays.copyOf(speed, capacity);
+		maxResources = Arrays.copyOf(maxResources, capacity);
+		targets = Arrays.copyOf(targets, capacity);
+		targetx = Arrays.copyOf(targetx, capacity);
+		targety = Arrays.copyOf(targety, capacity);
+		targetPosX = Arrays.copyOf(targetPosX, capacity);
+		targetPosY = Arrays.copyOf(targetPosY, capacity);
+		distance = Arrays.copyOf(distance, capacity);
+		moving = Arrays.copyOf(moving, capacity);
+	}
+
+}
@@ -0,0 +1,162 @@
+package zeale.evolution.bots;
+
+/**
+ * <p>
+ * The math that a {@link BotStore} runs over its columns every tick: the
+ * distance from each {@link Bot} to its target, and the step that each
+ * {@link Bot} takes towards it.
+ * <p>
+ * There are two kernels. {@link Scalar} works one {@link Bot} at a time, and
+ * runs anywhere. <code>VectorMovementKernel</code> works on as many
+ * {@link Bot}s at once as the CPU's vector registers hold, through the
+ * <code>jdk.incubator.vector</code> API. It's only built on JDK 17 or later
+ * (see the <code>vector</code> profile in <code>pom.xml</code>), and only
+ * loads if the JVM is started with
+ * <code>--add-modules jdk.incubator.vector</code>, so it's looked up
+ * reflectively and {@link Scalar} is used whenever it's missing. Both give
+ * exactly the same results, bit for bit: they do the same IEEE operations in
+ * the same order, and neither fuses multiplies into adds.
+ * <p>
+ * Setting the system property <code>zeale.evolution.vector</code> to
+ * <code>false</code> forces {@link Scalar}.
+ *
+ * @author Zeale
+ *
+ */
+abstract class MovementKernel {
+
+	/**
+	 * The fastest kernel that's available.
+	 */
+	static final MovementKernel INSTANCE = MovementKernel.load();
+
+	/**
+	 * Works out distances between pairs of points, for the slots
+	 * <code>from</code> (inclusive) to <code>to</code> (exclusive). This is
+	 * the same as {@link zeale.evolution.Evolution#getDistance(zeale.evolution.Object, zeale.evolution.Object)
+	 * Evolution.getDistance(...)}.
+	 *
+	 * @param x
+	 *            The x positions of the first points.
+	 * @param y
+	 *            The y positions of the first points.
+	 * @param tx
+	 *            The x positions of the second points.
+	 * @param ty
+	 *            The y positions of the second points.
+	 * @param distance
+	 *            The array to put the distances into.
+	 * @param from
+	 *            The first slot.
+	 * @param to
+	 *            The slot after the last one.
+	 */
+	abstract void distances(double[] x, double[] y, double[] tx, double[] ty, double[] distance, int from, int to);
+
+	/**
+	 * Steps every moving {@link Bot} in the slots <code>from</code>
+	 * (inclusive) to <code>to</code> (exclusive) towards its target. This is
+	 * the same movement as in {@link Bot#update(long)}.
+	 *
+	 * @param posx
+	 *            The x positions, which are updated.
+	 * @param posy
+	 *            The y positions, which are updated.
+	 * @param tx
+	 *            The x positions of the targets.
+	 * @param ty
+	 *            The y positions of the targets.
+	 * @param speed
+	 *            The speeds.
+	 * @param moving
+	 *            Whether or not each {@link Bot} moves at all.
+	 * @param from
+	 *            The first slot.
+	 * @param to
+	 *            The slot after the last one.
+	 */
+	abstract void move(double[] posx, double[] posy, double[] tx, double[] ty, short[] speed, boolean[] moving,
+			int from, int to);
+
+	/**
+	 * A getter for the name of this kernel, for logging.
+	 *
+	 * @return The name of this kernel.
+	 */
+	abstract String getName();
+
+	private static MovementKernel load() {
+		if (Boolean.parseBoolean(System.getProperty("zeale.evolution.vector", "true")))
+			try {
+				return (MovementKernel) Class.forName("zeale.evolution.bots.VectorMovementKernel")
+						.getDeclaredConstructor().newInstance();
+			} catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+				// Not built, not enabled, or not supported on this CPU.
+			}
+		return new Scalar();
+	}
+
+	/**
+	 * The kernel that works one {@link Bot} at a time.
+	 *
+	 * @author Zeale
+	 *
+	 */
+	static final class Scalar extends MovementKernel {
+
+		@Override
+		void distances(final double[] x, final double[] y, final double[] tx, final double[] ty,
+				final double[] distance, final int from, final int to) {
+			for (int i = from; i < to; i++)
+				distance[i] = Scalar.distance(x[i], y[i], tx[i], ty[i]);
+		}
+
+		/**
+		 * Works out the distance between two points, for the slots that a
+		 * vector kernel has left over.
+		 */
+		static double distance(final double x, final double y, final double tx, final double ty) {
+			final double vx = x - tx, vy = y - ty;
+			return StrictMath.sqrt(vx * vx + vy * vy);
+		}
+
+		@Override
+		void move(final double[] posx, final double[] posy, final double[] tx, final double[] ty,
+				final short[] speed, final boolean[] moving, final int from, final int to) {
+			for (int i = from; i < to; i++)
+				if (moving[i])
+					Scalar.move(posx, posy, tx[i], ty[i], speed[i], i);
+		}
+
+		/**
+		 * Steps one {@link Bot} towards its target, for the slots that a vector
+		 * kernel has left over.
+		 */
+		static void move(final double[] posx, final double[] posy, final double tx, final double ty, final short s,
+				final int i) {
+			final double x = posx[i], y = posy[i];
+
+			final double dx = Math.abs(x - tx), dy = Math.abs(y - ty);
+			final double rx = dx / (dx + dy), ry = dy / (dx + dy);
+
+			if (Double.isNaN(rx)) {
+				posy[i] = y + s;
+				return;
+			}
+			if (Double.isNaN(ry)) {
+				posx[i] = x + s;
+				return;
+			}
+
+			posx[i] = tx > x ? x + rx * s : x - rx * s;
+			posy[i] = ty > y ? y + ry * s : y - ry * s;
+		}
+
+		@Override
+		String getName() {
+			return "scalar";
+		}
+
+	}
+
+}
@@ -1,8 +1,31 @@
 package zeale.evolution.resources;
 
-import java.util.Random;
+import zeale.evolution.Rng;
 
+/**
+ * <p>
+ * A resource in <i>Evolution</i>. {@link Resource}s are carried by
+ * {@link zeale.evolution.bots.Bot Bot}s from spawners back to spawnpoints.
+ * <p>
+ * In game, {@link Resource}s are not kept as objects. A {@link Resource}'s
+ * value and weight are packed into a single <code>int</code> (see
+ * {@link #pack(int, int)}) and kept in {@link ResourceInventory}s. The static
+ * methods of this class read and create packed {@link Resource}s. An instance
+ * of this class is only needed where a {@link Resource} has to stand on its
+ * own.
+ *
+ * @author Zeale
+ *
+ */
 public class Resource {
+
+	/**
+	 * A packed {@link Resource} that doesn't exist. No real {@link Resource}
+	 * ever packs to this, since every {@link Resource} has a value of at least
+	 * one.
+	 */
+	public static final int NONE = 0;
+
 	/**
 	 * Attributes of this {@link Resource} that define how it works in game. The
 	 * {@link #weight} will define how hard this {@link Resource} is to carry,
@@ -11,17 +34,24 @@ public class Resource {
 	private int value = 1, weight = 25;
 
 	/**
-	 * A private static {@link Random} for use around the class.
+	 * Constructs a new, random {@link Resource}. (See {@link #random(Rng)}.)
+	 *
+	 * @param random
+	 *            The {@link Rng} to pick the value and weight with.
 	 */
-	private static final Random rand = new Random();
+	public Resource(final Rng random) {
+		this(Resource.random(random));
+	}
 
 	/**
-	 * Constructs a new {@link Resource}. (<b>Will be changed by the next
-	 * version...</b>)
+	 * Constructs a new {@link Resource} from a packed {@link Resource}.
+	 *
+	 * @param resource
+	 *            The packed {@link Resource}.
 	 */
-	public Resource() {
-		value = rand.nextInt(5) + 1;
-		weight = rand.nextInt(201) + 50;
+	public Resource(final int resource) {
+		value = Resource.getValue(resource);
+		weight = Resource.getWeight(resource);
 	}
 
 	/**
@@ -41,4 +71,63 @@ public class Resource {
 	public int getWeight() {
 		return weight;
 	}
+
+	/**
+	 * Packs this {@link Resource} into an <code>int</code>.
+	 *
+	 * @return This {@link Resource}, packed. See {@link #pack(int, int)}.
+	 */
+	public int pack() {
+		return Resource.pack(value, weight);
+	}
+
+	/**
+	 * <p>
+	 * Packs a {@link Resource}'s value and weight into a single
+	 * <code>int</code>. The value is kept in the upper 16 bits and the weight
+	 * in the lower 16 bits.
+	 *
+	 * @param value
+	 *            The value of the {@link Resource}. (From 1 to 32767.)
+	 * @param weight
+	 *            The weight of the {@link Resource}. (From 0 to 65535.)
+	 * @return The packed {@link Resource}.
+	 */
+	public static int pack(final int value, final int weight) {
+		return value << 16 | weight & 0xFFFF;
+	}
+
+	/**
+	 * Gets the value of a packed {@link Resource}.
+	 *
+	 * @param resource
+	 *            The packed {@link Resource}.
+	 * @return Its value.
+	 */
+	public static int getValue(final int resource) {
+		return resource >>> 16;
+	}
+
+	/**
+	 * Gets the weight of a packed {@link Resource}.
+	 *
+	 * @param resource
+	 *            The packed {@link Resource}.
+	 * @return Its weight.
+	 */
+	public static int getWeight(final int resource) {
+		return resource & 0xFFFF;
+	}
+
+	/**
+	 * Creates a random, packed {@link Resource}, with a value from 1 to 5 and a
+	 * weight from 50 to 250.
+	 *
+	 * @param random
+	 *            The {@link Rng} to pick the value and weight with.
+	 * @return The packed {@link Resource}.
+	 */
+	public static int random(final Rng random) {
+		return Resource.pack(random.nextInt(5) + 1, random.nextInt(201) + 50);
+	}
 }
@@ -0,0 +1,203 @@
+package zeale.evolution.resources;
+
+import zeale.evolution.Rng;
+
+/**
+ * <p>
+ * A bounded bag of packed {@link Resource}s (see {@link Resource#pack(int, int)})
+ * that {@link Resource}s are drawn from at random.
+ * <p>
+ * The bag is a single array of a fixed size. A bag has no order, so a random
+ * draw removes a {@link Resource} by moving the last {@link Resource} of the
+ * array into its slot, which takes the same (constant) time no matter how big
+ * the bag is.
+ *
+ * @author Zeale
+ *
+ */
+public final class ResourceBag {
+
+	/**
+	 * The packed {@link Resource}s in this bag. The length of this array is
+	 * the capacity of this bag.
+	 */
+	private final int[] resources;
+
+	/**
+	 * The amount of {@link Resource}s in this bag.
+	 */
+	private int size;
+
+	/**
+	 * The {@link ResourceTally} that this bag counts towards, if any.
+	 */
+	private ResourceTally tally;
+
+	/**
+	 * Constructs a new, empty {@link ResourceBag}.
+	 *
+	 * @param capacity
+	 *            The maximum amount of {@link Resource}s that this bag can
+	 *            hold.
+	 */
+	public ResourceBag(final int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+		resources = new int[capacity];
+	}
+
+	/**
+	 * Adds a packed {@link Resource} to this bag, if it isn't full.
+	 *
+	 * @param resource
+	 *            The packed {@link Resource}.
+	 * @return <code>true</code> if the {@link Resource} was added,
+	 *         <code>false</code> if this bag is full.
+	 */
+	public boolean add(final int resource) {
+		if (size == resources.length)
+			return false;
+		resources[size++] = resource;
+		if (tally != null)
+			tally.add(1);
+		return true;
+	}
+
+	/**
+	 * Gets a random {@link Resource} from this bag, without removing it.
+	 *
+	 * @param random
+	 *            The {@link Rng} to draw with.
+	 * @return The packed {@link Resource}, or {@link Resource#NONE} if this bag
+	 *         is empty.
+	 */
+	public int peekRandom(final Rng random) {
+		return size == 0 ? Resource.NONE : resources[random.nextInt(size)];
+	}
+
+	/**
+	 * Removes a random {@link Resource} from this bag.
+	 *
+	 * @param random
+	 *            The {@link Rng} to draw with.
+	 * @return The removed, packed {@link Resource}, or {@link Resource#NONE}
+	 *         if this bag is empty.
+	 */
+	public int takeRandom(final Rng random) {
+		if (size == 0)
+			return Resource.NONE;
+		final int index = random.nextInt(size), resource = resources[index];
+		resources[index] = resources[--size];
+		if (tally != null)
+			tally.add(-1);
+		return resource;
+	}
+
+	/**
+	 * <p>
+	 * Removes up to <code>count</code> random {@link Resource}s from this bag
+	 * and puts them into the given {@link ResourceInventory}. If
+	 * <code>count</code> is at least the size of this bag, every
+	 * {@link Resource} is moved and no random numbers are drawn at all.
+	 *
+	 * @param count
+	 *            The amount of {@link Resource}s to draw.
+	 * @param random
+	 *            The {@link Rng} to draw with.
+	 * @param destination
+	 *            The {@link ResourceInventory} to put the drawn
+	 *            {@link Resource}s in. Drawing stops once it's full.
+	 * @return The amount of {@link Resource}s that were moved.
+	 */
+	public int takeRandom(final int count, final Rng random, final ResourceInventory destination) {
+		int moved = 0;
+		if (count >= size) {
+			while (size > 0 && destination.add(resources[size - 1])) {
+				size--;
+				moved++;
+			}
+			if (tally != null)
+				tally.add(-moved);
+			return moved;
+		}
+		for (; moved < count && !destination.isFull(); moved++)
+			destination.add(takeRandom(random));
+		return moved;
+	}
+
+	/**
+	 * Gets the packed {@link Resource} at the given index. The order of a bag
+	 * changes whenever something is drawn from it.
+	 *
+	 * @param index
+	 *            The index, from <code>0</code> to {@link #size()}.
+	 * @return The packed {@link Resource}.
+	 */
+	public int get(final int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return resources[index];
+	}
+
+	/**
+	 * Removes every {@link Resource} from this bag.
+	 */
+	public void clear() {
+		if (tally != null)
+			tally.add(-size);
+		size = 0;
+	}
+
+	/**
+	 * Makes this bag count towards a {@link ResourceTally}, instead of any
+	 * that it counted towards before.
+	 *
+	 * @param tally
+	 *            The {@link ResourceTally}, or <code>null</code> to stop
+	 *            counting.
+	 */
+	public void setTally(final ResourceTally tally) {
+		if (this.tally != null)
+			this.tally.add(-size);
+		this.tally = tally;
+		if (tally != null)
+			tally.add(size);
+	}
+
+	/**
+	 * A getter for the amount of {@link Resource}s in this bag.
+	 *
+	 * @return The amount of {@link Resource}s in this bag.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * A getter for the capacity of this bag.
+	 *
+	 * @return The maximum amount of {@link Resource}s that this bag can hold.
+	 */
+	public int getCapacity() {
+		return resources.length;
+	}
+
+	/**
+	 * A getter for whether or not this bag is empty.
+	 *
+	 * @return <code>true</code> if this bag holds no {@link Resource}s.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * A getter for whether or not this bag is full.
+	 *
+	 * @return <code>true</code> if this bag is at its capacity.
+	 */
+	public boolean isFull() {
+		return size == resources.length;
+	}
+
+}
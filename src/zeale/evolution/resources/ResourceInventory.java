@@ -0,0 +1,268 @@
+package zeale.evolution.resources;
+
+/**
+ * <p>
+ * An inventory of {@link Resource}s, kept as packed <code>int</code>s (see
+ * {@link Resource#pack(int, int)}) in a single array. Adding, removing and
+ * moving {@link Resource}s between {@link ResourceInventory}s doesn't allocate
+ * anything unless the array has to grow.
+ *
+ * @author Zeale
+ *
+ */
+public final class ResourceInventory {
+
+	/**
+	 * The packed {@link Resource}s in this inventory. They're kept in the
+	 * slots from {@link #head} to <code>head + size</code>, so that
+	 * {@link Resource}s can be removed from the front without shifting the
+	 * rest down.
+	 */
+	private int[] resources;
+	private int head;
+
+	/**
+	 * The amount of {@link Resource}s in this inventory.
+	 */
+	private int size;
+
+	/**
+	 * The maximum amount of {@link Resource}s that this inventory can hold.
+	 */
+	private final int capacity;
+
+	/**
+	 * The {@link ResourceTally} that this inventory counts towards, if any.
+	 */
+	private ResourceTally tally;
+
+	/**
+	 * Constructs a new {@link ResourceInventory} that can hold any amount of
+	 * {@link Resource}s.
+	 */
+	public ResourceInventory() {
+		this(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructs a new {@link ResourceInventory} that can hold up to
+	 * <code>capacity</code> {@link Resource}s.
+	 *
+	 * @param capacity
+	 *            The maximum amount of {@link Resource}s that this inventory
+	 *            can hold.
+	 */
+	public ResourceInventory(final int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("The capacity can't be negative: " + capacity);
+		this.capacity = capacity;
+		resources = new int[Math.min(capacity, 8)];
+	}
+
+	/**
+	 * Adds a packed {@link Resource} to this inventory, if it isn't full.
+	 *
+	 * @param resource
+	 *            The packed {@link Resource}.
+	 * @return <code>true</code> if the {@link Resource} was added,
+	 *         <code>false</code> if this inventory is full.
+	 */
+	public boolean add(final int resource) {
+		if (size >= capacity)
+			return false;
+		if (head + size == resources.length)
+			makeRoom(size + 1);
+		resources[head + size++] = resource;
+		if (tally != null)
+			tally.add(1);
+		return true;
+	}
+
+	/**
+	 * Makes sure that there's room after the last {@link Resource} for this
+	 * inventory to hold <code>needed</code> {@link Resource}s, by moving them
+	 * back to the start of the array, or into a bigger one.
+	 */
+	private void makeRoom(final int needed) {
+		if (head + needed <= resources.length)
+			return;
+		if (needed <= resources.length)
+			System.arraycopy(resources, head, resources, 0, size);
+		else {
+			final int[] grown = new int[(int) Math.min(capacity, Math.max(needed, Math.max(8, size * 2L)))];
+			System.arraycopy(resources, head, grown, 0, size);
+			resources = grown;
+		}
+		head = 0;
+	}
+
+	/**
+	 * Gets the packed {@link Resource} at the given index.
+	 *
+	 * @param index
+	 *            The index, from <code>0</code> to {@link #size()}.
+	 * @return The packed {@link Resource}.
+	 */
+	public int get(final int index) {
+		if (index >= size)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		return resources[head + index];
+	}
+
+	/**
+	 * Removes the packed {@link Resource} at the given index. Everything after
+	 * it is shifted down, so the order of this inventory is kept.
+	 *
+	 * @param index
+	 *            The index, from <code>0</code> to {@link #size()}.
+	 * @return The removed, packed {@link Resource}.
+	 */
+	public int remove(final int index) {
+		final int resource = get(index);
+		System.arraycopy(resources, head + index + 1, resources, head + index, --size - index);
+		if (tally != null)
+			tally.add(-1);
+		return resource;
+	}
+
+	/**
+	 * Removes up to <code>count</code> {@link Resource}s from the start of
+	 * this inventory, which are the ones that were added first. This doesn't
+	 * move the rest.
+	 *
+	 * @param count
+	 *            The amount of {@link Resource}s to remove.
+	 * @return The amount of {@link Resource}s that were removed.
+	 */
+	public int removeFirst(final int count) {
+		final int removed = Math.min(Math.max(count, 0), size);
+		size -= removed;
+		head = size == 0 ? 0 : head + removed;
+		if (tally != null)
+			tally.add(-removed);
+		return removed;
+	}
+
+	/**
+	 * Removes up to <code>count</code> {@link Resource}s from the end of this
+	 * inventory.
+	 *
+	 * @param count
+	 *            The amount of {@link Resource}s to remove.
+	 * @return The amount of {@link Resource}s that were removed.
+	 */
+	public int removeLast(final int count) {
+		final int removed = Math.min(Math.max(count, 0), size);
+		size -= removed;
+		if (size == 0)
+			head = 0;
+		if (tally != null)
+			tally.add(-removed);
+		return removed;
+	}
+
+	/**
+	 * <p>
+	 * Moves as many {@link Resource}s as will fit from this inventory into
+	 * another one.
+	 *
+	 * @param destination
+	 *            The {@link ResourceInventory} to move {@link Resource}s into.
+	 * @return The amount of {@link Resource}s moved.
+	 */
+	public int transferTo(final ResourceInventory destination) {
+		final int moved = (int) Math.min(size, (long) destination.capacity - destination.size);
+		if (moved <= 0)
+			return 0;
+		destination.makeRoom(destination.size + moved);
+		System.arraycopy(resources, head + size - moved, destination.resources, destination.head + destination.size,
+				moved);
+		destination.size += moved;
+		size -= moved;
+		if (size == 0)
+			head = 0;
+		if (tally != null)
+			tally.add(-moved);
+		if (destination.tally != null)
+			destination.tally.add(moved);
+		return moved;
+	}
+
+	/**
+	 * Gets the total {@link Resource#getValue(int) value} of every
+	 * {@link Resource} in this inventory.
+	 *
+	 * @return The sum of the values.
+	 */
+	public int totalValue() {
+		int total = 0;
+		for (int i = head; i < head + size; i++)
+			total += Resource.getValue(resources[i]);
+		return total;
+	}
+
+	/**
+	 * Removes every {@link Resource} from this inventory.
+	 */
+	public void clear() {
+		if (tally != null)
+			tally.add(-size);
+		size = 0;
+		head = 0;
+	}
+
+	/**
+	 * Makes this inventory count towards a {@link ResourceTally}, instead of
+	 * any that it counted towards before.
+	 *
+	 * @param tally
+	 *            The {@link ResourceTally}, or <code>null</code> to stop
+	 *            counting.
+	 */
+	public void setTally(final ResourceTally tally) {
+		if (this.tally != null)
+			this.tally.add(-size);
+		this.tally = tally;
+		if (tally != null)
+			tally.add(size);
+	}
+
+	/**
+	 * A getter for the amount of {@link Resource}s in this inventory.
+	 *
+	 * @return The amount of {@link Resource}s in this inventory.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * A getter for {@link #capacity}.
+	 *
+	 * @return The maximum amount of {@link Resource}s that this inventory can
+	 *         hold.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * A getter for whether or not this inventory is empty.
+	 *
+	 * @return <code>true</code> if this inventory holds no {@link Resource}s.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * A getter for whether or not this inventory is full.
+	 *
+	 * @return <code>true</code> if this inventory holds {@link #capacity}
+	 *         {@link Resource}s.
+	 */
+	public boolean isFull() {
+		return size >= capacity;
+	}
+
+}
@@ -1,8 +1,7 @@
 package zeale.evolution.resources;
 
-import java.awt.Graphics;
-
 import zeale.evolution.Object;
+import zeale.evolution.RenderSnapshot;
 import zeale.evolution.bots.Bot;
 
 class ResourceObject extends Object {
@@ -20,7 +19,7 @@ class ResourceObject extends Object {
 	}
 
 	@Override
-	public void render(Graphics g) {
+	public void render(RenderSnapshot snapshot) {
 		// TODO Auto-generated method stub
 
 	}
@@ -0,0 +1,43 @@
+package zeale.evolution.resources;
+
+/**
+ * <p>
+ * A running count of the {@link Resource}s held by a group of
+ * {@link ResourceInventory}s and {@link ResourceBag}s, such as every
+ * {@link zeale.evolution.bots.Bot Bot} in a {@link zeale.evolution.World
+ * World}. An inventory that is given a {@link ResourceTally} adds what it
+ * holds to it, and keeps it up to date as {@link Resource}s come and go, so
+ * the total never has to be counted up.
+ * <p>
+ * A {@link ResourceTally} isn't thread safe. It's only changed by whatever
+ * changes its inventories, which for a {@link zeale.evolution.World World} is
+ * the thread that ticks it.
+ *
+ * @author Zeale
+ *
+ */
+public final class ResourceTally {
+
+	private long count;
+
+	/**
+	 * A getter for the amount of {@link Resource}s held.
+	 *
+	 * @return The amount of {@link Resource}s held by every inventory that
+	 *         counts towards this {@link ResourceTally}.
+	 */
+	public long get() {
+		return count;
+	}
+
+	/**
+	 * Adds to (or, if it's negative, takes from) the count.
+	 *
+	 * @param amount
+	 *            The amount of {@link Resource}s that were added.
+	 */
+	void add(final long amount) {
+		count += amount;
+	}
+
+}
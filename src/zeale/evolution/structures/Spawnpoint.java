@@ -1,15 +1,15 @@
 package zeale.evolution.structures;
 
 import java.awt.Color;
-import java.awt.Graphics;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Random;
 
-import zeale.evolution.Evolution;
 import zeale.evolution.Object;
+import zeale.evolution.Parameters;
+import zeale.evolution.RenderSnapshot;
+import zeale.evolution.Rng;
+import zeale.evolution.World;
 import zeale.evolution.bots.Bot;
 import zeale.evolution.resources.Resource;
+import zeale.evolution.resources.ResourceInventory;
 import zeale.evolution.structures.resourcespawners.ResourceSpawner;
 
 public final class Spawnpoint extends Structure {
@@ -19,24 +19,17 @@ public final class Spawnpoint extends Structure {
 	 */
 	private static final long serialVersionUID = 1L;
 
-	private static final Random random = new Random();
-
 	/**
-	 * A {@link LinkedList} of the {@link Resource}s that this
+	 * A {@link ResourceInventory} of the {@link Resource}s that this
 	 * {@link Spawnpoint} currently holds.
 	 */
-	private final LinkedList<Resource> resources = new LinkedList<>();
+	private final ResourceInventory resources = new ResourceInventory();
 
 	/**
 	 * The size value of this {@link Spawnpoint}. Defaults to 36.
 	 */
 	private final int width = 36, height = 36;
 
-	/**
-	 * A private static random for wherever/whenever it's needed in this class.
-	 */
-	private static Random rand = new Random();
-
 	/**
 	 * Constructs a new {@link Spawnpoint} using an x and y position.
 	 *
@@ -51,10 +44,8 @@ public final class Spawnpoint extends Structure {
 
 	@Override
 	public void activate(final Bot bot) {
-		List<Resource> list = bot.takeResources();
-		for (Resource r : list)
-			bot.addLife(r.getValue() * 6);
-		resources.addAll(list);
+		bot.addLife(bot.getResources().totalValue() * 6);
+		bot.takeResources(resources);
 	}
 
 	@Override
@@ -62,81 +53,78 @@ public final class Spawnpoint extends Structure {
 
 	}
 
-	public LinkedList<Resource> removeResources(int count) {
-		LinkedList<Resource> list = new LinkedList<>();
-		for (int i = 0; i < count; i++)
-			if (!resources.isEmpty())
-				list.add(resources.removeFirst());
-			else
-				return list;
-		return list;
+	/**
+	 * Removes up to <code>count</code> {@link Resource}s from this
+	 * {@link Spawnpoint}. The {@link Resource}s that were deposited first are
+	 * removed first.
+	 *
+	 * @param count
+	 *            The amount of {@link Resource}s to remove.
+	 * @return The amount of {@link Resource}s that were removed.
+	 */
+	public int removeResources(int count) {
+		return resources.removeFirst(count);
 	}
 
 	@Override
-	public void render(final Graphics g) {
-		g.setColor(Color.BLUE);
-		g.fillRect(Evolution.calculatePosition(getX() - width / 2, true),
-				Evolution.calculatePosition(getY() - height / 2, false), Evolution.calculateSize(width, true),
-				Evolution.calculateSize(height, false));
-		g.setColor(Color.YELLOW);
-		g.drawString("" + resources.size(), Evolution.calculatePosition(getX() - 4, true),
-				Evolution.calculatePosition(getY() + 5, false));
+	public void render(final RenderSnapshot snapshot) {
+		final int x = getX(), y = getY();
+		snapshot.sprite(x - width / 2, y - height / 2, width, height, Color.BLUE.getRGB());
+		snapshot.label(resources.size(), x - 4, y + 5, Color.YELLOW.getRGB());
 	}
 
 	@Override
 	public void work(final long delta) {
-		if (resources.size() >= 15)
+		final World world = getWorld();
+		final Parameters parameters = world.getParameters();
+		if (resources.size() >= parameters.getSpawnThreshold()) {
+			final Rng rand = getRandom();
 			if (rand.nextInt(20) == 0) {
 				if (rand.nextBoolean())
-					Evolution.getCurrentInstance()
-							.addStruct(new ResourceSpawner(rand.nextDouble() * Evolution.calculateSize(1920, true),
-									rand.nextDouble() * Evolution.calculateSize(1080, false), (short) 50));
+					world.addStruct(new ResourceSpawner(rand.nextDouble() * world.getWidth(),
+							rand.nextDouble() * world.getHeight(), parameters.getSpawnerCapacity(), rand));
 				else
-					Evolution.getCurrentInstance()
-							.addBot(new Bot(rand.nextDouble() * Evolution.calculateSize(1920, true),
-									rand.nextDouble() * Evolution.calculateSize(1080, false), (short) 2));
-				removeResources(15);
+					world.addBot(new Bot(rand.nextDouble() * world.getWidth(), rand.nextDouble() * world.getHeight(),
+							parameters.getBotMaxResources(), parameters.getBotSpeed()));
+				removeResources(parameters.getSpawnThreshold());
 
 			}
+		}
 
 	}
 
 	/**
-	 * This method returns a {@code new} {@link LinkedList} which contains all
-	 * the {@link Resource}s in this {@link Spawnpoint}.
+	 * This method returns the {@link ResourceInventory} that holds this
+	 * {@link Spawnpoint}'s {@link Resource}s. Changes to it are changes to
+	 * this {@link Spawnpoint}.
 	 *
-	 * @return A new {@link LinkedList} with all the {@link Resource}s in this
-	 *         {@link Spawnpoint}.
+	 * @return The {@link ResourceInventory} of this {@link Spawnpoint}.
 	 */
-	public LinkedList<Resource> getResources() {
-		return new LinkedList<>(resources);
+	public ResourceInventory getResources() {
+		return resources;
 	}
 
 	/**
-	 * This method removes and returns {@link Resource}s at random from this
-	 * {@link Spawnpoint}.
+	 * This method moves {@link Resource}s at random from this
+	 * {@link Spawnpoint} into the given {@link ResourceInventory}.
 	 *
 	 * @param count
 	 *            The amount of {@link Resource}s to remove from this
 	 *            {@link Spawnpoint}.
-	 * @return A {@code new} {@link LinkedList} with the {@link Resource}s that
-	 *         were removed from this {@link Spawnpoint}.
+	 * @param destination
+	 *            The {@link ResourceInventory} that the removed
+	 *            {@link Resource}s are put in.
+	 * @return The amount of {@link Resource}s that were moved.
 	 */
-	public LinkedList<Resource> removeRandomResources(short count) {
-		LinkedList<Resource> list;
-
-		if (count >= resources.size()) {
-			list = new LinkedList<>(resources);
-			resources.clear();
-			return list;
-		}
-
-		list = new LinkedList<>();
+	public int removeRandomResources(final short count, final ResourceInventory destination) {
+		if (count >= resources.size())
+			return resources.transferTo(destination);
 
-		for (short i = 0; i < count; i++)
-			list.add(resources.remove((int) Math.round(random.nextDouble() * resources.size())));
+		int moved = 0;
+		for (short i = 0; i < count && !destination.isFull(); i++, moved++)
+			destination.add(resources.remove(getRandom().nextInt(resources.size())));
 
-		return list;
+		return moved;
 	}
 
 }
@@ -1,14 +1,14 @@
 package zeale.evolution.structures.resourcespawners;
 
-import java.awt.Graphics;
-import java.util.Collection;
-import java.util.LinkedList;
-import java.util.Random;
+import java.awt.Color;
 
-import zeale.evolution.Evolution;
 import zeale.evolution.Object;
+import zeale.evolution.RenderSnapshot;
+import zeale.evolution.Rng;
 import zeale.evolution.bots.Bot;
 import zeale.evolution.resources.Resource;
+import zeale.evolution.resources.ResourceBag;
+import zeale.evolution.resources.ResourceInventory;
 import zeale.evolution.structures.Structure;
 
 public class ResourceSpawner extends Structure {
@@ -18,19 +18,16 @@ public class ResourceSpawner extends Structure {
 	private static final long serialVersionUID = 1L;
 
 	/**
-	 * The {@link LinkedList} that holds this {@link ResourceSpawner}'s
-	 * resources.
+	 * The {@link ResourceBag} that holds this {@link ResourceSpawner}'s
+	 * resources. Its capacity is this {@link ResourceSpawner}'s maximum
+	 * capacity.
 	 */
-	private LinkedList<Resource> resources = new LinkedList<>();
-
-	/**
-	 * A private {@link Random} for use around the class.
-	 */
-	private static final Random rand = new Random();
+	private final ResourceBag resources;
 
 	/**
 	 * Constructs a {@link ResourceSpawner} using an x and y position and a
-	 * maximum capacity.
+	 * maximum capacity. The {@link ResourceSpawner} starts out full of random
+	 * {@link Resource}s.
 	 *
 	 * @param posx
 	 *            The X position of this {@link ResourceSpawner}.
@@ -39,37 +36,33 @@ public class ResourceSpawner extends Structure {
 	 * @param maxCapacity
 	 *            The maximum amount of {@link Resource}s that this
 	 *            {@link ResourceSpawner} can hold.
+	 * @param random
+	 *            The {@link Rng} to pick the starting {@link Resource}s with.
 	 */
-	public ResourceSpawner(final double posx, final double posy, final short maxCapacity) {
+	public ResourceSpawner(final double posx, final double posy, final short maxCapacity, final Rng random) {
 		super(posx, posy);
-		resources = new LinkedList<Resource>() {
-
-			private static final long serialVersionUID = 1L;
-
-			@Override
-			public void add(final int index, final Resource element) {
-				if (size() < maxCapacity)
-					super.add(index, element);
-			}
-
-			@Override
-			public boolean add(final Resource e) {
-				return size() < maxCapacity ? super.add(e) : false;
-			}
-
-			@Override
-			public boolean addAll(final Collection<? extends Resource> c) {
-				return c.size() + size() < maxCapacity ? super.addAll(c) : false;
-			}
-
-			@Override
-			public boolean addAll(final int index, final Collection<? extends Resource> c) {
-				return c.size() + size() < maxCapacity ? super.addAll(index, c) : false;
-			}
-		};
+		resources = new ResourceBag(maxCapacity);
 
 		for (int i = 0; i < maxCapacity; i++)
-			resources.add(new Resource());
+			resources.add(Resource.random(random));
+	}
+
+	/**
+	 * Constructs a {@link ResourceSpawner} using an x and y position and the
+	 * {@link ResourceBag} that it will hold, such as when a {@link ResourceSpawner}
+	 * is loaded.
+	 *
+	 * @param posx
+	 *            The X position of this {@link ResourceSpawner}.
+	 * @param posy
+	 *            The Y position of this {@link ResourceSpawner}.
+	 * @param resources
+	 *            The {@link ResourceBag} of this {@link ResourceSpawner}. Its
+	 *            capacity is this {@link ResourceSpawner}'s maximum capacity.
+	 */
+	public ResourceSpawner(final double posx, final double posy, final ResourceBag resources) {
+		super(posx, posy);
+		this.resources = resources;
 	}
 
 	@Override
@@ -87,34 +80,35 @@ public class ResourceSpawner extends Structure {
 
 	}
 
-	public Resource getRandomResource() {
-		if (!isAlive() || resources.isEmpty())
-			return null;
-		if (resources.size() == 1)
-			return resources.getFirst();
-		return resources.get(ResourceSpawner.rand.nextInt(resources.size()));
+	/**
+	 * Gets a random {@link Resource} from this spawner without removing it.
+	 *
+	 * @return The packed {@link Resource}, or {@link Resource#NONE} if this
+	 *         spawner is empty.
+	 */
+	public int getRandomResource() {
+		if (!isAlive())
+			return Resource.NONE;
+		return resources.peekRandom(getRandom());
 	}
 
 	@Override
-	public void render(final Graphics g) {
-		g.fillRect(Evolution.calculatePosition(getX(), true), Evolution.calculatePosition(getY(), false),
-				Evolution.calculateSize(20, true), Evolution.calculateSize(20, false));
+	public void render(final RenderSnapshot snapshot) {
+		snapshot.sprite(getX(), getY(), 20, 20, Color.BLACK.getRGB());
 	}
 
 	/**
-	 * This method will take random {@link Resource}s from this spawner and
-	 * return them. The returned {@link Resource}s will be erased from the
-	 * spawner once taken.
+	 * This method will take a random {@link Resource} from this spawner and
+	 * return it. The returned {@link Resource} will be erased from the spawner
+	 * once taken.
 	 *
-	 * @return The {@link Resource}s removed from this spawner and null if this
-	 *         spawner is empty.
+	 * @return The packed {@link Resource} removed from this spawner, or
+	 *         {@link Resource#NONE} if this spawner is empty.
 	 */
-	public Resource takeRandomResource() {
-		if (!isAlive() || resources.isEmpty())
-			return null;
-		if (resources.size() == 1)
-			return resources.removeFirst();
-		return resources.remove(ResourceSpawner.rand.nextInt(resources.size()));
+	public int takeRandomResource() {
+		if (!isAlive())
+			return Resource.NONE;
+		return resources.takeRandom(getRandom());
 	}
 
 	@Override
@@ -123,40 +117,29 @@ public class ResourceSpawner extends Structure {
 	}
 
 	/**
-	 * This method returns a {@code new} {@link LinkedList} which contains all
-	 * the {@link Resource}s in this {@link ResourceSpawner}.
+	 * This method returns the {@link ResourceBag} that holds this
+	 * {@link ResourceSpawner}'s {@link Resource}s. Changes to it are changes
+	 * to this {@link ResourceSpawner}.
 	 *
-	 * @return A new {@link LinkedList} with all the {@link Resource}s in this
-	 *         {@link ResourceSpawner}.
+	 * @return The {@link ResourceBag} of this {@link ResourceSpawner}.
 	 */
-	public LinkedList<Resource> getResources() {
-		return new LinkedList<>(resources);
+	public ResourceBag getResources() {
+		return resources;
 	}
 
 	/**
-	 * This method removes and returns {@link Resource}s at random from this
-	 * {@link ResourceSpawner}.
+	 * This method moves {@link Resource}s at random from this
+	 * {@link ResourceSpawner} into the given {@link ResourceInventory}.
 	 *
 	 * @param count
 	 *            The amount of {@link Resource}s to remove from this
 	 *            {@link ResourceSpawner}.
-	 * @return A {@code new} {@link LinkedList} with the {@link Resource}s that
-	 *         were removed from this {@link ResourceSpawner}.
+	 * @param destination
+	 *            The {@link ResourceInventory} that the removed
+	 *            {@link Resource}s are put in.
+	 * @return The amount of {@link Resource}s that were moved.
 	 */
-	public LinkedList<Resource> removeRandomResources(short count) {
-		LinkedList<Resource> list;
-
-		if (count >= resources.size()) {
-			list = new LinkedList<>(resources);
-			resources.clear();
-			return list;
-		}
-
-		list = new LinkedList<>();
-
-		for (short i = 0; i < count; i++)
-			list.add(resources.remove((int) Math.round(rand.nextDouble() * resources.size())));
-
-		return list;
+	public int removeRandomResources(final short count, final ResourceInventory destination) {
+		return resources.takeRandom(count, getRandom(), destination);
 	}
 }